@@ -0,0 +1,28 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs detector benchmarks with allocation profiler, so throughput and allocation rate
+ * are reported for each detector. Standard JMH options can be passed as arguments,
+ * e.g. {@code -p rows=1000} or {@code -p detector=NinetyNinetyRule}.
+ *
+ * Run by: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="-p rows=1000"
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(DetectorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
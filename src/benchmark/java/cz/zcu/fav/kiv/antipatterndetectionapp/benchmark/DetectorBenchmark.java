@@ -0,0 +1,73 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.benchmark;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.*;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.ConfigurationSnapshot;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
+import cz.zcu.fav.kiv.antipatterndetectionapp.repository.ConfigurationRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures evaluation of query results by each detector. Results are generated by
+ * {@link SyntheticResults} and served by {@link StubDatabaseConnection}, so the benchmark
+ * does not need database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DetectorBenchmark {
+
+    @Param({"TooLongSprint", "VaryingSprintLength", "BusinessAsUsual", "SpecifyNothing",
+            "RoadToNowhere", "LongOrNonExistentFeedbackLoops", "NinetyNinetyRule"})
+    private String detector;
+
+    // number of rows of results with row for each iteration or activity
+    @Param({"10", "1000", "100000"})
+    private int rows;
+
+    private AntiPatternDetector antiPatternDetector;
+    private StubDatabaseConnection databaseConnection;
+    private Project project;
+    private ConfigurationSnapshot configuration;
+
+    @Setup
+    public void setUp() {
+        antiPatternDetector = createDetector(detector);
+        databaseConnection = new StubDatabaseConnection(SyntheticResults.forDetector(antiPatternDetector, rows, 42L));
+        project = new Project("Benchmark", "Project with synthetic data");
+        project.setId(1L);
+        configuration = new ConfigurationRepository(Collections.singletonList(antiPatternDetector)).getSnapshot();
+    }
+
+    @Benchmark
+    public QueryResultItem analyze() {
+        return antiPatternDetector.analyze(project, databaseConnection, configuration);
+    }
+
+    private static AntiPatternDetector createDetector(String name) {
+        switch (name) {
+            case "TooLongSprint":
+                return new TooLongSprintDetectorImpl();
+            case "VaryingSprintLength":
+                return new VaryingSprintLengthDetectorImpl();
+            case "BusinessAsUsual":
+                return new BusinessAsUsualDetectorImpl();
+            case "SpecifyNothing":
+                return new SpecifyNothingDetectorImpl();
+            case "RoadToNowhere":
+                return new RoadToNowhereDetectorImpl();
+            case "LongOrNonExistentFeedbackLoops":
+                return new LongOrNonExistentFeedbackLoopsDetectorImpl();
+            case "NinetyNinetyRule":
+                return new NinetyNinetyRuleDetectorImpl();
+            default:
+                throw new IllegalArgumentException("Unknown detector " + name);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.benchmark;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import cz.zcu.fav.kiv.antipatterndetectionapp.AntiPatternDetectionAppApplication;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.AnalysisListener;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.AntiPatternManager;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResult;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
+import cz.zcu.fav.kiv.antipatterndetectionapp.service.AntiPatternService;
+import cz.zcu.fav.kiv.antipatterndetectionapp.service.ProjectService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput harness. Starts embedded MariaDB, generates synthetic SPADE data
+ * by {@link SpadeDataGenerator}, starts the application against it and measures
+ * {@link AntiPatternManager#analyze} of all projects. Reports latency percentiles of every
+ * detector on single project, latency of projects in analysis of all projects and duration
+ * of whole analyses. Everything runs locally, so the harness works without network.
+ *
+ * Options are given as key=value arguments, e.g. projects=50 rounds=10:
+ * projects, iterations (per project), workUnits (per iteration), wikiPages (per project),
+ * changes (per work unit or wiki page), warmup and rounds (number of analyses), seed and snapshot
+ * (1 evaluates detectors against in-memory snapshot instead of database).
+ *
+ * Run by: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=cz.zcu.fav.kiv.antipatterndetectionapp.benchmark.EndToEndBenchmark -Dbenchmark.args="projects=50"
+ */
+public class EndToEndBenchmark {
+
+    private static final String DATABASE = "spade";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int projects = getOption(options, "projects", 20);
+        int warmup = getOption(options, "warmup", 1);
+        int rounds = getOption(options, "rounds", 5);
+
+        DBConfigurationBuilder dbConfiguration = DBConfigurationBuilder.newBuilder();
+        // free port is chosen
+        dbConfiguration.setPort(0);
+        DB db = DB.newEmbeddedDB(dbConfiguration.build());
+        db.start();
+        ConfigurableApplicationContext context = null;
+        try {
+            db.createDB(DATABASE);
+            String url = dbConfiguration.getURL(DATABASE) + "?serverTimezone=UTC";
+
+            long generationStart = System.nanoTime();
+            try (Connection connection = DriverManager.getConnection(url, "root", "")) {
+                new SpadeDataGenerator(projects,
+                        getOption(options, "iterations", 12),
+                        getOption(options, "workUnits", 30),
+                        getOption(options, "wikiPages", 40),
+                        getOption(options, "changes", 3),
+                        getOption(options, "seed", 42)).generate(connection);
+            }
+            System.out.println("Generated " + projects + " projects in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - generationStart) + " ms");
+
+            // command line arguments override application.properties, result cache would serve repeated analyses
+            context = new SpringApplicationBuilder(AntiPatternDetectionAppApplication.class).run(
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=root",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.hibernate.ddl-auto=none",
+                    "--server.port=0",
+                    "--analysis.result-cache.max-size=0",
+                    "--analysis.snapshot.enabled=" + (getOption(options, "snapshot", 0) == 1));
+
+            run(context, warmup, rounds);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            db.stop();
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, int warmup, int rounds) {
+        AntiPatternManager antiPatternManager = context.getBean(AntiPatternManager.class);
+        List<Project> projects = context.getBean(ProjectService.class).getAllProjects();
+        List<AntiPatternDetector> antiPatternDetectors = context.getBean(AntiPatternService.class).getAllAntiPatterns();
+        String[] projectIds = projects.stream().map(project -> project.getId().toString()).toArray(String[]::new);
+        String[] antiPatternIds = antiPatternDetectors.stream()
+                .map(detector -> detector.getAntiPatternModel().getId().toString()).toArray(String[]::new);
+
+        Map<String, LatencyRecorder> detectorLatencies = new TreeMap<>();
+        LatencyRecorder projectLatencies = new LatencyRecorder();
+        LatencyRecorder analysisDurations = new LatencyRecorder();
+
+        for (int round = 0; round < warmup + rounds; round++) {
+            boolean measured = round >= warmup;
+
+            for (AntiPatternDetector antiPatternDetector : antiPatternDetectors) {
+                LatencyRecorder recorder = detectorLatencies.computeIfAbsent(
+                        antiPatternDetector.getAntiPatternModel().getName(), name -> new LatencyRecorder());
+                String[] antiPatternId = {antiPatternDetector.getAntiPatternModel().getId().toString()};
+                for (String projectId : projectIds) {
+                    long start = System.nanoTime();
+                    antiPatternManager.analyze(new String[]{projectId}, antiPatternId);
+                    if (measured) {
+                        recorder.add(System.nanoTime() - start);
+                    }
+                }
+            }
+
+            LatencyRecorder roundProjectLatencies = new LatencyRecorder();
+            long start = System.nanoTime();
+            antiPatternManager.analyze(projectIds, antiPatternIds, new AnalysisListener() {
+                @Override
+                public void onItemAnalyzed(Project project, QueryResultItem queryResultItem) {
+                }
+
+                @Override
+                public void onProjectAnalyzed(QueryResult queryResult) {
+                    roundProjectLatencies.add(System.nanoTime() - start);
+                }
+            });
+            if (measured) {
+                analysisDurations.add(System.nanoTime() - start);
+                projectLatencies.addAll(roundProjectLatencies);
+            }
+            System.out.println((measured ? "Round " + (round - warmup + 1) : "Warmup " + (round + 1))
+                    + " finished in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-40s %8s %10s %10s %10s %10s", "Latency [ms]", "count", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, LatencyRecorder> entry : detectorLatencies.entrySet()) {
+            print(entry.getKey(), entry.getValue());
+        }
+        print("Project in analysis of all projects", projectLatencies);
+        print("Analysis of all projects", analysisDurations);
+        double averageDuration = analysisDurations.mean() / 1e9;
+        System.out.println(String.format("Throughput: %.2f projects/s", projectIds.length / averageDuration));
+    }
+
+    private static void print(String name, LatencyRecorder recorder) {
+        System.out.println(String.format("%-40s %8d %10.1f %10.1f %10.1f %10.1f", name, recorder.count(),
+                recorder.percentile(50) / 1e6, recorder.percentile(90) / 1e6,
+                recorder.percentile(99) / 1e6, recorder.percentile(100) / 1e6));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Option " + arg + " is not in form key=value");
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static int getOption(Map<String, String> options, String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    /**
+     * Collects latencies in nanoseconds, can be used from several threads.
+     */
+    private static final class LatencyRecorder {
+
+        private final List<Long> latencies = new ArrayList<>();
+
+        private synchronized void add(long nanos) {
+            latencies.add(nanos);
+        }
+
+        private synchronized void addAll(LatencyRecorder recorder) {
+            synchronized (recorder) {
+                latencies.addAll(recorder.latencies);
+            }
+        }
+
+        private synchronized int count() {
+            return latencies.size();
+        }
+
+        private synchronized double mean() {
+            return latencies.stream().mapToLong(Long::longValue).average().orElse(0);
+        }
+
+        /**
+         * Returns percentile by nearest rank method.
+         */
+        private synchronized double percentile(double percentile) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+            return sorted.get(Math.max(rank, 1) - 1);
+        }
+    }
+}
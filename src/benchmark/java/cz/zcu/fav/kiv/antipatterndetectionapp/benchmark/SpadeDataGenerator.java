@@ -0,0 +1,200 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.benchmark;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Creates tables with the same names and columns as SPADE database reads by sql files of detectors
+ * and fills them with synthetic projects. Views of SPADE (workUnitView, artifactView, fieldChangeView)
+ * are created as tables with only columns used by the queries. Names of activities and wiki pages
+ * are taken from lists containing key words searched by detectors, so every detector finds some rows.
+ */
+public class SpadeDataGenerator {
+
+    private static final String[] SCHEMA = {
+            "create table project (id bigint primary key, name varchar(255), description text)",
+            "create table iteration (id bigint primary key, name varchar(255), superProjectId bigint, "
+                    + "startDate datetime, endDate datetime, index (superProjectId))",
+            "create table workUnitView (id bigint primary key, name varchar(255), description text, projectId bigint, "
+                    + "iterationName varchar(255), iterationStartDate datetime, activityEndDate datetime, "
+                    + "estimatedTime double, spentTime double, index (projectId))",
+            "create table artifactView (id bigint primary key, name varchar(255), description text, projectId bigint, "
+                    + "artifactClass varchar(50), index (projectId))",
+            "create table fieldChangeView (id bigint primary key auto_increment, itemId bigint, created datetime, "
+                    + "newValue text, oldValue text, index (itemId))"
+    };
+
+    private static final String[] WORK_UNIT_NAMES = {
+            "Retrospektiva sprintu", "Revize iterace", "Weekly scrum", "Schůzka se zákazníkem",
+            "Předvedení prototypu zákazníkovi", "Informační schůzka", "Vytvoření DSP", "Specifikace požadavků",
+            "Plán projektu", "Project plan review", "Implementace přihlášení", "Oprava chyby v exportu",
+            "Testování API", "Refaktoring služeb", "Dokumentace nasazení", "Code review"
+    };
+
+    private static final String[] WIKI_PAGE_NAMES = {
+            "Retrospektiva", "Zápis ze schůzky se zákazníkem", "Specifikace", "Vize projektu",
+            "Projektový plán", "Project plan", "Architektura", "Návod k instalaci", "Coding conventions"
+    };
+
+    private static final LocalDate PROJECT_START = LocalDate.of(2020, 2, 17);
+    private static final int BATCH_SIZE = 1000;
+
+    private final int projects;
+    private final int iterationsPerProject;
+    private final int workUnitsPerIteration;
+    private final int wikiPagesPerProject;
+    private final int changesPerItem;
+    private final Random random;
+
+    // work units and artifacts share ids in the same way as work items of SPADE
+    private long nextItemId = 1;
+
+    public SpadeDataGenerator(int projects, int iterationsPerProject, int workUnitsPerIteration,
+                              int wikiPagesPerProject, int changesPerItem, long seed) {
+        this.projects = projects;
+        this.iterationsPerProject = iterationsPerProject;
+        this.workUnitsPerIteration = workUnitsPerIteration;
+        this.wikiPagesPerProject = wikiPagesPerProject;
+        this.changesPerItem = changesPerItem;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Creates schema and inserts all projects.
+     *
+     * @param connection connection to empty database
+     * @throws SQLException if creating of tables or inserting fails
+     */
+    public void generate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : SCHEMA) {
+                statement.execute(table);
+            }
+        }
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement project = connection.prepareStatement("insert into project values (?, ?, ?)");
+             PreparedStatement iteration = connection.prepareStatement("insert into iteration values (?, ?, ?, ?, ?)");
+             PreparedStatement workUnit = connection.prepareStatement("insert into workUnitView values (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement artifact = connection.prepareStatement("insert into artifactView values (?, ?, ?, ?, ?)");
+             PreparedStatement fieldChange = connection.prepareStatement(
+                     "insert into fieldChangeView (itemId, created, newValue, oldValue) values (?, ?, ?, ?)")) {
+            Batch batch = new Batch(connection, project, iteration, workUnit, artifact, fieldChange);
+            for (long projectId = 1; projectId <= projects; projectId++) {
+                project.setLong(1, projectId);
+                project.setString(2, "Project " + projectId);
+                project.setString(3, "Synthetic project " + projectId);
+                batch.add(project);
+                generateProject(projectId, batch, iteration, workUnit, artifact, fieldChange);
+            }
+            batch.flush();
+        }
+        connection.setAutoCommit(true);
+    }
+
+    private void generateProject(long projectId, Batch batch, PreparedStatement iteration, PreparedStatement workUnit,
+                                 PreparedStatement artifact, PreparedStatement fieldChange) throws SQLException {
+        LocalDate start = PROJECT_START.plusDays(random.nextInt(60));
+        LocalDate iterationStart = start;
+        for (int i = 1; i <= iterationsPerProject; i++) {
+            // mostly two or three weeks, sometimes longer to make some projects too long or varying
+            int length = random.nextInt(10) == 0 ? 28 + random.nextInt(14) : 14 + random.nextInt(8);
+            LocalDate iterationEnd = iterationStart.plusDays(length);
+            String iterationName = String.format("Iterace %02d", i);
+            iteration.setLong(1, projectId * 1000 + i);
+            iteration.setString(2, iterationName);
+            iteration.setLong(3, projectId);
+            iteration.setDate(4, Date.valueOf(iterationStart));
+            iteration.setDate(5, Date.valueOf(iterationEnd));
+            batch.add(iteration);
+
+            for (int w = 0; w < workUnitsPerIteration; w++) {
+                long id = nextItemId++;
+                double estimatedTime = 1 + random.nextInt(16);
+                workUnit.setLong(1, id);
+                workUnit.setString(2, pick(WORK_UNIT_NAMES) + " " + w);
+                workUnit.setString(3, description());
+                workUnit.setLong(4, projectId);
+                workUnit.setString(5, iterationName);
+                workUnit.setDate(6, Date.valueOf(iterationStart));
+                workUnit.setDate(7, Date.valueOf(iterationStart.plusDays(random.nextInt(length + 1))));
+                workUnit.setDouble(8, estimatedTime);
+                workUnit.setDouble(9, estimatedTime * (0.5 + random.nextDouble()));
+                batch.add(workUnit);
+                addChanges(id, iterationStart, length, batch, fieldChange);
+            }
+            iterationStart = iterationEnd.plusDays(1);
+        }
+
+        int projectLength = (int) (iterationStart.toEpochDay() - start.toEpochDay());
+        for (int p = 0; p < wikiPagesPerProject; p++) {
+            long id = nextItemId++;
+            artifact.setLong(1, id);
+            artifact.setString(2, pick(WIKI_PAGE_NAMES) + " " + p);
+            artifact.setString(3, description());
+            artifact.setLong(4, projectId);
+            artifact.setString(5, random.nextInt(5) == 0 ? "FILE" : "WIKIPAGE");
+            batch.add(artifact);
+            addChanges(id, start, projectLength, batch, fieldChange);
+        }
+    }
+
+    private void addChanges(long itemId, LocalDate from, int days, Batch batch, PreparedStatement fieldChange) throws SQLException {
+        for (int c = 0; c < changesPerItem; c++) {
+            fieldChange.setLong(1, itemId);
+            fieldChange.setTimestamp(2, Timestamp.valueOf(from.plusDays(random.nextInt(days + 1)).atTime(8 + random.nextInt(10), 0)));
+            fieldChange.setString(3, "value " + c + " " + description());
+            fieldChange.setString(4, "value " + c);
+            batch.add(fieldChange);
+        }
+    }
+
+    private String pick(String[] names) {
+        return names[random.nextInt(names.length)];
+    }
+
+    private String description() {
+        StringBuilder description = new StringBuilder();
+        int words = random.nextInt(40);
+        for (int i = 0; i < words; i++) {
+            description.append("slovo").append(random.nextInt(100)).append(' ');
+        }
+        return description.toString();
+    }
+
+    /**
+     * Executes batches of all statements after given number of rows and commits them.
+     */
+    private static final class Batch {
+
+        private final Connection connection;
+        private final PreparedStatement[] statements;
+        private int rows;
+
+        private Batch(Connection connection, PreparedStatement... statements) {
+            this.connection = connection;
+            this.statements = statements;
+        }
+
+        private void add(PreparedStatement statement) throws SQLException {
+            statement.addBatch();
+            if (++rows >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            for (PreparedStatement statement : statements) {
+                statement.executeBatch();
+            }
+            connection.commit();
+            rows = 0;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.benchmark;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+
+import java.util.List;
+
+/**
+ * Connection without database which returns the same prepared results for every project,
+ * so only evaluation logic of detector is measured.
+ */
+public class StubDatabaseConnection extends DatabaseConnection {
+
+    private final List<ResultTable> resultTables;
+
+    public StubDatabaseConnection(List<ResultTable> resultTables) {
+        this.resultTables = resultTables;
+    }
+
+    @Override
+    public List<ResultTable> executeQueriesWithMultipleResults(Project project, QueryPlan queryPlan) {
+        return resultTables;
+    }
+}
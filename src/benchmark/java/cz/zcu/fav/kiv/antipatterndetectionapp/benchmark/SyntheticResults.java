@@ -0,0 +1,134 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.benchmark;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates results of detector queries with the same columns as sql files of the detectors.
+ * Values are chosen so the detectors go through all rows instead of finishing on the first one.
+ * Queries which return one aggregated row are generated with one row regardless of the size.
+ */
+public final class SyntheticResults {
+
+    private static final LocalDate PROJECT_START = LocalDate.of(2020, 1, 1);
+
+    private SyntheticResults() {
+    }
+
+    /**
+     * Creates results for given detector.
+     *
+     * @param antiPatternDetector detector which reads the results
+     * @param rows                number of rows of queries which return row for each iteration or activity
+     * @param seed                seed of random values
+     * @return results in order of selects of sql file of the detector
+     */
+    public static List<ResultTable> forDetector(AntiPatternDetector antiPatternDetector, int rows, long seed) {
+        Random random = new Random(seed);
+        switch (antiPatternDetector.getAntiPatternModel().getName()) {
+            case "TooLongSprint":
+            case "VaryingSprintLength":
+                return iterationLengths(rows, random);
+            case "BusinessAsUsual":
+                return retrospectives(rows);
+            case "SpecifyNothing":
+                return Collections.singletonList(ResultTable.builder(
+                        longColumn("numberOfWikiPages"),
+                        longColumn("numberOfActivitiesForSpecification"),
+                        doubleColumn("averageLengthOfIssueDescription"))
+                        .addRow(0, 0, 42.5)
+                        .build());
+            case "RoadToNowhere":
+                return Collections.singletonList(ResultTable.builder(
+                        longColumn("numberOfIssuesForProjectPlan"),
+                        longColumn("numberOfWikiPagesForProjectPlan"))
+                        .addRow(0, 0)
+                        .build());
+            case "LongOrNonExistentFeedbackLoops":
+                return feedbackLoops(rows);
+            case "NinetyNinetyRule":
+                return timeDivisions(rows, random);
+            default:
+                throw new IllegalArgumentException("No synthetic results for " + antiPatternDetector.getAntiPatternModel().getName());
+        }
+    }
+
+    private static List<ResultTable> iterationLengths(int rows, Random random) {
+        // lengths change by less than maximal difference, so every iteration is compared
+        ResultTable.Builder builder = ResultTable.builder(longColumn("iterationLength"));
+        for (int i = 0; i < rows; i++) {
+            builder.addRow(12 + random.nextInt(5));
+        }
+        return Collections.singletonList(builder.build());
+    }
+
+    private static List<ResultTable> retrospectives(int rows) {
+        ResultTable.Builder withActivity = ResultTable.builder(stringColumn("iterationName"));
+        ResultTable.Builder withWikiPage = ResultTable.builder(stringColumn("iterationName"));
+        for (int i = 0; i < rows; i++) {
+            (i % 2 == 0 ? withActivity : withWikiPage).addRow("Iteration " + i);
+        }
+        return Arrays.asList(
+                ResultTable.builder(longColumn("numberOfIterations")).addRow(rows).build(),
+                withActivity.build(),
+                withWikiPage.build());
+    }
+
+    private static List<ResultTable> feedbackLoops(int rows) {
+        // feedback in three quarters of iterations with regular gaps, so gaps of all feedbacks are checked
+        int iterationLength = 14;
+        ResultTable.Builder endDates = ResultTable.builder(dateColumn("endDate"));
+        ResultTable.Builder appointmentDates = ResultTable.builder(dateColumn("appointmentDate"));
+        int feedbacks = rows * 3 / 4;
+        for (int i = 0; i < feedbacks; i++) {
+            endDates.addRow(PROJECT_START.plusDays((long) i * iterationLength));
+            appointmentDates.addRow(PROJECT_START.plusDays((long) i * iterationLength + 1));
+        }
+        return Arrays.asList(
+                ResultTable.builder(longColumn("numberOfIterations")).addRow(rows).build(),
+                ResultTable.builder(doubleColumn("averageIterationLength")).addRow(iterationLength).build(),
+                ResultTable.builder(longColumn("totalCountOfIterationsWithFeedbackActivity")).addRow(feedbacks).build(),
+                endDates.build(),
+                ResultTable.builder(dateColumn("projectStartDate")).addRow(PROJECT_START).build(),
+                ResultTable.builder(dateColumn("projectEndDate")).addRow(PROJECT_START.plusDays((long) rows * iterationLength)).build(),
+                appointmentDates.build());
+    }
+
+    private static List<ResultTable> timeDivisions(int rows, Random random) {
+        // single divisions out of range with some null values, consecutive limit is never exceeded
+        ResultTable.Builder builder = ResultTable.builder(doubleColumn("timeDivision"));
+        for (int i = 0; i < rows; i++) {
+            if (i % 10 == 9) {
+                builder.addRow((Object) null);
+            } else if (i % 3 == 0) {
+                builder.addRow(1.3 + random.nextDouble());
+            } else {
+                builder.addRow(0.8 + random.nextDouble() * 0.4);
+            }
+        }
+        return Collections.singletonList(builder.build());
+    }
+
+    private static ResultColumn longColumn(String label) {
+        return new ResultColumn(label, ResultTable.ColumnType.LONG);
+    }
+
+    private static ResultColumn doubleColumn(String label) {
+        return new ResultColumn(label, ResultTable.ColumnType.DOUBLE);
+    }
+
+    private static ResultColumn dateColumn(String label) {
+        return new ResultColumn(label, ResultTable.ColumnType.DATE);
+    }
+
+    private static ResultColumn stringColumn(String label) {
+        return new ResultColumn(label, ResultTable.ColumnType.STRING);
+    }
+}
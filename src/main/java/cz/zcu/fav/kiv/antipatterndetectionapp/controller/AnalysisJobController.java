@@ -0,0 +1,189 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.controller;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.AnalysisListener;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.AnalysisJob;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Query;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResult;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
+import cz.zcu.fav.kiv.antipatterndetectionapp.service.AnalysisJobService;
+import cz.zcu.fav.kiv.antipatterndetectionapp.service.AntiPatternService;
+import cz.zcu.fav.kiv.antipatterndetectionapp.service.ProjectService;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import cz.zcu.fav.kiv.antipatterndetectionapp.utils.Utils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Controller for analyses running in background. Client either submits the analysis, polls its
+ * progress and displays results when the analysis is done, or receives results of every project
+ * as a stream of server-sent events as soon as the project is analyzed.
+ */
+@Controller
+public class AnalysisJobController {
+
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private AntiPatternService antiPatternService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @PostMapping(value = "/analyze", params = "async=true")
+    public @ResponseBody
+    ResponseEntity<Map<String, String>> analyzeAsync(@RequestParam(value = "selectedProjects", required = false) String[] selectedProjects,
+                                                     @RequestParam(value = "selectedAntiPatterns", required = false) String[] selectedAntiPatterns) {
+        if (selectedProjects == null) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("errorMessage",
+                    "No project selected. Select at least one project."));
+        }
+
+        if (selectedAntiPatterns == null) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("errorMessage",
+                    "No anti-pattern selected. Select at least one anti-pattern."));
+        }
+
+        try {
+            AnalysisJob job = analysisJobService.submit(selectedProjects, selectedAntiPatterns);
+            return ResponseEntity.accepted().body(Collections.singletonMap("jobId", job.getId()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Collections.singletonMap("errorMessage",
+                    "Too many analyses are running. Try it again later."));
+        }
+    }
+
+    @PostMapping(value = "/analyze", params = "stream=true")
+    public String analyzeStream(Model model,
+                                @RequestParam(value = "selectedProjects", required = false) String[] selectedProjects,
+                                @RequestParam(value = "selectedAntiPatterns", required = false) String[] selectedAntiPatterns) {
+        if (selectedProjects == null || selectedAntiPatterns == null) {
+            model.addAttribute("errorMessage", selectedProjects == null
+                    ? "No project selected. Select at least one project."
+                    : "No anti-pattern selected. Select at least one anti-pattern.");
+            model.addAttribute("query", new Query(projectService.getAllProjects(), antiPatternService.antiPatternsToModel(antiPatternService.getAllAntiPatterns())));
+            return "index";
+        }
+
+        model.addAttribute("projects", projectService.getAllProjectsForGivenIds(Utils.arrayOfStringsToArrayOfLongs(selectedProjects)));
+        model.addAttribute("antiPatterns", antiPatternService.antiPatternsToModel(
+                antiPatternService.getAllAntiPatternsForGivenIds(Utils.arrayOfStringsToArrayOfLongs(selectedAntiPatterns))));
+        model.addAttribute("selectedProjects", selectedProjects);
+        model.addAttribute("selectedAntiPatterns", selectedAntiPatterns);
+        return "result-stream";
+    }
+
+    /**
+     * Runs analysis and sends result of every project as event "result" as soon as all its
+     * anti-patterns are analyzed. Event "done" with the finished job is sent at the end.
+     * Analysis is cancelled when the client disconnects.
+     */
+    @GetMapping("/analyze/stream")
+    public SseEmitter streamAnalysis(@RequestParam(value = "selectedProjects", required = false) String[] selectedProjects,
+                                     @RequestParam(value = "selectedAntiPatterns", required = false) String[] selectedAntiPatterns) {
+        if (selectedProjects == null || selectedAntiPatterns == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No project or anti-pattern selected.");
+        }
+
+        SseEmitter emitter = new SseEmitter(applicationProperties.getAnalysisStreamTimeout());
+        AnalysisJob job;
+        try {
+            job = analysisJobService.submit(selectedProjects, selectedAntiPatterns, new AnalysisListener() {
+                @Override
+                public void onItemAnalyzed(Project project, QueryResultItem queryResultItem) {
+                }
+
+                @Override
+                public void onProjectAnalyzed(QueryResult queryResult) {
+                    send(emitter, "result", queryResult);
+                }
+            }, finishedJob -> {
+                send(emitter, "done", finishedJob);
+                emitter.complete();
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many analyses are running. Try it again later.");
+        }
+
+        emitter.onCompletion(() -> analysisJobService.cancel(job.getId()));
+        emitter.onTimeout(() -> analysisJobService.cancel(job.getId()));
+        emitter.onError(e -> analysisJobService.cancel(job.getId()));
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // client has disconnected, completion of the emitter cancels the analysis
+            emitter.completeWithError(e);
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public @ResponseBody
+    ResponseEntity<AnalysisJob> getJob(@PathVariable String id) {
+        AnalysisJob job = analysisJobService.getJobById(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/jobs/{id}/results")
+    public @ResponseBody
+    ResponseEntity<List<QueryResult>> getJobResults(@PathVariable String id) {
+        AnalysisJob job = analysisJobService.getJobById(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != AnalysisJob.Status.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(job.getQueryResults());
+    }
+
+    @GetMapping("/jobs/{id}/view")
+    public String getJobView(@PathVariable String id, Model model) {
+        AnalysisJob job = analysisJobService.getJobById(id);
+        if (job == null || job.getStatus() != AnalysisJob.Status.DONE) {
+            String errorMessage = job == null ? "Analysis not found." : "Analysis is not done (" + job.getStatus() + ").";
+            if (job != null && job.getErrorMessage() != null) {
+                errorMessage += " " + job.getErrorMessage();
+            }
+            model.addAttribute("errorMessage", errorMessage);
+            model.addAttribute("query", new Query(projectService.getAllProjects(), antiPatternService.antiPatternsToModel(antiPatternService.getAllAntiPatterns())));
+            return "index";
+        }
+
+        model.addAttribute("queryResults", job.getQueryResults());
+        return "result";
+    }
+
+    @DeleteMapping("/jobs/{id}")
+    public @ResponseBody
+    ResponseEntity<AnalysisJob> cancelJob(@PathVariable String id) {
+        AnalysisJob job = analysisJobService.cancel(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+}
@@ -0,0 +1,166 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.AntiPatternManager;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ThresholdSweep;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.service.AntiPatternService;
+import cz.zcu.fav.kiv.antipatterndetectionapp.service.ProjectService;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import cz.zcu.fav.kiv.antipatterndetectionapp.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * REST API for machine clients. Results are written to the response incrementally by streaming
+ * JSON generator as soon as each window of projects is analyzed, so the whole list of results
+ * is never held in memory.
+ */
+@Controller
+public class ApiController {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(ApiController.class);
+
+    @Autowired
+    private AntiPatternManager antiPatternManager;
+
+    @Autowired
+    private ThresholdSweep thresholdSweep;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private AntiPatternService antiPatternService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Analyzes given projects and anti-patterns. Response has form
+     * {@code {"results": [...], "count": n}}, field {@code error} is added when the analysis
+     * fails after results have been already written.
+     *
+     * @param projectIds     ids of projects to analyze
+     * @param antiPatternIds ids of anti-patterns to analyze
+     * @return streamed results of all projects
+     */
+    @RequestMapping(value = "/api/analyze", method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<StreamingResponseBody> analyze(@RequestParam(value = "projectIds", required = false) String[] projectIds,
+                                                         @RequestParam(value = "antiPatternIds", required = false) String[] antiPatternIds) {
+        if (projectIds == null || projectIds.length == 0 || antiPatternIds == null || antiPatternIds.length == 0) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(outputStream -> {
+                        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                            generator.writeStartObject();
+                            generator.writeStringField("error", "Parameters projectIds and antiPatternIds are required.");
+                            generator.writeEndObject();
+                        }
+                    });
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> {
+                    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                        AtomicInteger count = new AtomicInteger();
+                        String error = null;
+
+                        generator.writeStartObject();
+                        generator.writeArrayFieldStart("results");
+                        try {
+                            antiPatternManager.analyze(projectIds, antiPatternIds, applicationProperties.getApiAnalysisWindowSize(), queryResult -> {
+                                try {
+                                    generator.writeObject(queryResult);
+                                    generator.flush();
+                                    count.incrementAndGet();
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            });
+                        } catch (UncheckedIOException e) {
+                            // client has disconnected
+                            throw e.getCause();
+                        } catch (RuntimeException e) {
+                            LOGGER.error("Analysis requested by API failed", e);
+                            error = e.getMessage();
+                        }
+                        generator.writeEndArray();
+                        generator.writeNumberField("count", count.get());
+                        if (error != null) {
+                            generator.writeStringField("error", error);
+                        }
+                        generator.writeEndObject();
+                    }
+                });
+    }
+
+    /**
+     * Evaluates one anti-pattern on given projects for every combination of thresholds without
+     * saving them. Thresholds are passed as parameters named by configuration with comma separated
+     * values, e.g. {@code maxIterationLength=14,21,28}. Response has form
+     * {@code {"antiPatternId": id, "results": [{"values": {...}, "projectCount": n, "detectedCount": d,
+     * "detectedProjects": [...]}, ...]}}.
+     *
+     * @param projectIds    ids of evaluated projects
+     * @param antiPatternId id of swept anti-pattern
+     * @param parameters    all request parameters, other than ids are thresholds
+     * @return outcome of every combination of thresholds
+     */
+    @RequestMapping(value = "/api/sweep", method = {RequestMethod.GET, RequestMethod.POST})
+    public @ResponseBody
+    ResponseEntity<Map<String, Object>> sweep(@RequestParam(value = "projectIds", required = false) String[] projectIds,
+                                              @RequestParam(value = "antiPatternId", required = false) Long antiPatternId,
+                                              @RequestParam Map<String, String> parameters) {
+        if (projectIds == null || projectIds.length == 0 || antiPatternId == null) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error",
+                    "Parameters projectIds and antiPatternId are required."));
+        }
+        AntiPatternDetector antiPatternDetector = antiPatternService.getAntiPatternById(antiPatternId);
+        if (antiPatternDetector == null) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Anti-pattern " + antiPatternId + " not found."));
+        }
+
+        Map<String, String> thresholds = new LinkedHashMap<>(parameters);
+        thresholds.remove("projectIds");
+        thresholds.remove("antiPatternId");
+        Map<String, List<Object>> grid;
+        try {
+            grid = thresholdSweep.parseGrid(antiPatternDetector, thresholds);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+
+        List<Project> projects = projectService.getAllProjectsForGivenIds(Utils.arrayOfStringsToArrayOfLongs(projectIds));
+        if (projects.contains(null)) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "Some of projects not found."));
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("antiPatternId", antiPatternId);
+        response.put("results", thresholdSweep.sweep(projects, antiPatternDetector, grid));
+        return ResponseEntity.ok(response);
+    }
+}
@@ -2,6 +2,8 @@ package cz.zcu.fav.kiv.antipatterndetectionapp.controller;
 
 
 import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.AntiPatternManager;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryResultItemCache;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.SlowQueryLog;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.AntiPattern;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.Query;
 import cz.zcu.fav.kiv.antipatterndetectionapp.service.AntiPatternService;
@@ -14,6 +16,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @Controller
 public class AppController {
@@ -29,6 +32,12 @@ public class AppController {
     @Autowired
     private AntiPatternManager antiPatternManager;
 
+    @Autowired
+    private QueryResultItemCache queryResultItemCache;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
     @GetMapping("/")
     public String index(Model model) {
         model.addAttribute("query", new Query(projectService.getAllProjects(), antiPatternService.antiPatternsToModel(antiPatternService.getAllAntiPatterns())));
@@ -49,7 +58,7 @@ public class AppController {
 
     @GetMapping("/anti-patterns/{id}")
     public String getAntiPatternById(@PathVariable Long id, Model model) {
-        model.addAttribute("antiPattern", antiPatternService.getAntiPatternById(id).getAntiPatternModel());
+        model.addAttribute("antiPattern", antiPatternService.antiPatternToModel(antiPatternService.getAntiPatternById(id)));
         return "anti-pattern";
     }
 
@@ -78,6 +87,27 @@ public class AppController {
         return "result";
     }
 
+    @GetMapping("/cache/statistics")
+    public @ResponseBody
+    Map<String, Object> getCacheStatistics() {
+        return queryResultItemCache.getStatistics();
+    }
+
+    @GetMapping("/diagnostics")
+    public String diagnostics(Model model,
+                              @RequestParam(value = "sort", required = false, defaultValue = "time") String sort) {
+        boolean byDuration = "duration".equals(sort);
+        model.addAttribute("slowQueries", byDuration ? slowQueryLog.getSlowestQueries() : slowQueryLog.getSlowQueries());
+        model.addAttribute("sort", byDuration ? "duration" : "time");
+        return "diagnostics";
+    }
+
+    @PostMapping("/diagnostics/clear")
+    public String clearDiagnostics() {
+        slowQueryLog.clear();
+        return "redirect:/diagnostics";
+    }
+
     @GetMapping("/about")
     public String about() {
         return "about";
@@ -0,0 +1,34 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResult;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
+
+/**
+ * Listener which is notified about progress of running analysis.
+ * Methods can be called from different threads of analysis executor.
+ */
+public interface AnalysisListener {
+
+    /**
+     * Listener which ignores all notifications.
+     */
+    AnalysisListener NONE = (project, queryResultItem) -> { };
+
+    /**
+     * Called when analysis of one anti-pattern on one project is finished.
+     *
+     * @param project         analyzed project
+     * @param queryResultItem result of the anti-pattern
+     */
+    void onItemAnalyzed(Project project, QueryResultItem queryResultItem);
+
+    /**
+     * Called when all selected anti-patterns of one project are analyzed. Projects are
+     * reported in order in which their analyses finish, not in order of selection.
+     *
+     * @param queryResult results of the project
+     */
+    default void onProjectAnalyzed(QueryResult queryResult) {
+    }
+}
@@ -0,0 +1,115 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records metrics of anti-pattern detection into Micrometer registry, they are exposed
+ * by actuator endpoint /actuator/prometheus.
+ *
+ * antipattern.detector.analyze: duration of analysis of one project by one detector
+ * antipattern.sql.statement: duration of one executed sql statement
+ * antipattern.sql.rows: number of rows returned by select
+ * antipattern.connection.acquire: time of waiting for pooled connection
+ * antipattern.analysis: duration of whole analysis of selected projects and anti-patterns
+ * antipattern.analysis.items: number of analyzed combinations of project and anti-pattern
+ */
+@Component
+public class AnalysisMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Records analysis of one project by detector.
+     *
+     * @param antiPatternDetector detector
+     * @param nanos               duration of analysis
+     * @param queryResultItem     result of analysis, null if the analysis failed
+     */
+    public void recordDetectorAnalysis(AntiPatternDetector antiPatternDetector, long nanos, QueryResultItem queryResultItem) {
+        String outcome = queryResultItem == null ? "error" : queryResultItem.isDetected() ? "detected" : "not_detected";
+        Timer.builder("antipattern.detector.analyze")
+                .description("Analysis of one project by detector")
+                .tag("detector", antiPatternDetector.getAntiPatternModel().getId().toString())
+                .tag("antiPattern", antiPatternDetector.getAntiPatternModel().getName())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records execution of sql statement. Statements are identified by sql file, which is
+     * used by exactly one detector, and by index of the statement in the file.
+     *
+     * @param queryPlan plan of sql file
+     * @param statement executed statement
+     * @param nanos     duration of execution including reading of result
+     * @param rows      number of returned rows, ignored for statements other than select
+     */
+    public void recordStatement(QueryPlan queryPlan, QueryPlan.Statement statement, long nanos, int rows) {
+        String query = queryPlan.getName();
+        String index = Integer.toString(queryPlan.getStatements().indexOf(statement));
+        Timer.builder("antipattern.sql.statement")
+                .description("Execution of sql statement of detector")
+                .tag("query", query)
+                .tag("statement", index)
+                .tag("kind", statement.getKind().name().toLowerCase(Locale.ROOT))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (statement.isSelect()) {
+            DistributionSummary.builder("antipattern.sql.rows")
+                    .description("Rows returned by select of detector")
+                    .baseUnit("rows")
+                    .tag("query", query)
+                    .tag("statement", index)
+                    .register(meterRegistry)
+                    .record(rows);
+        }
+    }
+
+    /**
+     * Records acquisition of connection from the pool.
+     *
+     * @param nanos    time of waiting for connection
+     * @param acquired false if no connection has been acquired
+     */
+    public void recordConnectionAcquisition(long nanos, boolean acquired) {
+        Timer.builder("antipattern.connection.acquire")
+                .description("Waiting for pooled database connection")
+                .tag("outcome", acquired ? "success" : "error")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records whole analysis of selected projects and anti-patterns.
+     *
+     * @param nanos     duration of analysis
+     * @param items     number of analyzed combinations of project and anti-pattern
+     * @param succeeded false if the analysis failed
+     */
+    public void recordAnalysis(long nanos, int items, boolean succeeded) {
+        Timer.builder("antipattern.analysis")
+                .description("Analysis of selected projects and anti-patterns")
+                .tag("outcome", succeeded ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("antipattern.analysis.items")
+                .description("Analyzed combinations of project and anti-pattern")
+                .register(meterRegistry)
+                .increment(items);
+    }
+}
@@ -5,8 +5,13 @@ import cz.zcu.fav.kiv.antipatterndetectionapp.model.Query;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResult;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface AntiPatternManager {
 
     List<QueryResult> analyze(String[] selectedProjects, String[] selectedAntiPatterns);
+
+    List<QueryResult> analyze(String[] selectedProjects, String[] selectedAntiPatterns, AnalysisListener analysisListener);
+
+    void analyze(String[] selectedProjects, String[] selectedAntiPatterns, int windowSize, Consumer<QueryResult> resultConsumer);
 }
@@ -2,54 +2,453 @@ package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
 
 
 import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.SnapshotDatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.SnapshotQueries;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.SpadeSnapshot;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.SpadeSnapshotProvider;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.ConfigurationSnapshot;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResult;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
+import cz.zcu.fav.kiv.antipatterndetectionapp.repository.ConfigurationRepository;
 import cz.zcu.fav.kiv.antipatterndetectionapp.service.AntiPatternService;
 import cz.zcu.fav.kiv.antipatterndetectionapp.service.ProjectService;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
 import cz.zcu.fav.kiv.antipatterndetectionapp.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 @Service
 public class AntiPatternManagerImpl implements AntiPatternManager {
 
+    private final Logger LOGGER = LoggerFactory.getLogger(AntiPatternManagerImpl.class);
+
     @Autowired
     private ProjectService projectService;
 
     @Autowired
     private AntiPatternService antiPatternService;
 
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private QueryResultItemCache queryResultItemCache;
+
+    @Autowired
+    private AnalysisMetrics analysisMetrics;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private SpadeSnapshotProvider spadeSnapshotProvider;
+
+    @Autowired
+    private ProjectWatermarks projectWatermarks;
+
+    @Autowired
+    private SummaryTables summaryTables;
+
+    @Autowired
+    private ProjectCosts projectCosts;
+
+    @Autowired
+    private ConfigurationRepository configurationRepository;
+
+    @Autowired
+    @Qualifier("analysisExecutor")
+    private ExecutorService analysisExecutor;
+
+    @Autowired
+    @Qualifier("evaluationExecutor")
+    private ExecutorService evaluationExecutor;
+
     @Override
     public List<QueryResult> analyze(String[] selectedProjects, String[] selectedAntiPatterns) {
+        return this.analyze(selectedProjects, selectedAntiPatterns, AnalysisListener.NONE);
+    }
+
+    @Override
+    public List<QueryResult> analyze(String[] selectedProjects, String[] selectedAntiPatterns, AnalysisListener analysisListener) {
 
         return this.analyze(projectService.getAllProjectsForGivenIds(Utils.arrayOfStringsToArrayOfLongs(selectedProjects)),
-                antiPatternService.getAllAntiPatternsForGivenIds(Utils.arrayOfStringsToArrayOfLongs(selectedAntiPatterns)));
+                antiPatternService.getAllAntiPatternsForGivenIds(Utils.arrayOfStringsToArrayOfLongs(selectedAntiPatterns)),
+                analysisListener);
+    }
+
+    /**
+     * Analyzes projects in windows of given size and passes results of every window to the consumer
+     * before the next window is analyzed, so only results of one window are held in memory.
+     * Results are passed in the same order as the selected projects.
+     *
+     * @param selectedProjects     ids of projects to analyze
+     * @param selectedAntiPatterns ids of anti-patterns to analyze
+     * @param windowSize           maximal number of projects analyzed at once
+     * @param resultConsumer       consumer of results of each project
+     */
+    @Override
+    public void analyze(String[] selectedProjects, String[] selectedAntiPatterns, int windowSize, Consumer<QueryResult> resultConsumer) {
+        List<Project> projects = projectService.getAllProjectsForGivenIds(Utils.arrayOfStringsToArrayOfLongs(selectedProjects));
+        List<AntiPatternDetector> antiPatternDetectors = antiPatternService.getAllAntiPatternsForGivenIds(Utils.arrayOfStringsToArrayOfLongs(selectedAntiPatterns));
+
+        for (int from = 0; from < projects.size(); from += windowSize) {
+            List<Project> window = projects.subList(from, Math.min(from + windowSize, projects.size()));
+            for (QueryResult queryResult : this.analyze(window, antiPatternDetectors, AnalysisListener.NONE)) {
+                resultConsumer.accept(queryResult);
+            }
+        }
     }
 
-    private List<QueryResult> analyze(List<Project> projects, List<AntiPatternDetector> antiPatternDetectors) {
-        DatabaseConnection databaseConnection = new DatabaseConnection();
+    /**
+     * Analyzes every combination of project and anti-pattern. Configuration, query plans and
+     * watermarks are read once for the whole run, combinations with valid result in the result
+     * cache are not analyzed again and the others are scheduled as tasks which fetch data on the
+     * analysis executor and evaluate them on the evaluation executor.
+     * Results are returned in the same order as the given projects and anti-patterns.
+     *
+     * @param projects             projects to analyze
+     * @param antiPatternDetectors detectors to run on every project
+     * @param analysisListener     listener notified about every finished anti-pattern and project
+     * @return results for each project
+     */
+    private List<QueryResult> analyze(List<Project> projects, List<AntiPatternDetector> antiPatternDetectors,
+                                      AnalysisListener analysisListener) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            List<QueryResult> queryResults = analyzeAll(projects, antiPatternDetectors, analysisListener);
+            succeeded = true;
+            return queryResults;
+        } finally {
+            analysisMetrics.recordAnalysis(System.nanoTime() - start, projects.size() * antiPatternDetectors.size(), succeeded);
+        }
+    }
+
+    private List<QueryResult> analyzeAll(List<Project> projects, List<AntiPatternDetector> antiPatternDetectors,
+                                         AnalysisListener analysisListener) {
+        ConfigurationSnapshot configuration = configurationRepository.getSnapshot();
+        QueryResultMemo queryResultMemo = applicationProperties.isQueryMemoizationEnabled() ? new QueryResultMemo() : null;
+        SpadeSnapshot spadeSnapshot = applicationProperties.isSnapshotAnalysisEnabled() ? spadeSnapshotProvider.getSnapshot() : null;
+        // watermarks are read before any detector runs, so changes made during the analysis move them later
+        Map<Long, String> watermarks = applicationProperties.isWatermarkEnabled() ? projectWatermarks.getWatermarks(projects) : Collections.emptyMap();
+        Set<Long> summarizedProjects = applicationProperties.isSummaryTablesEnabled()
+                ? summaryTables.refresh(projects, watermarks.isEmpty() ? projectWatermarks.getWatermarks(projects) : watermarks)
+                : Collections.emptySet();
+        // plans are read once, so sql files reloaded during the analysis do not change queries of the run
+        Map<Long, DetectorQueryPlans> queryPlans = new HashMap<>();
+        for (AntiPatternDetector antiPattern : antiPatternDetectors) {
+            queryPlans.put(antiPattern.getAntiPatternModel().getId(), antiPatternService.getQueryPlans(antiPattern));
+        }
+        int recomputed = 0;
+        List<List<CompletableFuture<QueryResultItem>>> futures = new ArrayList<>();
+        for (int i = 0; i < projects.size(); i++) {
+            futures.add(new ArrayList<>());
+        }
+
+        // indexes of projects without cached result for each anti-pattern, their placeholders are replaced by submitted analysis
+        List<List<Integer>> uncachedProjects = new ArrayList<>();
+        for (AntiPatternDetector antiPattern : antiPatternDetectors) {
+            List<Integer> antiPatternUncachedProjects = new ArrayList<>();
+            for (int i = 0; i < projects.size(); i++) {
+                QueryResultItem cachedResult = queryResultItemCache.get(projects.get(i), antiPattern, configuration, watermarks.get(projects.get(i).getId()));
+                if (cachedResult != null) {
+                    futures.get(i).add(CompletableFuture.completedFuture(cachedResult.withConfigurationVersion(configuration.getVersion())));
+                } else {
+                    futures.get(i).add(null);
+                    antiPatternUncachedProjects.add(i);
+                }
+            }
+            uncachedProjects.add(antiPatternUncachedProjects);
+            recomputed += antiPatternUncachedProjects.size();
+        }
+
+        boolean costAware = applicationProperties.isCostAwareSchedulingEnabled() && recomputed > 0;
+        if (costAware) {
+            projectCosts.readSizes(projects);
+        }
+        List<ScheduledTask> tasks = new ArrayList<>();
+        for (int a = 0; a < antiPatternDetectors.size(); a++) {
+            AntiPatternDetector antiPattern = antiPatternDetectors.get(a);
+            int antiPatternIndex = a;
+            List<Integer> antiPatternUncachedProjects = uncachedProjects.get(a);
+            DetectorQueryPlans antiPatternQueryPlans = queryPlans.get(antiPattern.getAntiPatternModel().getId());
+            QueryPlan batchQueryPlan = isSetBasedAnalysis(antiPatternUncachedProjects) ? antiPatternQueryPlans.getBatchQueryPlan() : null;
+            if (spadeSnapshot != null && SnapshotQueries.supports(antiPattern.getAntiPatternSqlFileName())) {
+                DatabaseConnection snapshotConnection = new SnapshotDatabaseConnection(spadeSnapshot, antiPattern.getAntiPatternSqlFileName());
+                // snapshot may be older than the watermarks, so its results are stored without them
+                for (int i : antiPatternUncachedProjects) {
+                    Project project = projects.get(i);
+                    tasks.add(new ScheduledTask(costAware ? projectCosts.estimate(project, antiPattern) : 0,
+                            () -> futures.get(i).set(antiPatternIndex, CompletableFuture.supplyAsync(
+                                    () -> analyzeAndCache(project, antiPattern, snapshotConnection, antiPatternQueryPlans, configuration, null),
+                                    analysisExecutor))));
+                }
+            } else if (batchQueryPlan != null) {
+                scheduleSetBased(projects, antiPatternUncachedProjects, antiPattern, antiPatternIndex, antiPatternQueryPlans, futures,
+                        configuration, watermarks, costAware, tasks);
+            } else {
+                for (int i : antiPatternUncachedProjects) {
+                    Project project = projects.get(i);
+                    String watermark = watermarks.get(project.getId());
+                    QueryPlan queryPlan = summarizedProjects.contains(project.getId()) && antiPatternQueryPlans.getSummaryQueryPlan() != null
+                            ? antiPatternQueryPlans.getSummaryQueryPlan() : antiPatternQueryPlans.getQueryPlan();
+                    tasks.add(new ScheduledTask(costAware ? projectCosts.estimate(project, antiPattern) : 0,
+                            () -> futures.get(i).set(antiPatternIndex, CompletableFuture.supplyAsync(
+                                    () -> fetch(project, antiPattern, queryResultMemo, queryPlan), analysisExecutor)
+                                    .thenApplyAsync(fetchedDataset -> evaluateAndCache(antiPattern, fetchedDataset, configuration, watermark,
+                                            antiPatternQueryPlans.getGeneration()), evaluationExecutor))));
+                }
+            }
+        }
+        if (costAware) {
+            // executors start tasks in order of submission, so the most expensive tasks are not left to the end of the run
+            tasks.sort(Comparator.comparingDouble((ScheduledTask task) -> task.cost).reversed());
+        }
+        for (ScheduledTask task : tasks) {
+            task.submission.run();
+        }
+        if (!watermarks.isEmpty()) {
+            LOGGER.info("Analyzing " + recomputed + " of " + projects.size() * antiPatternDetectors.size()
+                    + " combinations of project and anti-pattern, other results are reused");
+        }
+
+        for (int i = 0; i < projects.size(); i++) {
+            Project project = projects.get(i);
+            List<CompletableFuture<QueryResultItem>> projectFutures = futures.get(i);
+            for (CompletableFuture<QueryResultItem> future : projectFutures) {
+                future.thenAccept(queryResultItem -> analysisListener.onItemAnalyzed(project, queryResultItem));
+            }
+            CompletableFuture.allOf(projectFutures.toArray(new CompletableFuture[0]))
+                    .thenRun(() -> analysisListener.onProjectAnalyzed(new QueryResult(project, joinAll(projectFutures))));
+        }
 
         List<QueryResult> queryResults = new ArrayList<>();
+        try {
+            for (int i = 0; i < projects.size(); i++) {
+                List<QueryResultItem> queryResultItems = new ArrayList<>();
+                for (CompletableFuture<QueryResultItem> future : futures.get(i)) {
+                    queryResultItems.add(future.get());
+                }
+                queryResults.add(new QueryResult(projects.get(i), queryResultItems));
+            }
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analysis has been interrupted", e);
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            throw new IllegalStateException("Analysis of anti-pattern failed", e.getCause());
+        }
+
+        if (queryResultMemo != null) {
+            LOGGER.info("Memoized query results: " + queryResultMemo.getHits() + " hits, " + queryResultMemo.getMisses() + " misses");
+        }
+        return queryResults;
+    }
 
+    private boolean isSetBasedAnalysis(List<Integer> projects) {
+        return applicationProperties.isSetBasedAnalysisEnabled()
+                && projects.size() >= applicationProperties.getSetBasedAnalysisMinProjects();
+    }
 
+    /**
+     * Splits projects into batches and schedules one task for each batch. Used when set-based
+     * analysis is enabled and the detector has set-based queries. Task fetches data of all
+     * projects in the batch by set-based queries with one connection, every project is then
+     * evaluated as a separate task on the evaluation executor. Estimated cost of the task is
+     * the sum of estimates of its projects.
+     *
+     * @param projects         all analyzed projects
+     * @param projectIndexes   indexes of projects which should be analyzed
+     * @param antiPattern      detector to run on every project
+     * @param antiPatternIndex index of the detector in results of each project
+     * @param queryPlans       query plans of the detector read by the analysis
+     * @param futures          futures of results for each project where results are set
+     * @param configuration    configuration of the analysis
+     * @param watermarks       watermarks of projects stored with results
+     * @param costAware        whether tasks are scheduled by their estimated cost
+     * @param tasks            scheduled tasks where tasks of batches are added
+     */
+    private void scheduleSetBased(List<Project> projects, List<Integer> projectIndexes, AntiPatternDetector antiPattern,
+                                  int antiPatternIndex, DetectorQueryPlans queryPlans, List<List<CompletableFuture<QueryResultItem>>> futures,
+                                  ConfigurationSnapshot configuration, Map<Long, String> watermarks, boolean costAware,
+                                  List<ScheduledTask> tasks) {
+        int batchSize = applicationProperties.getSetBasedAnalysisBatchSize();
+        for (int from = 0; from < projectIndexes.size(); from += batchSize) {
+            List<Integer> batchIndexes = projectIndexes.subList(from, Math.min(from + batchSize, projectIndexes.size()));
+            List<Project> batch = new ArrayList<>();
+            double cost = 0;
+            for (int i : batchIndexes) {
+                batch.add(projects.get(i));
+                cost += costAware ? projectCosts.estimate(projects.get(i), antiPattern) : 0;
+            }
+            tasks.add(new ScheduledTask(cost, () -> {
+                CompletableFuture<List<FetchedDataset>> batchFuture = CompletableFuture.supplyAsync(
+                        () -> fetch(batch, antiPattern, queryPlans), analysisExecutor);
+                for (int i = 0; i < batchIndexes.size(); i++) {
+                    int index = i;
+                    String watermark = watermarks.get(batch.get(i).getId());
+                    futures.get(batchIndexes.get(i)).set(antiPatternIndex, batchFuture.thenApplyAsync(
+                            fetchedDatasets -> evaluateAndCache(antiPattern, fetchedDatasets.get(index), configuration, watermark,
+                                    queryPlans.getGeneration()), evaluationExecutor));
+                }
+            }));
+        }
+    }
+
+    private List<FetchedDataset> fetch(List<Project> projects, AntiPatternDetector antiPatternDetector, DetectorQueryPlans queryPlans) {
+        long start = System.nanoTime();
+        List<ResultTable> resultTables;
+        DatabaseConnection databaseConnection = new DatabaseConnection(dataSource, analysisMetrics);
+        databaseConnection.setSlowQueryLog(slowQueryLog);
+        try {
+            resultTables = databaseConnection.executeQueriesForProjects(projects, queryPlans.getBatchQueryPlan());
+        } finally {
+            databaseConnection.closeConnection();
+        }
+
+        DatabaseConnection prefetchedConnection = new PrefetchedDatabaseConnection(resultTables);
+        // time of set-based queries is split evenly among projects of the batch
+        long nanos = (System.nanoTime() - start) / projects.size();
+        List<FetchedDataset> fetchedDatasets = new ArrayList<>();
         for (Project project : projects) {
-            QueryResult queryResult = new QueryResult();
-            queryResult.setProject(project);
-            List<QueryResultItem> queryResultItems = new ArrayList<>();
-            for (AntiPatternDetector antiPattern : antiPatternDetectors) {
-                queryResultItems.add(antiPattern.analyze(project, databaseConnection));
+            fetchedDatasets.add(new FetchedDataset(antiPatternDetector.fetch(project, prefetchedConnection, queryPlans.getQueryPlan()), nanos));
+        }
+        return fetchedDatasets;
+    }
+
+    /**
+     * Fetches data of one project with its own pooled connection, which is returned before the data
+     * are evaluated, so the next project is fetched while the previous one is evaluated. Results
+     * of identical selects are shared by all detectors of the run through the memo. Project which
+     * summary tables are up to date is fetched by summary queries of the detector, if it has them.
+     *
+     * @param queryResultMemo memo of the run, null disables memoization
+     * @param queryPlan       queries of the detector read by the analysis, summary or per-project
+     */
+    private FetchedDataset fetch(Project project, AntiPatternDetector antiPatternDetector, QueryResultMemo queryResultMemo,
+                                 QueryPlan queryPlan) {
+        DatabaseConnection databaseConnection = new DatabaseConnection(dataSource, analysisMetrics);
+        databaseConnection.setQueryResultMemo(queryResultMemo);
+        databaseConnection.setSlowQueryLog(slowQueryLog);
+        try {
+            return fetch(project, antiPatternDetector, databaseConnection, queryPlan);
+        } finally {
+            databaseConnection.closeConnection();
+        }
+    }
+
+    /**
+     * Fetches data of the project by the given connection, which may also be snapshot connection
+     * evaluating queries against in-memory snapshot of SPADE tables without any database access.
+     */
+    private FetchedDataset fetch(Project project, AntiPatternDetector antiPatternDetector, DatabaseConnection databaseConnection,
+                                 QueryPlan queryPlan) {
+        long start = System.nanoTime();
+        try {
+            return new FetchedDataset(antiPatternDetector.fetch(project, databaseConnection, queryPlan), System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            analysisMetrics.recordDetectorAnalysis(antiPatternDetector, System.nanoTime() - start, null);
+            throw e;
+        }
+    }
+
+    private QueryResultItem analyzeAndCache(Project project, AntiPatternDetector antiPatternDetector, DatabaseConnection databaseConnection,
+                                            DetectorQueryPlans queryPlans, ConfigurationSnapshot configuration, String watermark) {
+        return evaluateAndCache(antiPatternDetector, fetch(project, antiPatternDetector, databaseConnection, queryPlans.getQueryPlan()),
+                configuration, watermark, queryPlans.getGeneration());
+    }
+
+    private QueryResultItem evaluateAndCache(AntiPatternDetector antiPatternDetector, FetchedDataset fetchedDataset,
+                                             ConfigurationSnapshot configuration, String watermark, long queryPlanGeneration) {
+        QueryResultItem queryResultItem = evaluate(antiPatternDetector, fetchedDataset, configuration);
+        // cached instance is never returned, every run gets a copy recorded with its own configuration version
+        queryResultItemCache.put(fetchedDataset.dataset.getProject(), antiPatternDetector, configuration, queryResultItem, watermark,
+                queryPlanGeneration);
+        return queryResultItem.withConfigurationVersion(configuration.getVersion());
+    }
+
+    /**
+     * Evaluates fetched data with thresholds of the configuration pinned by the run. Recorded duration
+     * of analysis is the sum of fetching and evaluation without time spent in queues of executors.
+     */
+    private QueryResultItem evaluate(AntiPatternDetector antiPatternDetector, FetchedDataset fetchedDataset,
+                                     ConfigurationSnapshot configuration) {
+        long start = System.nanoTime();
+        QueryResultItem queryResultItem = null;
+        try {
+            queryResultItem = antiPatternDetector.evaluate(fetchedDataset.dataset, configuration);
+            return queryResultItem;
+        } finally {
+            long nanos = fetchedDataset.nanos + System.nanoTime() - start;
+            analysisMetrics.recordDetectorAnalysis(antiPatternDetector, nanos, queryResultItem);
+            if (queryResultItem != null) {
+                projectCosts.record(fetchedDataset.dataset.getProject(), antiPatternDetector, nanos);
             }
-            queryResult.setQueryResultItems(queryResultItems);
-            queryResults.add(queryResult);
+        }
+    }
 
+    private List<QueryResultItem> joinAll(List<CompletableFuture<QueryResultItem>> projectFutures) {
+        List<QueryResultItem> queryResultItems = new ArrayList<>();
+        for (CompletableFuture<QueryResultItem> future : projectFutures) {
+            queryResultItems.add(future.join());
         }
+        return queryResultItems;
+    }
 
-        databaseConnection.closeConnection();
+    private void cancelAll(List<List<CompletableFuture<QueryResultItem>>> futures) {
+        for (List<CompletableFuture<QueryResultItem>> projectFutures : futures) {
+            for (CompletableFuture<QueryResultItem> future : projectFutures) {
+                future.cancel(true);
+            }
+        }
+    }
 
-        return queryResults;
+    /**
+     * Submission of analysis with its estimated cost.
+     */
+    private static class ScheduledTask {
+
+        private final double cost;
+        private final Runnable submission;
+
+        private ScheduledTask(double cost, Runnable submission) {
+            this.cost = cost;
+            this.submission = submission;
+        }
+    }
+
+    /**
+     * Dataset fetched for evaluation together with duration of fetching.
+     */
+    private static class FetchedDataset {
+
+        private final DetectorDataset dataset;
+        private final long nanos;
+
+        private FetchedDataset(DetectorDataset dataset, long nanos) {
+            this.dataset = dataset;
+            this.nanos = nanos;
+        }
     }
 }
@@ -1,38 +1,78 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
 
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
-import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
-import cz.zcu.fav.kiv.antipatterndetectionapp.spring.SpringApplicationContext;
-import cz.zcu.fav.kiv.antipatterndetectionapp.utils.Utils;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.SlowQuery;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Connection used for anti-pattern detection. Connection is borrowed from pooled
+ * data source and returned back to the pool by calling {@link #closeConnection()}.
+ */
 public class DatabaseConnection {
 
     private Connection databaseConnection;
+    private QueryResultMemo queryResultMemo;
+    private AnalysisMetrics analysisMetrics;
+    private SlowQueryLog slowQueryLog;
 
-    public DatabaseConnection() {
-        ApplicationProperties applicationProperties = ((ApplicationProperties) SpringApplicationContext.getContext()
-                .getBean("applicationProperties"));
-        String connectionUrl = applicationProperties.getDataSourceUrl();
-        String dataSourceUsername = applicationProperties.getDataSourceUsername();
-        String dataSourcePassword = applicationProperties.getDataSourcePassword();
-        this.databaseConnection = createConnection(connectionUrl, dataSourceUsername, dataSourcePassword);
+    // first assignment of set statement, its expression can be explained as select
+    private static final Pattern SET_ASSIGNMENT = Pattern.compile("(?is)^set\\s+@\\w+\\s*:?=\\s*(.*)$");
+
+    public DatabaseConnection(DataSource dataSource) {
+        this(dataSource, null);
     }
 
-    private Connection createConnection(String connectionUrl, String dataSourceUsername, String dataSourcePassword) {
-        Connection conn = null;
-        try {
-            conn = DriverManager.getConnection(connectionUrl, dataSourceUsername, dataSourcePassword);
+    /**
+     * Creates connection which records acquisition of the connection and executed statements.
+     *
+     * @param dataSource      pooled data source
+     * @param analysisMetrics metrics of analysis, null disables recording
+     * @throws IllegalStateException if the pool does not provide connection, e.g. on timeout
+     */
+    public DatabaseConnection(DataSource dataSource, AnalysisMetrics analysisMetrics) {
+        this.analysisMetrics = analysisMetrics;
+        this.databaseConnection = createConnection(dataSource);
+    }
 
+    /**
+     * Constructor for connections which do not need a real database connection,
+     * e.g. connection that serves already fetched results.
+     */
+    protected DatabaseConnection() {
+    }
+
+    /**
+     * Gets connection from the pool.
+     *
+     * @throws IllegalStateException if the pool does not provide connection, e.g. on timeout
+     */
+    private Connection createConnection(DataSource dataSource) {
+        long start = System.nanoTime();
+        try {
+            Connection conn = dataSource.getConnection();
+            recordConnectionAcquisition(start, true);
+            return conn;
         } catch (SQLException e) {
-            e.printStackTrace();
+            recordConnectionAcquisition(start, false);
+            throw new IllegalStateException("Cannot get database connection", e);
+        }
+    }
+
+    private void recordConnectionAcquisition(long start, boolean acquired) {
+        if (this.analysisMetrics != null) {
+            this.analysisMetrics.recordConnectionAcquisition(System.nanoTime() - start, acquired);
         }
-        return conn;
     }
 
     public void closeConnection() {
+        if (this.databaseConnection == null) {
+            return;
+        }
         try {
             this.databaseConnection.close();
         } catch (SQLException e) {
@@ -44,68 +84,204 @@ public class DatabaseConnection {
         return databaseConnection;
     }
 
-    public ResultSet executeQueries(Project project, List<String> queries) {
-        Statement stmt;
-        ResultSet resultSet = null;
-        try {
-            stmt = this.getDatabaseConnection().createStatement();
+    /**
+     * Sets memoization of select results shared by all connections of one analysis run.
+     *
+     * @param queryResultMemo memoization of select results, null disables memoization
+     */
+    public void setQueryResultMemo(QueryResultMemo queryResultMemo) {
+        this.queryResultMemo = queryResultMemo;
+    }
 
-            for (String query : queries) {
-                if(queries.indexOf(query) != queries.size()-1){
-                    if(query.contains("?"))
-                        query = query.replace("?", project.getId().toString());
-                    stmt.executeQuery(query);
+    /**
+     * Sets log of statements which take longer than threshold.
+     *
+     * @param slowQueryLog log of slow statements, null disables logging
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Executes compiled queries of detector for the project. Result of every select is read
+     * into columnar {@link ResultTable}.
+     *
+     * @param project   analyzed project
+     * @param queryPlan compiled queries of detector
+     * @return results of all selects in order of the queries
+     * @throws IllegalStateException if some statement fails, so partial results are never evaluated
+     */
+    public List<ResultTable> executeQueriesWithMultipleResults(Project project, QueryPlan queryPlan) {
+        List<ResultTable> allResults = new ArrayList<>(queryPlan.getSelectCount());
+        // set statements are executed only when some of following selects is not memoized
+        List<QueryPlan.Statement> pendingStatements = new ArrayList<>();
+        try {
+            for (QueryPlan.Statement statement : queryPlan.getStatements()) {
+                if (!statement.isSelect()) {
+                    pendingStatements.add(statement);
+                } else if (this.queryResultMemo == null) {
+                    allResults.add(executeSelect(project, queryPlan, pendingStatements, statement));
                 } else {
-                    resultSet = stmt.executeQuery(query);
+                    allResults.add(this.queryResultMemo.getOrLoad(project.getId(), statement.getFingerprint(),
+                            () -> executeSelect(project, queryPlan, pendingStatements, statement)));
                 }
-
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new IllegalStateException("Queries of " + queryPlan.getName() + " failed for project " + project.getId(), e);
         }
-        return resultSet;
+
+        return allResults;
     }
 
-    public List<List<Map<String,Object>>> executeQueriesWithMultipleResults(Project project, List<String> queries) {
-        Statement stmt;
-        List<List<Map<String,Object>>> allResults = new ArrayList<>();
-        ResultSet resultSet = null;
-        try {
-            stmt = this.getDatabaseConnection().createStatement();
+    private ResultTable executeSelect(Project project, QueryPlan queryPlan, List<QueryPlan.Statement> pendingStatements,
+                                      QueryPlan.Statement select) throws SQLException {
+        List<Project> projects = Collections.singletonList(project);
+        for (QueryPlan.Statement pendingStatement : pendingStatements) {
+            try (PreparedStatement stmt = prepareStatement(project, pendingStatement)) {
+                execute(queryPlan, pendingStatement, stmt, projects);
+            }
+        }
+        pendingStatements.clear();
 
-            for (String query : queries) {
-                if(queries.indexOf(query) != queries.size()-1){
-                    if(query.contains("?"))
-                        query = query.replace("?", project.getId().toString());
-                    resultSet = stmt.executeQuery(query);
-                } else {
-                    resultSet = stmt.executeQuery(query);
-                }
+        try (PreparedStatement stmt = prepareStatement(project, select)) {
+            return executeQuery(queryPlan, select, stmt, projects);
+        }
+    }
 
-                if (query.toLowerCase().startsWith("select")) {
-                    allResults.add(resultSetToArrayList(resultSet));
+    /**
+     * Executes set-based queries for several projects at once. Every parameter of the query
+     * is expanded to the list of ids of all given projects, so queries can filter
+     * projects with {@code in (?)}. Selects are expected to return column projectId.
+     *
+     * @param projects  analyzed projects
+     * @param queryPlan compiled set-based queries
+     * @return results of all selects with rows of all given projects
+     * @throws IllegalStateException if some statement fails, so partial results are never evaluated
+     */
+    public List<ResultTable> executeQueriesForProjects(List<Project> projects, QueryPlan queryPlan) {
+        List<ResultTable> allResults = new ArrayList<>(queryPlan.getSelectCount());
+        try {
+            for (QueryPlan.Statement statement : queryPlan.getStatements()) {
+                try (PreparedStatement stmt = prepareStatement(projects, statement)) {
+                    if (statement.isSelect()) {
+                        allResults.add(executeQuery(queryPlan, statement, stmt, projects));
+                    } else {
+                        execute(queryPlan, statement, stmt, projects);
+                    }
                 }
-
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new IllegalStateException("Set-based queries of " + queryPlan.getName() + " failed for "
+                    + projects.size() + " projects", e);
         }
 
         return allResults;
     }
 
-    private List<Map<String,Object>> resultSetToArrayList(ResultSet rs) throws SQLException {
-        ResultSetMetaData md = rs.getMetaData();
-        int columns = md.getColumnCount();
-        List<Map<String, Object>> list = new ArrayList<>();
-        while (rs.next()) {
-            Map<String, Object> row = new HashMap<>(columns);
-            for (int i = 1; i <= columns; ++i) {
-                row.put(md.getColumnName(i), rs.getObject(i));
+    private void execute(QueryPlan queryPlan, QueryPlan.Statement statement, PreparedStatement stmt,
+                         List<Project> projects) throws SQLException {
+        long start = System.nanoTime();
+        stmt.execute();
+        recordExecution(queryPlan, statement, System.nanoTime() - start, 0, projects);
+    }
+
+    private ResultTable executeQuery(QueryPlan queryPlan, QueryPlan.Statement statement, PreparedStatement stmt,
+                                     List<Project> projects) throws SQLException {
+        long start = System.nanoTime();
+        ResultTable resultTable;
+        try (ResultSet resultSet = stmt.executeQuery()) {
+            resultTable = ResultTable.fromResultSet(resultSet);
+        }
+        recordExecution(queryPlan, statement, System.nanoTime() - start, resultTable.getRowCount(), projects);
+        return resultTable;
+    }
+
+    private void recordExecution(QueryPlan queryPlan, QueryPlan.Statement statement, long nanos, int rows, List<Project> projects) {
+        if (this.analysisMetrics != null) {
+            this.analysisMetrics.recordStatement(queryPlan, statement, nanos, rows);
+        }
+        if (this.slowQueryLog != null && this.slowQueryLog.isSlow(nanos)) {
+            logSlowQuery(queryPlan, statement, nanos, projects);
+        }
+    }
+
+    /**
+     * Adds statement into slow query log together with EXPLAIN output. EXPLAIN is executed
+     * on the same connection, so it sees user variables set by previous statements.
+     * Expression assigned by set statement is explained as select.
+     */
+    private void logSlowQuery(QueryPlan queryPlan, QueryPlan.Statement statement, long nanos, List<Project> projects) {
+        StringJoiner projectIds = new StringJoiner(", ");
+        for (Project project : projects) {
+            projectIds.add(String.valueOf(project.getId()));
+        }
+        String sql = statement.expandParameters(projects.size());
+        List<String> explainColumns = null;
+        List<List<String>> explainRows = null;
+        String explainError = null;
+
+        Matcher assignment = SET_ASSIGNMENT.matcher(sql);
+        String explainedSql = statement.isSelect() ? sql : assignment.matches() ? "select " + assignment.group(1) : null;
+        if (!this.slowQueryLog.isExplainEnabled()) {
+            explainError = "EXPLAIN is disabled";
+        } else if (explainedSql == null) {
+            explainError = "Statement cannot be explained";
+        } else {
+            try (PreparedStatement stmt = this.getDatabaseConnection().prepareStatement("explain " + explainedSql)) {
+                bindProjects(stmt, statement.getParameterCount(), projects);
+                try (ResultSet resultSet = stmt.executeQuery()) {
+                    ResultSetMetaData md = resultSet.getMetaData();
+                    explainColumns = new ArrayList<>();
+                    for (int i = 1; i <= md.getColumnCount(); i++) {
+                        explainColumns.add(md.getColumnLabel(i));
+                    }
+                    explainRows = new ArrayList<>();
+                    while (resultSet.next()) {
+                        List<String> row = new ArrayList<>();
+                        for (int i = 1; i <= md.getColumnCount(); i++) {
+                            row.add(resultSet.getString(i));
+                        }
+                        explainRows.add(row);
+                    }
+                }
+            } catch (SQLException e) {
+                explainError = e.getMessage();
+            }
+        }
+        this.slowQueryLog.add(new SlowQuery(queryPlan.getName(), sql, projectIds.toString(), nanos / 1e6,
+                explainColumns, explainRows, explainError));
+    }
+
+    private PreparedStatement prepareStatement(List<Project> projects, QueryPlan.Statement statement) throws SQLException {
+        PreparedStatement stmt = this.getDatabaseConnection().prepareStatement(statement.expandParameters(projects.size()));
+        bindProjects(stmt, statement.getParameterCount(), projects);
+        return stmt;
+    }
+
+    private void bindProjects(PreparedStatement stmt, int parameterCount, List<Project> projects) throws SQLException {
+        int index = 1;
+        for (int i = 0; i < parameterCount; i++) {
+            for (Project project : projects) {
+                stmt.setLong(index++, project.getId());
             }
-            list.add(row);
         }
+    }
 
-        return list;
+    /**
+     * Prepares statement and binds id of the project to all its parameters. Prepared statements
+     * are cached by the driver per connection, so the statement is parsed only once for each
+     * pooled connection.
+     *
+     * @param project   project which id is bound to parameters
+     * @param statement compiled statement with parameters
+     * @return prepared statement ready for execution
+     * @throws SQLException if statement cannot be prepared
+     */
+    private PreparedStatement prepareStatement(Project project, QueryPlan.Statement statement) throws SQLException {
+        PreparedStatement stmt = this.getDatabaseConnection().prepareStatement(statement.getSql());
+        for (int i = 1; i <= statement.getParameterCount(); i++) {
+            stmt.setLong(i, project.getId());
+        }
+        return stmt;
     }
 }
@@ -0,0 +1,31 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable data of one project fetched by queries of a detector, results of all selects are
+ * kept in order of the queries. Dataset holds no database resources, so it can be evaluated
+ * on any thread after the connection it was fetched by has been returned to the pool, and
+ * evaluated again with different configuration.
+ */
+public final class DetectorDataset {
+
+    private final Project project;
+    private final List<ResultTable> resultTables;
+
+    public DetectorDataset(Project project, List<ResultTable> resultTables) {
+        this.project = project;
+        this.resultTables = Collections.unmodifiableList(resultTables);
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public List<ResultTable> getResultTables() {
+        return resultTables;
+    }
+}
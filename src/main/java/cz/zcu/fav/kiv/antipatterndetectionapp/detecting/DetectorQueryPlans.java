@@ -0,0 +1,42 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+/**
+ * Query plans of one detector read together at one moment, so analysis which holds them runs
+ * all its queries of the detector with the same version of sql files even if some file is
+ * reloaded meanwhile.
+ *
+ * queryPlan: per-project queries of the detector
+ * batchQueryPlan: set-based queries, null if the detector has none
+ * summaryQueryPlan: queries reading summary tables, null if the detector has none
+ * generation: number of reloads of sql files of the detector, higher for newer plans
+ */
+public final class DetectorQueryPlans {
+
+    private final QueryPlan queryPlan;
+    private final QueryPlan batchQueryPlan;
+    private final QueryPlan summaryQueryPlan;
+    private final long generation;
+
+    public DetectorQueryPlans(QueryPlan queryPlan, QueryPlan batchQueryPlan, QueryPlan summaryQueryPlan, long generation) {
+        this.queryPlan = queryPlan;
+        this.batchQueryPlan = batchQueryPlan;
+        this.summaryQueryPlan = summaryQueryPlan;
+        this.generation = generation;
+    }
+
+    public QueryPlan getQueryPlan() {
+        return queryPlan;
+    }
+
+    public QueryPlan getBatchQueryPlan() {
+        return batchQueryPlan;
+    }
+
+    public QueryPlan getSummaryQueryPlan() {
+        return summaryQueryPlan;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+}
@@ -0,0 +1,37 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection which serves results already fetched by set-based queries for several projects.
+ * Rows are split by column projectId, so a detector gets only rows of the analyzed project
+ * in the same shape as from its per-project queries.
+ */
+public class PrefetchedDatabaseConnection extends DatabaseConnection {
+
+    private static final ResultColumn PROJECT_ID = new ResultColumn("projectId", ResultTable.ColumnType.LONG);
+
+    private final List<ResultTable> resultTables;
+    private final List<Map<Long, ResultTable>> resultsByProject = new ArrayList<>();
+
+    public PrefetchedDatabaseConnection(List<ResultTable> resultTables) {
+        this.resultTables = resultTables;
+        for (ResultTable resultTable : resultTables) {
+            resultsByProject.add(resultTable.partitionBy(PROJECT_ID));
+        }
+    }
+
+    @Override
+    public List<ResultTable> executeQueriesWithMultipleResults(Project project, QueryPlan queryPlan) {
+        List<ResultTable> results = new ArrayList<>(resultTables.size());
+        for (int i = 0; i < resultTables.size(); i++) {
+            ResultTable projectResult = resultsByProject.get(i).get(project.getId());
+            results.add(projectResult != null ? projectResult : resultTables.get(i).withoutRows());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,171 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.ServletContextAware;
+
+import javax.servlet.ServletContext;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Estimates duration of analysis of project by detector, so the most expensive combinations
+ * can be started first. Estimate is the duration of previous analyses of the same combination.
+ * Combination which has not been analyzed yet is estimated from number of rows of the project
+ * (queries/cost/project_size.sql) and average duration per row of the detector.
+ * Estimates are only used for ordering, so they may be inaccurate or out of date. When cost-aware
+ * scheduling is enabled, analysis submits its tasks from the most expensive one, otherwise in order
+ * of anti-patterns and projects.
+ */
+@Component
+public class ProjectCosts implements ServletContextAware {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(ProjectCosts.class);
+
+    private static final String SQL_FILE = "/queries/cost/project_size.sql";
+    private static final ResultColumn PROJECT_ID = new ResultColumn("projectId", ResultTable.ColumnType.LONG);
+    private static final ResultColumn ROW_COUNT = new ResultColumn("rowCount", ResultTable.ColumnType.LONG);
+    // weight of the latest duration in moving average
+    private static final double WEIGHT = 0.5;
+
+    private QueryPlan queryPlan;
+
+    // numbers of rows by project id
+    private final ConcurrentMap<Long, Long> sizes = new ConcurrentHashMap<>();
+    // average durations in nanoseconds by anti-pattern id and project id
+    private final ConcurrentMap<Long, ConcurrentMap<Long, Double>> durations = new ConcurrentHashMap<>();
+    // average durations per row in nanoseconds by anti-pattern id
+    private final ConcurrentMap<Long, Double> durationsPerRow = new ConcurrentHashMap<>();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AnalysisMetrics analysisMetrics;
+
+    @Override
+    public void setServletContext(ServletContext servletContext) {
+        try {
+            URL resource = servletContext.getResource(SQL_FILE);
+            if (resource == null) {
+                LOGGER.warn("Sql file " + SQL_FILE + " not found, projects are estimated only by previous analyses");
+                return;
+            }
+            try (InputStream inputStream = resource.openStream()) {
+                this.queryPlan = QueryPlanCompiler.compile("cost/project_size.sql", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            LOGGER.info("Compiled " + this.queryPlan);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Cannot read sql from file " + SQL_FILE + ", projects are estimated only by previous analyses", e);
+        }
+    }
+
+    /**
+     * Reads numbers of rows of projects which size is not known yet. Projects are read
+     * in batches of the same size as set-based analysis.
+     *
+     * @param projects analyzed projects
+     */
+    public void readSizes(List<Project> projects) {
+        List<Project> unknownProjects = new ArrayList<>();
+        for (Project project : projects) {
+            if (!sizes.containsKey(project.getId())) {
+                unknownProjects.add(project);
+            }
+        }
+        if (this.queryPlan == null || unknownProjects.isEmpty()) {
+            return;
+        }
+
+        int batchSize = applicationProperties.getSetBasedAnalysisBatchSize();
+        try {
+            DatabaseConnection databaseConnection = new DatabaseConnection(dataSource, analysisMetrics);
+            try {
+                for (int from = 0; from < unknownProjects.size(); from += batchSize) {
+                    List<Project> batch = unknownProjects.subList(from, Math.min(from + batchSize, unknownProjects.size()));
+                    sizes.putAll(sum(batch, databaseConnection.executeQueriesForProjects(batch, this.queryPlan)));
+                }
+            } finally {
+                databaseConnection.closeConnection();
+            }
+        } catch (IllegalStateException e) {
+            LOGGER.warn("Cannot read sizes of projects, projects are estimated only by previous analyses", e);
+        }
+    }
+
+    private Map<Long, Long> sum(List<Project> projects, List<ResultTable> resultTables) {
+        Map<Long, Long> projectSizes = new HashMap<>();
+        for (Project project : projects) {
+            projectSizes.put(project.getId(), 0L);
+        }
+        for (ResultTable resultTable : resultTables) {
+            int projectIdColumn = resultTable.getColumnIndex(PROJECT_ID);
+            int rowCountColumn = resultTable.getColumnIndex(ROW_COUNT);
+            ResultTable.Cursor cursor = resultTable.cursor();
+            while (cursor.next()) {
+                projectSizes.computeIfPresent(cursor.getLong(projectIdColumn), (id, size) -> size + cursor.getLong(rowCountColumn));
+            }
+        }
+        return projectSizes;
+    }
+
+    /**
+     * Estimates duration of analysis of the project by the detector.
+     *
+     * @param project             analyzed project
+     * @param antiPatternDetector detector
+     * @return estimated duration in nanoseconds, or number of rows of the project when the detector
+     * has not analyzed any project of known size yet, zero when nothing is known about the project
+     */
+    public double estimate(Project project, AntiPatternDetector antiPatternDetector) {
+        Long antiPatternId = antiPatternDetector.getAntiPatternModel().getId();
+        Map<Long, Double> antiPatternDurations = durations.get(antiPatternId);
+        Double duration = antiPatternDurations != null ? antiPatternDurations.get(project.getId()) : null;
+        if (duration != null) {
+            return duration;
+        }
+        Long size = sizes.get(project.getId());
+        if (size == null) {
+            return 0;
+        }
+        return size * durationsPerRow.getOrDefault(antiPatternId, 1.0);
+    }
+
+    /**
+     * Records duration of finished analysis of the project by the detector.
+     *
+     * @param project             analyzed project
+     * @param antiPatternDetector detector
+     * @param nanos               duration of the analysis
+     */
+    public void record(Project project, AntiPatternDetector antiPatternDetector, long nanos) {
+        Long antiPatternId = antiPatternDetector.getAntiPatternModel().getId();
+        durations.computeIfAbsent(antiPatternId, id -> new ConcurrentHashMap<>())
+                .merge(project.getId(), (double) nanos, this::average);
+        Long size = sizes.get(project.getId());
+        if (size != null && size > 0) {
+            durationsPerRow.merge(antiPatternId, (double) nanos / size, this::average);
+        }
+    }
+
+    private double average(double previous, double latest) {
+        return (1 - WEIGHT) * previous + WEIGHT * latest;
+    }
+}
@@ -0,0 +1,128 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.ServletContextAware;
+
+import javax.servlet.ServletContext;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Reads watermarks of projects by set-based queries of file queries/watermark/project_watermark.sql.
+ * Watermark is a string composed of counts, the newest ids and the latest change of data read by
+ * detectors, so it is different whenever data of the project change. Result of detector computed
+ * for the same watermark can be served from {@link QueryResultItemCache} regardless of its age.
+ */
+@Component
+public class ProjectWatermarks implements ServletContextAware {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(ProjectWatermarks.class);
+
+    private static final String SQL_FILE = "/queries/watermark/project_watermark.sql";
+    private static final ResultColumn PROJECT_ID = new ResultColumn("projectId", ResultTable.ColumnType.LONG);
+    private static final ResultColumn WATERMARK = new ResultColumn("watermark", ResultTable.ColumnType.STRING);
+
+    private QueryPlan queryPlan;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AnalysisMetrics analysisMetrics;
+
+    @Override
+    public void setServletContext(ServletContext servletContext) {
+        try {
+            URL resource = servletContext.getResource(SQL_FILE);
+            if (resource == null) {
+                LOGGER.warn("Sql file " + SQL_FILE + " not found, results are not reused by watermarks");
+                return;
+            }
+            try (InputStream inputStream = resource.openStream()) {
+                this.queryPlan = QueryPlanCompiler.compile("watermark/project_watermark.sql", new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            LOGGER.info("Compiled " + this.queryPlan);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Cannot read sql from file " + SQL_FILE + ", results are not reused by watermarks", e);
+        }
+    }
+
+    /**
+     * Reads current watermarks of projects. Projects are read in batches of the same size
+     * as set-based analysis.
+     *
+     * @param projects projects which watermarks are read
+     * @return watermarks by project id, empty map if the watermarks cannot be read
+     */
+    public Map<Long, String> getWatermarks(List<Project> projects) {
+        Map<Long, String> watermarks = new HashMap<>();
+        if (this.queryPlan == null || projects.isEmpty()) {
+            return watermarks;
+        }
+
+        int batchSize = applicationProperties.getSetBasedAnalysisBatchSize();
+        try {
+            DatabaseConnection databaseConnection = new DatabaseConnection(dataSource, analysisMetrics);
+            try {
+                for (int from = 0; from < projects.size(); from += batchSize) {
+                    List<Project> batch = projects.subList(from, Math.min(from + batchSize, projects.size()));
+                    watermarks.putAll(join(batch, databaseConnection.executeQueriesForProjects(batch, this.queryPlan)));
+                }
+            } finally {
+                databaseConnection.closeConnection();
+            }
+        } catch (IllegalStateException e) {
+            LOGGER.warn("Cannot read watermarks of projects, all projects are analyzed again", e);
+            return new HashMap<>();
+        }
+        return watermarks;
+    }
+
+    /**
+     * Joins values of all selects of every project into one watermark. Missing value of select,
+     * e.g. for project without any artifact, is empty part of watermark.
+     */
+    private Map<Long, String> join(List<Project> projects, List<ResultTable> resultTables) {
+        Map<Long, String[]> parts = new HashMap<>();
+        for (Project project : projects) {
+            parts.put(project.getId(), new String[resultTables.size()]);
+        }
+        for (int i = 0; i < resultTables.size(); i++) {
+            ResultTable resultTable = resultTables.get(i);
+            int projectIdColumn = resultTable.getColumnIndex(PROJECT_ID);
+            int watermarkColumn = resultTable.getColumnIndex(WATERMARK);
+            ResultTable.Cursor cursor = resultTable.cursor();
+            while (cursor.next()) {
+                String[] projectParts = parts.get(cursor.getLong(projectIdColumn));
+                if (projectParts != null) {
+                    projectParts[i] = cursor.getString(watermarkColumn);
+                }
+            }
+        }
+
+        Map<Long, String> watermarks = new HashMap<>();
+        for (Map.Entry<Long, String[]> entry : parts.entrySet()) {
+            StringJoiner watermark = new StringJoiner("/");
+            for (String part : entry.getValue()) {
+                watermark.add(part == null ? "" : part);
+            }
+            watermarks.put(entry.getKey(), watermark.toString());
+        }
+        return watermarks;
+    }
+}
@@ -0,0 +1,130 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable plan of sql file compiled by {@link QueryPlanCompiler}. Plan contains statements
+ * of the file in order of their execution with everything what is needed to execute them,
+ * so sql is not scanned again when the statements are executed.
+ *
+ * name: path of compiled sql file relative to directory queries, e.g. batch/file.sql
+ * statements: all statements of the file
+ * selectCount: number of statements which return result
+ */
+public final class QueryPlan {
+
+    /**
+     * Kind of statement.
+     */
+    public enum Kind {
+        SET, SELECT, OTHER
+    }
+
+    private final String name;
+    private final List<Statement> statements;
+    private final int selectCount;
+
+    QueryPlan(String name, List<Statement> statements) {
+        this.name = name;
+        this.statements = Collections.unmodifiableList(statements);
+        this.selectCount = (int) statements.stream().filter(Statement::isSelect).count();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Statement> getStatements() {
+        return statements;
+    }
+
+    public int getSelectCount() {
+        return selectCount;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPlan{" +
+                "name='" + name + '\'' +
+                ", statements=" + statements.size() +
+                ", selectCount=" + selectCount +
+                '}';
+    }
+
+    /**
+     * One compiled statement of sql file.
+     *
+     * kind: kind of the statement
+     * sql: sql of the statement without comments and trailing semicolon
+     * parameterPositions: positions of parameter placeholders in sql
+     * expectedColumns: labels of columns returned by select, empty for other statements
+     * fingerprint: fingerprint of select together with all statements executed before it
+     */
+    public static final class Statement {
+
+        private final Kind kind;
+        private final String sql;
+        private final int[] parameterPositions;
+        private final List<String> expectedColumns;
+        private final String fingerprint;
+
+        Statement(Kind kind, String sql, int[] parameterPositions, List<String> expectedColumns, String fingerprint) {
+            this.kind = kind;
+            this.sql = sql;
+            this.parameterPositions = parameterPositions;
+            this.expectedColumns = Collections.unmodifiableList(expectedColumns);
+            this.fingerprint = fingerprint;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public boolean isSelect() {
+            return kind == Kind.SELECT;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public int getParameterCount() {
+            return parameterPositions.length;
+        }
+
+        public List<String> getExpectedColumns() {
+            return expectedColumns;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * Creates sql where every parameter placeholder is replaced by given number of placeholders,
+         * so the parameter can be bound to a list of values, e.g. {@code in (?)}.
+         *
+         * @param count number of placeholders for each parameter
+         * @return sql with expanded parameters
+         */
+        public String expandParameters(int count) {
+            if (count == 1 || parameterPositions.length == 0) {
+                return sql;
+            }
+            String placeholders = String.join(", ", Collections.nCopies(count, "?"));
+            StringBuilder expandedSql = new StringBuilder(sql.length() + parameterPositions.length * placeholders.length());
+            int from = 0;
+            for (int position : parameterPositions) {
+                expandedSql.append(sql, from, position).append(placeholders);
+                from = position + 1;
+            }
+            return expandedSql.append(sql, from, sql.length()).toString();
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + sql;
+        }
+    }
+}
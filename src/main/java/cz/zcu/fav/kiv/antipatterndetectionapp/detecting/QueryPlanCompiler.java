@@ -0,0 +1,215 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles sql files of detectors into {@link QueryPlan}. Comments are removed, statements
+ * are split by semicolons (statement can span several lines) and kind, parameter positions
+ * and expected result columns of every statement are found once when the file is loaded.
+ */
+public final class QueryPlanCompiler {
+
+    // alias at the end of select item, e.g. count(id) as 'numberOfIterations'
+    private static final Pattern ALIAS = Pattern.compile("(?is).*\\s+as\\s+(['\"`]?)([^'\"`\\s]+)\\1$");
+    // column without alias, e.g. iteration.name or `iteration`.`name`
+    private static final Pattern COLUMN = Pattern.compile("(?:(?:`[^`]+`|\\w+)\\.)*(?:`([^`]+)`|(\\w+))");
+
+    private QueryPlanCompiler() {
+    }
+
+    /**
+     * Compiles sql script into plan.
+     *
+     * @param name   path of the script relative to directory queries
+     * @param script content of sql file
+     * @return compiled plan
+     * @throws IllegalArgumentException if the script contains unterminated string or comment
+     */
+    public static QueryPlan compile(String name, String script) {
+        List<QueryPlan.Statement> statements = new ArrayList<>();
+        // statements executed before select, select result can depend on them
+        StringBuilder context = new StringBuilder();
+        for (String sql : splitStatements(name, script)) {
+            QueryPlan.Kind kind = getKind(sql);
+            String fingerprint = null;
+            List<String> expectedColumns = new ArrayList<>();
+            if (kind == QueryPlan.Kind.SELECT) {
+                fingerprint = QueryResultMemo.fingerprint(context + sql);
+                expectedColumns = getSelectedColumns(sql);
+            } else {
+                context.append(sql).append('\n');
+            }
+            statements.add(new QueryPlan.Statement(kind, sql, getParameterPositions(sql), expectedColumns, fingerprint));
+        }
+        return new QueryPlan(name, statements);
+    }
+
+    /**
+     * Splits script into statements. Comments are removed and whitespaces outside of quoted
+     * strings are collapsed into single space.
+     */
+    private static List<String> splitStatements(String name, String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        char quote = 0;
+        int i = 0;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (quote != 0) {
+                statement.append(c);
+                if (c == '\\' && quote != '`' && i + 1 < script.length()) {
+                    statement.append(script.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                i++;
+            } else if (script.startsWith("/*", i)) {
+                int end = script.indexOf("*/", i + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated comment in " + name);
+                }
+                appendSpace(statement);
+                i = end + 2;
+            } else if (c == '#' || script.startsWith("--", i)
+                    && (i + 2 == script.length() || Character.isWhitespace(script.charAt(i + 2)))) {
+                int end = script.indexOf('\n', i);
+                appendSpace(statement);
+                i = end < 0 ? script.length() : end + 1;
+            } else if (c == ';') {
+                addStatement(statements, statement);
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                appendSpace(statement);
+                i++;
+            } else {
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+                statement.append(c);
+                i++;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unterminated string in " + name);
+        }
+        addStatement(statements, statement);
+        return statements;
+    }
+
+    private static void appendSpace(StringBuilder statement) {
+        if (statement.length() > 0 && statement.charAt(statement.length() - 1) != ' ') {
+            statement.append(' ');
+        }
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder statement) {
+        String sql = statement.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        statement.setLength(0);
+    }
+
+    private static QueryPlan.Kind getKind(String sql) {
+        int end = 0;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        switch (sql.substring(0, end).toLowerCase(Locale.ROOT)) {
+            case "select":
+                return QueryPlan.Kind.SELECT;
+            case "set":
+                return QueryPlan.Kind.SET;
+            default:
+                return QueryPlan.Kind.OTHER;
+        }
+    }
+
+    private static int[] getParameterPositions(String sql) {
+        List<Integer> positions = new ArrayList<>();
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && quote != '`') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                positions.add(i);
+            }
+        }
+        return positions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Finds labels of columns in select list of the outermost select. Label is alias of the item,
+     * name of the column or the expression itself in the same way as database names the column.
+     */
+    private static List<String> getSelectedColumns(String sql) {
+        List<String> columns = new ArrayList<>();
+        int start = "select".length();
+        int end = sql.length();
+        int depth = 0;
+        char quote = 0;
+        for (int i = start; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && quote != '`') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && c == ',') {
+                addColumn(columns, sql.substring(start, i));
+                start = i + 1;
+            } else if (depth == 0 && isKeyword(sql, i, "from")) {
+                end = i;
+                break;
+            }
+        }
+        addColumn(columns, sql.substring(start, end));
+        return columns;
+    }
+
+    private static boolean isKeyword(String sql, int position, String keyword) {
+        int end = position + keyword.length();
+        return end <= sql.length()
+                && sql.regionMatches(true, position, keyword, 0, keyword.length())
+                && position > 0 && !isIdentifierPart(sql.charAt(position - 1))
+                && (end == sql.length() || !isIdentifierPart(sql.charAt(end)));
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static void addColumn(List<String> columns, String item) {
+        String column = item.trim();
+        if (column.toLowerCase(Locale.ROOT).startsWith("distinct ")) {
+            column = column.substring("distinct ".length()).trim();
+        }
+        Matcher alias = ALIAS.matcher(column);
+        Matcher name = COLUMN.matcher(column);
+        if (alias.matches()) {
+            columns.add(alias.group(2));
+        } else if (name.matches()) {
+            columns.add(name.group(1) != null ? name.group(1) : name.group(2));
+        } else {
+            columns.add(column);
+        }
+    }
+}
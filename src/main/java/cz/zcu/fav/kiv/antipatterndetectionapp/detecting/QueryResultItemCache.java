@@ -0,0 +1,196 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.ConfigurationSnapshot;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of detection results. Result is identified by project, anti-pattern and
+ * configuration values of the anti-pattern in the configuration pinned by the analysis, values
+ * are compared by equals, so the result is never served for different thresholds. Least recently
+ * used results are evicted when the cache is full and results older than time to live are not served.
+ * Result stored with watermark of project data is served regardless of its age while the watermark
+ * is the same, see {@link ProjectWatermarks}. Results computed by query plans older than the last
+ * reloaded plan of the anti-pattern are not stored. Cached results are shared by all analyses which
+ * get them, so they must not be modified, see {@link QueryResultItem#withConfigurationVersion(long)}.
+ */
+@Component
+public class QueryResultItemCache {
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // lowest generation of query plans whose results are stored, by anti-pattern id
+    private final Map<Long, Long> queryPlanGenerations = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long staleResults;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    /**
+     * Returns cached result of anti-pattern for given project. If both the current watermark and
+     * watermark of cached result are known, the result is valid exactly when they are the same.
+     * Otherwise the result is valid until its time to live expires.
+     *
+     * @param project             analyzed project
+     * @param antiPatternDetector detector of anti-pattern
+     * @param configuration       configuration of the analysis
+     * @param watermark           current watermark of project data, null if it is not known
+     * @return cached result or null if there is no valid result in cache
+     */
+    public synchronized QueryResultItem get(Project project, AntiPatternDetector antiPatternDetector, ConfigurationSnapshot configuration,
+                                            String watermark) {
+        Key key = createKey(project, antiPatternDetector, configuration);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (watermark != null && entry.watermark != null) {
+            if (!watermark.equals(entry.watermark)) {
+                // data of the project have changed since the result was computed
+                entries.remove(key);
+                staleResults++;
+                misses++;
+                return null;
+            }
+        } else if (System.currentTimeMillis() - entry.created > applicationProperties.getResultCacheTimeToLive() * 1000) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.queryResultItem;
+    }
+
+    /**
+     * Stores result of anti-pattern for given project.
+     *
+     * @param project             analyzed project
+     * @param antiPatternDetector detector of anti-pattern
+     * @param configuration       configuration the result was computed with
+     * @param queryResultItem     result of detection
+     * @param watermark           watermark of project data read before the detection, null if it is not known
+     * @param queryPlanGeneration generation of query plans the result was computed by, see {@link DetectorQueryPlans}
+     */
+    public synchronized void put(Project project, AntiPatternDetector antiPatternDetector, ConfigurationSnapshot configuration,
+                                 QueryResultItem queryResultItem, String watermark, long queryPlanGeneration) {
+        int maxSize = applicationProperties.getResultCacheMaxSize();
+        if (maxSize <= 0) {
+            return;
+        }
+        if (queryPlanGeneration < queryPlanGenerations.getOrDefault(antiPatternDetector.getAntiPatternModel().getId(), 0L)) {
+            // sql of the detector has been reloaded while the result was computed
+            return;
+        }
+        entries.put(createKey(project, antiPatternDetector, configuration), new Entry(queryResultItem, watermark));
+        while (entries.size() > maxSize) {
+            // first entry of access ordered map is the least recently used one
+            entries.remove(entries.keySet().iterator().next());
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes all results of given anti-pattern, e.g. after its configuration has been changed.
+     *
+     * @param antiPatternId id of anti-pattern
+     */
+    public synchronized void invalidate(Long antiPatternId) {
+        int sizeBefore = entries.size();
+        entries.keySet().removeIf(key -> key.antiPatternId.equals(antiPatternId));
+        invalidations += sizeBefore - entries.size();
+    }
+
+    /**
+     * Removes all results of given anti-pattern after its query plans have been reloaded and
+     * refuses results of older plans stored later by analyses which are still running.
+     *
+     * @param antiPatternId       id of anti-pattern
+     * @param queryPlanGeneration generation of the reloaded plans
+     */
+    public synchronized void invalidate(Long antiPatternId, long queryPlanGeneration) {
+        queryPlanGenerations.merge(antiPatternId, queryPlanGeneration, Math::max);
+        invalidate(antiPatternId);
+    }
+
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    /**
+     * Returns statistics of cache usage.
+     *
+     * @return map with names of statistics and their values
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", entries.size());
+        statistics.put("maxSize", applicationProperties.getResultCacheMaxSize());
+        statistics.put("hits", hits);
+        statistics.put("misses", misses);
+        statistics.put("hitRatio", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        statistics.put("evictions", evictions);
+        statistics.put("invalidations", invalidations);
+        statistics.put("staleResults", staleResults);
+        return statistics;
+    }
+
+    private Key createKey(Project project, AntiPatternDetector antiPatternDetector, ConfigurationSnapshot configuration) {
+        Long antiPatternId = antiPatternDetector.getAntiPatternModel().getId();
+        return new Key(project.getId(), antiPatternId, configuration.getValues(antiPatternId));
+    }
+
+    private static class Key {
+        private final Long projectId;
+        private final Long antiPatternId;
+        // unmodifiable values of the snapshot, so they cannot change while the key is in the map
+        private final Map<String, Object> configurationValues;
+
+        private Key(Long projectId, Long antiPatternId, Map<String, Object> configurationValues) {
+            this.projectId = projectId;
+            this.antiPatternId = antiPatternId;
+            this.configurationValues = configurationValues;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return projectId.equals(key.projectId) &&
+                    antiPatternId.equals(key.antiPatternId) &&
+                    configurationValues.equals(key.configurationValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, antiPatternId, configurationValues);
+        }
+    }
+
+    private static class Entry {
+        private final QueryResultItem queryResultItem;
+        private final String watermark;
+        private final long created = System.currentTimeMillis();
+
+        private Entry(QueryResultItem queryResultItem, String watermark) {
+            this.queryResultItem = queryResultItem;
+            this.watermark = watermark;
+        }
+    }
+}
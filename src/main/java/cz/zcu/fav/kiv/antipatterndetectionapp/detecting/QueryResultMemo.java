@@ -0,0 +1,120 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoization of select results for one analysis run. Results are shared by all detectors
+ * which execute the same select for the same project, so identical result sets are fetched
+ * from the database only once per run.
+ *
+ * Select is identified by fingerprint of its normalized sql together with all set statements
+ * executed before it, because the select can depend on session variables set by them.
+ */
+public class QueryResultMemo {
+
+    private final ConcurrentMap<String, CompletableFuture<ResultTable>> results = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Loader of select result which is called when result is not memoized yet.
+     */
+    public interface ResultLoader {
+        ResultTable load() throws SQLException;
+    }
+
+    /**
+     * Returns memoized result of the select or loads it. When the same select is being loaded
+     * by another detector, waits for its result instead of executing the select again.
+     *
+     * @param projectId   id of analyzed project
+     * @param fingerprint fingerprint of the select with its context
+     * @param loader      loader of the result
+     * @return result of the select
+     * @throws SQLException if loading of the result fails
+     */
+    public ResultTable getOrLoad(Long projectId, String fingerprint, ResultLoader loader) throws SQLException {
+        String key = projectId + ":" + fingerprint;
+        CompletableFuture<ResultTable> newResult = new CompletableFuture<>();
+        CompletableFuture<ResultTable> result = results.putIfAbsent(key, newResult);
+
+        if (result != null) {
+            hits.incrementAndGet();
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw new SQLException("Memoized query failed", e.getCause());
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            ResultTable loadedResult = loader.load();
+            newResult.complete(loadedResult);
+            return loadedResult;
+        } catch (SQLException | RuntimeException e) {
+            // failed result is not memoized, so next detector can try it again
+            results.remove(key, newResult);
+            newResult.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Creates fingerprint of normalized sql. Whitespaces are collapsed and keywords are lower-cased
+     * outside of quoted strings and trailing semicolon is removed.
+     *
+     * @param sql sql statements
+     * @return fingerprint of sql
+     */
+    public static String fingerprint(String sql) {
+        return DigestUtils.md5DigestAsHex(normalize(sql).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String normalize(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean whitespace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                normalized.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(c)) {
+                whitespace = true;
+            } else {
+                if (whitespace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                whitespace = false;
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == ';') {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+}
@@ -0,0 +1,50 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+/**
+ * Column of select result which is read by detector. Detectors declare columns they read,
+ * so the columns are checked and resolved to indexes once per result instead of for every row.
+ *
+ * label: label of the column in select
+ * type: type in which detector reads the column
+ */
+public final class ResultColumn {
+
+    private final String label;
+    private final ResultTable.ColumnType type;
+
+    public ResultColumn(String label, ResultTable.ColumnType type) {
+        this.label = label;
+        this.type = type;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public ResultTable.ColumnType getType() {
+        return type;
+    }
+
+    /**
+     * Numeric columns can be read as long or double, any column can be read as string.
+     *
+     * @param storedType type of stored column
+     * @return true if the stored column can be read in declared type
+     */
+    boolean isCompatibleWith(ResultTable.ColumnType storedType) {
+        switch (type) {
+            case LONG:
+            case DOUBLE:
+                return storedType == ResultTable.ColumnType.LONG || storedType == ResultTable.ColumnType.DOUBLE;
+            case STRING:
+                return true;
+            default:
+                return storedType == type;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return label + " " + type;
+    }
+}
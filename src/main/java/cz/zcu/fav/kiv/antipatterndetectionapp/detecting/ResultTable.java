@@ -0,0 +1,447 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable result of one select stored by columns. Numbers and dates are kept in primitive
+ * arrays (dates as epoch days), so reading of result does not allocate any object per row or
+ * per cell. Columns are resolved to indexes once by {@link #getColumnIndex(ResultColumn)}
+ * and rows are read by reusable {@link Cursor}.
+ *
+ * Table is not modified after it is created, so it can be shared by several detectors.
+ */
+public final class ResultTable {
+
+    /**
+     * Type of stored column.
+     */
+    public enum ColumnType {
+        LONG, DOUBLE, DATE, STRING
+    }
+
+    private final String[] labels;
+    private final ColumnType[] types;
+    private final Object[] values;
+    private final BitSet[] nulls;
+    private final int rowCount;
+
+    private ResultTable(String[] labels, ColumnType[] types, Object[] values, BitSet[] nulls, int rowCount) {
+        this.labels = labels;
+        this.types = types;
+        this.values = values;
+        this.nulls = nulls;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Reads all rows of the result set. Type of each column is given by its sql type, columns
+     * are identified by their labels.
+     *
+     * @param resultSet result set positioned before the first row
+     * @return table with all rows of the result set
+     * @throws SQLException if reading of the result set fails
+     */
+    public static ResultTable fromResultSet(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData md = resultSet.getMetaData();
+        int columns = md.getColumnCount();
+        String[] labels = new String[columns];
+        ColumnType[] types = new ColumnType[columns];
+        int[] sqlTypes = new int[columns];
+        Object[] values = new Object[columns];
+        BitSet[] nulls = new BitSet[columns];
+        int capacity = 16;
+        for (int i = 0; i < columns; i++) {
+            labels[i] = md.getColumnLabel(i + 1);
+            sqlTypes[i] = md.getColumnType(i + 1);
+            types[i] = toColumnType(sqlTypes[i]);
+            values[i] = createColumn(types[i], capacity);
+            nulls[i] = new BitSet();
+        }
+
+        int row = 0;
+        while (resultSet.next()) {
+            if (row == capacity) {
+                capacity *= 2;
+                for (int i = 0; i < columns; i++) {
+                    values[i] = resize(values[i], capacity);
+                }
+            }
+            for (int i = 0; i < columns; i++) {
+                readValue(resultSet, i, types[i], sqlTypes[i], values[i], nulls[i], row);
+            }
+            row++;
+        }
+
+        for (int i = 0; i < columns; i++) {
+            values[i] = resize(values[i], row);
+        }
+        return new ResultTable(labels, types, values, nulls, row);
+    }
+
+    /**
+     * Creates builder of table with given columns, e.g. for results computed without database.
+     *
+     * @param columns columns of the table in order of their indexes
+     * @return builder of empty table
+     */
+    public static Builder builder(ResultColumn... columns) {
+        return new Builder(columns);
+    }
+
+    private static ColumnType toColumnType(int sqlType) {
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return ColumnType.LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return ColumnType.DOUBLE;
+            case Types.DATE:
+            case Types.TIMESTAMP:
+                return ColumnType.DATE;
+            default:
+                return ColumnType.STRING;
+        }
+    }
+
+    private static Object createColumn(ColumnType type, int capacity) {
+        switch (type) {
+            case LONG:
+            case DATE:
+                return new long[capacity];
+            case DOUBLE:
+                return new double[capacity];
+            default:
+                return new String[capacity];
+        }
+    }
+
+    private static Object resize(Object column, int length) {
+        if (column instanceof long[]) {
+            return Arrays.copyOf((long[]) column, length);
+        } else if (column instanceof double[]) {
+            return Arrays.copyOf((double[]) column, length);
+        } else {
+            return Arrays.copyOf((String[]) column, length);
+        }
+    }
+
+    private static void readValue(ResultSet resultSet, int column, ColumnType type, int sqlType,
+                                  Object values, BitSet nulls, int row) throws SQLException {
+        int index = column + 1;
+        switch (type) {
+            case LONG:
+                ((long[]) values)[row] = resultSet.getLong(index);
+                break;
+            case DOUBLE:
+                ((double[]) values)[row] = resultSet.getDouble(index);
+                break;
+            case DATE:
+                LocalDate date = readDate(resultSet, index, sqlType);
+                if (date != null) {
+                    ((long[]) values)[row] = date.toEpochDay();
+                }
+                break;
+            default:
+                ((String[]) values)[row] = resultSet.getString(index);
+        }
+        if (resultSet.wasNull()) {
+            nulls.set(row);
+        }
+    }
+
+    private static LocalDate readDate(ResultSet resultSet, int index, int sqlType) throws SQLException {
+        if (sqlType == Types.TIMESTAMP) {
+            LocalDateTime dateTime = resultSet.getObject(index, LocalDateTime.class);
+            return dateTime == null ? null : dateTime.toLocalDate();
+        }
+        return resultSet.getObject(index, LocalDate.class);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    /**
+     * Returns index of the column declared by detector.
+     *
+     * @param column declared column
+     * @return index of the column
+     * @throws IllegalStateException if the result does not contain the column or the column has incompatible type
+     */
+    public int getColumnIndex(ResultColumn column) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equals(column.getLabel())) {
+                if (!column.isCompatibleWith(types[i])) {
+                    throw new IllegalStateException("Column " + column.getLabel() + " has type " + types[i]
+                            + ", expected " + column.getType());
+                }
+                return i;
+            }
+        }
+        throw new IllegalStateException("Column " + column.getLabel() + " not found in result");
+    }
+
+    /**
+     * Returns all values of long column without copying. Returned array must not be modified.
+     *
+     * @param column index of the column
+     * @return values of the column, null values are zero
+     */
+    public long[] getLongColumn(int column) {
+        if (!(values[column] instanceof long[])) {
+            throw new IllegalStateException("Column " + labels[column] + " is not long column");
+        }
+        return (long[]) values[column];
+    }
+
+    /**
+     * Returns all values of double column without copying. Returned array must not be modified.
+     *
+     * @param column index of the column
+     * @return values of the column, null values are zero
+     */
+    public double[] getDoubleColumn(int column) {
+        if (!(values[column] instanceof double[])) {
+            throw new IllegalStateException("Column " + labels[column] + " is not double column");
+        }
+        return (double[]) values[column];
+    }
+
+    /**
+     * Splits rows of the table by value of given long column. Order of rows is kept in every part.
+     *
+     * @param column declared column with the key
+     * @return parts of the table by values of the column
+     */
+    public Map<Long, ResultTable> partitionBy(ResultColumn column) {
+        int keyColumn = getColumnIndex(column);
+        Map<Long, BitSet> rowsByKey = new LinkedHashMap<>();
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            rowsByKey.computeIfAbsent(cursor.getLong(keyColumn), key -> new BitSet(rowCount)).set(cursor.row);
+        }
+
+        Map<Long, ResultTable> partitions = new HashMap<>();
+        for (Map.Entry<Long, BitSet> entry : rowsByKey.entrySet()) {
+            partitions.put(entry.getKey(), select(entry.getValue()));
+        }
+        return partitions;
+    }
+
+    /**
+     * Creates table with the same columns and without rows.
+     *
+     * @return empty table with columns of this table
+     */
+    public ResultTable withoutRows() {
+        return select(new BitSet());
+    }
+
+    private ResultTable select(BitSet rows) {
+        int selectedCount = rows.cardinality();
+        Object[] selectedValues = new Object[values.length];
+        BitSet[] selectedNulls = new BitSet[values.length];
+        for (int i = 0; i < values.length; i++) {
+            selectedValues[i] = createColumn(types[i], selectedCount);
+            selectedNulls[i] = new BitSet();
+            int selectedRow = 0;
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                System.arraycopy(values[i], row, selectedValues[i], selectedRow, 1);
+                if (nulls[i].get(row)) {
+                    selectedNulls[i].set(selectedRow);
+                }
+                selectedRow++;
+            }
+        }
+        return new ResultTable(labels, types, selectedValues, selectedNulls, selectedCount);
+    }
+
+    /**
+     * Creates new cursor positioned before the first row.
+     *
+     * @return cursor over all rows
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Builder which adds rows to the table one by one. Values of numeric columns are given as
+     * {@link Number}, values of date columns as {@link LocalDate} and null is stored as null value.
+     */
+    public static final class Builder {
+
+        private final String[] labels;
+        private final ColumnType[] types;
+        private final Object[] values;
+        private final BitSet[] nulls;
+        private int rowCount;
+        private int capacity = 16;
+
+        private Builder(ResultColumn[] columns) {
+            labels = new String[columns.length];
+            types = new ColumnType[columns.length];
+            values = new Object[columns.length];
+            nulls = new BitSet[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                labels[i] = columns[i].getLabel();
+                types[i] = columns[i].getType();
+                values[i] = createColumn(types[i], capacity);
+                nulls[i] = new BitSet();
+            }
+        }
+
+        /**
+         * Adds one row to the table.
+         *
+         * @param row values of all columns in order of the columns
+         * @return this builder
+         * @throws IllegalArgumentException if number of values does not match number of columns
+         */
+        public Builder addRow(Object... row) {
+            if (row.length != labels.length) {
+                throw new IllegalArgumentException("Expected " + labels.length + " values, found " + row.length);
+            }
+            if (rowCount == capacity) {
+                capacity *= 2;
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = resize(values[i], capacity);
+                }
+            }
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] == null) {
+                    nulls[i].set(rowCount);
+                    continue;
+                }
+                switch (types[i]) {
+                    case LONG:
+                        ((long[]) values[i])[rowCount] = ((Number) row[i]).longValue();
+                        break;
+                    case DOUBLE:
+                        ((double[]) values[i])[rowCount] = ((Number) row[i]).doubleValue();
+                        break;
+                    case DATE:
+                        ((long[]) values[i])[rowCount] = ((LocalDate) row[i]).toEpochDay();
+                        break;
+                    default:
+                        ((String[]) values[i])[rowCount] = row[i].toString();
+                }
+            }
+            rowCount++;
+            return this;
+        }
+
+        public ResultTable build() {
+            Object[] builtValues = new Object[values.length];
+            BitSet[] builtNulls = new BitSet[values.length];
+            for (int i = 0; i < values.length; i++) {
+                builtValues[i] = resize(values[i], rowCount);
+                builtNulls[i] = (BitSet) nulls[i].clone();
+            }
+            return new ResultTable(labels.clone(), types.clone(), builtValues, builtNulls, rowCount);
+        }
+    }
+
+    /**
+     * Cursor over rows of the table. Values of current row are read by primitive accessors,
+     * null values are read as zero in the same way as {@link ResultSet} does.
+     */
+    public final class Cursor {
+
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves cursor to the next row.
+         *
+         * @return false if there are no more rows
+         */
+        public boolean next() {
+            if (row < rowCount) {
+                row++;
+            }
+            return row < rowCount;
+        }
+
+        public boolean isNull(int column) {
+            return nulls[column].get(row);
+        }
+
+        public long getLong(int column) {
+            Object columnValues = values[column];
+            if (columnValues instanceof long[]) {
+                return ((long[]) columnValues)[row];
+            } else if (columnValues instanceof double[]) {
+                return (long) ((double[]) columnValues)[row];
+            }
+            throw new IllegalStateException("Column " + labels[column] + " is not numeric");
+        }
+
+        public int getInt(int column) {
+            return (int) getLong(column);
+        }
+
+        public double getDouble(int column) {
+            Object columnValues = values[column];
+            if (columnValues instanceof double[]) {
+                return ((double[]) columnValues)[row];
+            } else if (columnValues instanceof long[]) {
+                return ((long[]) columnValues)[row];
+            }
+            throw new IllegalStateException("Column " + labels[column] + " is not numeric");
+        }
+
+        /**
+         * Returns date of current row as number of days from 1970-01-01.
+         *
+         * @param column index of date column
+         * @return epoch day of the date, zero for null value
+         */
+        public long getEpochDay(int column) {
+            if (types[column] != ColumnType.DATE) {
+                throw new IllegalStateException("Column " + labels[column] + " is not date");
+            }
+            return ((long[]) values[column])[row];
+        }
+
+        public String getString(int column) {
+            if (isNull(column)) {
+                return null;
+            }
+            switch (types[column]) {
+                case LONG:
+                    return Long.toString(getLong(column));
+                case DOUBLE:
+                    return Double.toString(getDouble(column));
+                case DATE:
+                    return LocalDate.ofEpochDay(getEpochDay(column)).toString();
+                default:
+                    return ((String[]) values[column])[row];
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.SlowQuery;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded log of sql statements which took longer than configured threshold. When the log
+ * is full, the oldest statement is dropped. Statements are logged and shown on diagnostics page
+ * together with EXPLAIN output captured by {@link DatabaseConnection}.
+ */
+@Component
+public class SlowQueryLog {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    /**
+     * Returns true if statement of given duration should be logged.
+     *
+     * @param nanos duration of statement
+     * @return true if the duration exceeds threshold and the log is enabled
+     */
+    public boolean isSlow(long nanos) {
+        long threshold = applicationProperties.getSlowQueryThreshold();
+        return threshold >= 0 && TimeUnit.NANOSECONDS.toMillis(nanos) >= threshold;
+    }
+
+    public boolean isExplainEnabled() {
+        return applicationProperties.isSlowQueryExplainEnabled();
+    }
+
+    public void add(SlowQuery slowQuery) {
+        LOGGER.warn("Slow query " + slowQuery.getQueryName() + " for projects " + slowQuery.getProjectIds()
+                + " took " + Math.round(slowQuery.getDurationMillis()) + " ms: " + slowQuery.getSql());
+        int maxSize = applicationProperties.getSlowQueryLogSize();
+        synchronized (slowQueries) {
+            slowQueries.addFirst(slowQuery);
+            while (slowQueries.size() > maxSize) {
+                slowQueries.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Returns logged statements from the newest one.
+     *
+     * @return copy of logged statements
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    /**
+     * Returns logged statements ordered from the slowest one.
+     *
+     * @return copy of logged statements
+     */
+    public List<SlowQuery> getSlowestQueries() {
+        List<SlowQuery> sorted = getSlowQueries();
+        sorted.sort((first, second) -> Double.compare(second.getDurationMillis(), first.getDurationMillis()));
+        return sorted;
+    }
+
+    public void clear() {
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords.KeywordIndex;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords.SpadeKeywords;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.ServletContextAware;
+
+import javax.servlet.ServletContext;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maintains summary tables with iteration lengths, sums of times and key word hits of work units
+ * (queries/summary/tables) and key word tags of work units and artifacts ({@link KeywordIndex}).
+ * Rows of a project are computed again only when watermark of its data differs from the watermark
+ * stored with the rows, so the aggregation and matching of texts run once per data change instead
+ * of once per analysis. Stored watermark also contains hash of refresh queries and key word patterns,
+ * so rows computed by previous version of either are computed again. Detectors read the tables
+ * by queries of directory queries/summary.
+ */
+@Component
+public class SummaryTables implements ServletContextAware {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(SummaryTables.class);
+
+    private static final String SCHEMA_FILE = "/queries/summary/tables/schema.sql";
+    private static final String REFRESH_FILE = "/queries/summary/tables/refresh.sql";
+    private static final String SELECT_WATERMARKS_FILE = "/queries/summary/tables/select_watermarks.sql";
+    private static final String UPDATE_WATERMARK_FILE = "/queries/summary/tables/update_watermark.sql";
+
+    private QueryPlan schemaPlan;
+    private QueryPlan refreshPlan;
+    private QueryPlan selectWatermarksPlan;
+    private QueryPlan updateWatermarkPlan;
+    // hash of refresh queries and key word patterns stored with watermark of data
+    private String version;
+    private boolean created;
+    // stale project is refreshed by one analysis at a time, other projects do not wait for it
+    private final ConcurrentMap<Long, Object> projectLocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Override
+    public void setServletContext(ServletContext servletContext) {
+        this.schemaPlan = loadSqlFile(servletContext, SCHEMA_FILE);
+        this.refreshPlan = loadSqlFile(servletContext, REFRESH_FILE);
+        this.selectWatermarksPlan = loadSqlFile(servletContext, SELECT_WATERMARKS_FILE);
+        this.updateWatermarkPlan = loadSqlFile(servletContext, UPDATE_WATERMARK_FILE);
+        if (this.refreshPlan != null) {
+            StringBuilder content = new StringBuilder();
+            for (QueryPlan.Statement statement : this.refreshPlan.getStatements()) {
+                content.append(statement.getSql()).append('\n');
+            }
+            content.append(SpadeKeywords.describe());
+            this.version = DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private QueryPlan loadSqlFile(ServletContext servletContext, String file) {
+        try {
+            URL resource = servletContext.getResource(file);
+            if (resource == null) {
+                LOGGER.warn("Sql file " + file + " not found, summary tables are not used");
+                return null;
+            }
+            try (InputStream inputStream = resource.openStream()) {
+                QueryPlan queryPlan = QueryPlanCompiler.compile(file.substring("/queries/".length()),
+                        new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                LOGGER.info("Compiled " + queryPlan);
+                return queryPlan;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Cannot read sql from file " + file + ", summary tables are not used", e);
+            return null;
+        }
+    }
+
+    /**
+     * Brings summary rows of projects up to date with the watermarks of their data. Tables are
+     * created on first call. Projects are refreshed one by one, each in its own transaction and
+     * under its own lock, so analyses wait only for refresh of the same project and projects which
+     * are already up to date do not wait at all.
+     *
+     * @param projects   analyzed projects
+     * @param watermarks current watermarks of projects
+     * @return ids of projects which summary rows match their current watermark
+     */
+    public Set<Long> refresh(List<Project> projects, Map<Long, String> watermarks) {
+        Set<Long> upToDate = new HashSet<>();
+        if (this.schemaPlan == null || this.refreshPlan == null || this.selectWatermarksPlan == null
+                || this.updateWatermarkPlan == null || projects.isEmpty() || watermarks.isEmpty()) {
+            return upToDate;
+        }
+
+        long start = System.currentTimeMillis();
+        int refreshed = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            createTables(connection);
+            Map<Long, String> storedWatermarks = readWatermarks(connection, projects);
+            for (Project project : projects) {
+                if (watermarks.get(project.getId()) == null) {
+                    continue;
+                }
+                String watermark = watermarks.get(project.getId()) + "/" + this.version;
+                if (watermark.equals(storedWatermarks.get(project.getId()))) {
+                    upToDate.add(project.getId());
+                    continue;
+                }
+                synchronized (projectLocks.computeIfAbsent(project.getId(), id -> new Object())) {
+                    // another analysis may have refreshed the project while this one waited
+                    String storedWatermark = readWatermarks(connection, Collections.singletonList(project)).get(project.getId());
+                    if (watermark.equals(storedWatermark)) {
+                        upToDate.add(project.getId());
+                    } else if (refresh(connection, project, watermark)) {
+                        upToDate.add(project.getId());
+                        refreshed++;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Cannot refresh summary tables");
+            e.printStackTrace();
+            return new HashSet<>();
+        }
+        if (refreshed > 0) {
+            LOGGER.info("Refreshed summary tables of " + refreshed + " projects in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        return upToDate;
+    }
+
+    private synchronized void createTables(Connection connection) throws SQLException {
+        if (this.created) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (QueryPlan.Statement schemaStatement : this.schemaPlan.getStatements()) {
+                statement.execute(schemaStatement.getSql());
+            }
+        }
+        this.created = true;
+    }
+
+    /**
+     * Reads stored watermarks of projects in batches of the same size as set-based analysis.
+     */
+    private Map<Long, String> readWatermarks(Connection connection, List<Project> projects) throws SQLException {
+        Map<Long, String> watermarks = new HashMap<>();
+        int batchSize = applicationProperties.getSetBasedAnalysisBatchSize();
+        for (int from = 0; from < projects.size(); from += batchSize) {
+            List<Project> batch = projects.subList(from, Math.min(from + batchSize, projects.size()));
+            for (QueryPlan.Statement select : this.selectWatermarksPlan.getStatements()) {
+                try (PreparedStatement statement = connection.prepareStatement(select.expandParameters(batch.size()))) {
+                    int index = 1;
+                    for (int i = 0; i < select.getParameterCount(); i++) {
+                        for (Project project : batch) {
+                            statement.setLong(index++, project.getId());
+                        }
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            watermarks.put(resultSet.getLong("projectId"), resultSet.getString("watermark"));
+                        }
+                    }
+                }
+            }
+        }
+        return watermarks;
+    }
+
+    /**
+     * Computes summary rows of the project again and stores the watermark they were computed for,
+     * including version of refresh queries and key word patterns.
+     *
+     * @return true if the rows have been refreshed, false if the refresh has been rolled back
+     */
+    private boolean refresh(Connection connection, Project project, String watermark) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            // summary rows of iterations count work units by their tags
+            new KeywordIndex().refresh(connection, project.getId());
+            for (QueryPlan.Statement refreshStatement : this.refreshPlan.getStatements()) {
+                try (PreparedStatement statement = connection.prepareStatement(refreshStatement.getSql())) {
+                    for (int i = 1; i <= refreshStatement.getParameterCount(); i++) {
+                        statement.setLong(i, project.getId());
+                    }
+                    statement.executeUpdate();
+                }
+            }
+            for (QueryPlan.Statement update : this.updateWatermarkPlan.getStatements()) {
+                try (PreparedStatement statement = connection.prepareStatement(update.getSql())) {
+                    statement.setLong(1, project.getId());
+                    statement.setString(2, watermark);
+                    statement.executeUpdate();
+                }
+            }
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.warn("Cannot refresh summary tables of project " + project.getId() + ", project reads raw data");
+            e.printStackTrace();
+            connection.rollback();
+            return false;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.SnapshotDatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.SnapshotQueries;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.SpadeSnapshotProvider;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.ConfigurationSnapshot;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.ThresholdSweepResult;
+import cz.zcu.fav.kiv.antipatterndetectionapp.repository.ConfigurationRepository;
+import cz.zcu.fav.kiv.antipatterndetectionapp.service.AntiPatternService;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Evaluates one detector with many combinations of thresholds. Data of every project are fetched
+ * only once, by snapshot, set-based queries or per-project queries as analysis does, and the fetched
+ * dataset is then evaluated by the detector for every combination, so trying another threshold costs
+ * no database round trip. Summary tables are bypassed, per-project queries always read raw data,
+ * so a sweep neither waits for refresh of the tables nor depends on their state.
+ * Results are neither cached nor recorded in metrics.
+ */
+@Component
+public class ThresholdSweep {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(ThresholdSweep.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AnalysisMetrics analysisMetrics;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private SpadeSnapshotProvider spadeSnapshotProvider;
+
+    @Autowired
+    private AntiPatternService antiPatternService;
+
+    @Autowired
+    private ConfigurationRepository configurationRepository;
+
+    @Autowired
+    @Qualifier("analysisExecutor")
+    private ExecutorService analysisExecutor;
+
+    @Autowired
+    @Qualifier("evaluationExecutor")
+    private ExecutorService evaluationExecutor;
+
+    /**
+     * Parses grid of thresholds. Every value has the same type as current value of the configuration.
+     *
+     * @param antiPatternDetector swept detector
+     * @param values              comma separated values by configuration name
+     * @return values by configuration name in the given order
+     * @throws IllegalArgumentException if detector has no such configuration, some value is not
+     *                                  in correct format or grid has too many combinations
+     */
+    public Map<String, List<Object>> parseGrid(AntiPatternDetector antiPatternDetector, Map<String, String> values) {
+        ConfigurationSnapshot configuration = configurationRepository.getSnapshot();
+        Long antiPatternId = antiPatternDetector.getAntiPatternModel().getId();
+        Map<String, List<Object>> grid = new LinkedHashMap<>();
+        long combinations = 1;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            Object currentValue = configuration.getValue(antiPatternId, entry.getKey());
+            if (currentValue == null) {
+                throw new IllegalArgumentException("Anti-pattern " + antiPatternDetector.getAntiPatternModel().getName()
+                        + " has no configuration " + entry.getKey());
+            }
+            List<Object> parsedValues = new ArrayList<>();
+            for (String value : entry.getValue().split(",")) {
+                try {
+                    Object parsedValue = ConfigurationSnapshot.parseValue(currentValue, value.trim());
+                    if (parsedValue == null) {
+                        throw new IllegalArgumentException("Configuration " + entry.getKey() + " cannot be swept");
+                    }
+                    parsedValues.add(parsedValue);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Value " + value.trim() + " of configuration " + entry.getKey() + " is not in correct format");
+                }
+            }
+            grid.put(entry.getKey(), parsedValues);
+            combinations *= parsedValues.size();
+        }
+        if (combinations > applicationProperties.getSweepMaxCombinations()) {
+            throw new IllegalArgumentException("Grid has " + combinations + " combinations, maximum is "
+                    + applicationProperties.getSweepMaxCombinations());
+        }
+        return grid;
+    }
+
+    /**
+     * Evaluates the detector on all projects for every combination of values of the grid.
+     * Configurations missing in the grid keep their current values.
+     *
+     * @param projects            evaluated projects
+     * @param antiPatternDetector swept detector
+     * @param grid                values by configuration name, see {@link #parseGrid(AntiPatternDetector, Map)}
+     * @return outcome of every combination, last configuration of the grid changes fastest
+     */
+    public List<ThresholdSweepResult> sweep(List<Project> projects, AntiPatternDetector antiPatternDetector,
+                                            Map<String, List<Object>> grid) {
+        long start = System.currentTimeMillis();
+        ConfigurationSnapshot configuration = configurationRepository.getSnapshot();
+        Long antiPatternId = antiPatternDetector.getAntiPatternModel().getId();
+        List<Map<String, Object>> combinations = combinations(grid);
+        List<ConfigurationSnapshot> configurations = new ArrayList<>();
+        for (Map<String, Object> combination : combinations) {
+            configurations.add(configuration.withValues(Collections.singletonMap(antiPatternId, combination)));
+        }
+
+        Map<Long, DetectorDataset> datasets = fetch(projects, antiPatternDetector);
+        long fetched = System.currentTimeMillis();
+
+        // every project is evaluated with all combinations by one task
+        List<CompletableFuture<boolean[]>> futures = new ArrayList<>();
+        for (Project project : projects) {
+            DetectorDataset dataset = datasets.get(project.getId());
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                boolean[] detected = new boolean[configurations.size()];
+                for (int i = 0; i < configurations.size(); i++) {
+                    detected[i] = antiPatternDetector.evaluate(dataset, configurations.get(i)).isDetected();
+                }
+                return detected;
+            }, evaluationExecutor));
+        }
+
+        List<List<Long>> detectedProjects = new ArrayList<>();
+        for (int i = 0; i < combinations.size(); i++) {
+            detectedProjects.add(new ArrayList<>());
+        }
+        for (int p = 0; p < projects.size(); p++) {
+            boolean[] detected = join(futures.get(p));
+            for (int i = 0; i < combinations.size(); i++) {
+                if (detected[i]) {
+                    detectedProjects.get(i).add(projects.get(p).getId());
+                }
+            }
+        }
+
+        List<ThresholdSweepResult> results = new ArrayList<>();
+        for (int i = 0; i < combinations.size(); i++) {
+            results.add(new ThresholdSweepResult(combinations.get(i), projects.size(), detectedProjects.get(i)));
+        }
+        LOGGER.info("Swept " + combinations.size() + " combinations of " + antiPatternDetector.getAntiPatternModel().getName()
+                + " on " + projects.size() + " projects, data fetched in " + (fetched - start) + " ms, evaluated in "
+                + (System.currentTimeMillis() - fetched) + " ms");
+        return results;
+    }
+
+    private List<Map<String, Object>> combinations(Map<String, List<Object>> grid) {
+        List<Map<String, Object>> combinations = new ArrayList<>();
+        combinations.add(new LinkedHashMap<>());
+        for (Map.Entry<String, List<Object>> entry : grid.entrySet()) {
+            List<Map<String, Object>> extended = new ArrayList<>();
+            for (Map<String, Object> combination : combinations) {
+                for (Object value : entry.getValue()) {
+                    Map<String, Object> extendedCombination = new LinkedHashMap<>(combination);
+                    extendedCombination.put(entry.getKey(), value);
+                    extended.add(extendedCombination);
+                }
+            }
+            combinations = extended;
+        }
+        return combinations;
+    }
+
+    /**
+     * Fetches datasets of the detector for every project.
+     *
+     * @return datasets by project id
+     */
+    private Map<Long, DetectorDataset> fetch(List<Project> projects, AntiPatternDetector antiPatternDetector) {
+        Map<Long, DetectorDataset> results = new LinkedHashMap<>();
+        DetectorQueryPlans queryPlans = antiPatternService.getQueryPlans(antiPatternDetector);
+        if (applicationProperties.isSnapshotAnalysisEnabled() && SnapshotQueries.supports(antiPatternDetector.getAntiPatternSqlFileName())) {
+            DatabaseConnection snapshotConnection = new SnapshotDatabaseConnection(spadeSnapshotProvider.getSnapshot(),
+                    antiPatternDetector.getAntiPatternSqlFileName());
+            for (Project project : projects) {
+                results.put(project.getId(), antiPatternDetector.fetch(project, snapshotConnection, queryPlans.getQueryPlan()));
+            }
+            return results;
+        }
+
+        QueryPlan batchQueryPlan = applicationProperties.isSetBasedAnalysisEnabled()
+                && projects.size() >= applicationProperties.getSetBasedAnalysisMinProjects()
+                ? queryPlans.getBatchQueryPlan() : null;
+        List<CompletableFuture<Map<Long, DetectorDataset>>> futures = new ArrayList<>();
+        if (batchQueryPlan != null) {
+            int batchSize = applicationProperties.getSetBasedAnalysisBatchSize();
+            for (int from = 0; from < projects.size(); from += batchSize) {
+                List<Project> batch = projects.subList(from, Math.min(from + batchSize, projects.size()));
+                futures.add(CompletableFuture.supplyAsync(() -> fetchBatch(batch, antiPatternDetector, queryPlans), analysisExecutor));
+            }
+        } else {
+            for (Project project : projects) {
+                futures.add(CompletableFuture.supplyAsync(() -> fetchProject(project, antiPatternDetector, queryPlans.getQueryPlan()), analysisExecutor));
+            }
+        }
+        for (CompletableFuture<Map<Long, DetectorDataset>> future : futures) {
+            results.putAll(join(future));
+        }
+        return results;
+    }
+
+    private Map<Long, DetectorDataset> fetchBatch(List<Project> batch, AntiPatternDetector antiPatternDetector, DetectorQueryPlans queryPlans) {
+        DatabaseConnection databaseConnection = createConnection();
+        List<ResultTable> resultTables;
+        try {
+            resultTables = databaseConnection.executeQueriesForProjects(batch, queryPlans.getBatchQueryPlan());
+        } finally {
+            databaseConnection.closeConnection();
+        }
+        DatabaseConnection prefetchedConnection = new PrefetchedDatabaseConnection(resultTables);
+        Map<Long, DetectorDataset> results = new LinkedHashMap<>();
+        for (Project project : batch) {
+            results.put(project.getId(), antiPatternDetector.fetch(project, prefetchedConnection, queryPlans.getQueryPlan()));
+        }
+        return results;
+    }
+
+    private Map<Long, DetectorDataset> fetchProject(Project project, AntiPatternDetector antiPatternDetector, QueryPlan queryPlan) {
+        DatabaseConnection databaseConnection = createConnection();
+        try {
+            return Collections.singletonMap(project.getId(), antiPatternDetector.fetch(project, databaseConnection, queryPlan));
+        } finally {
+            databaseConnection.closeConnection();
+        }
+    }
+
+    private DatabaseConnection createConnection() {
+        DatabaseConnection databaseConnection = new DatabaseConnection(dataSource, analysisMetrics);
+        databaseConnection.setSlowQueryLog(slowQueryLog);
+        return databaseConnection;
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Threshold sweep failed", e.getCause());
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors;
 
 import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorDataset;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.AntiPattern;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.ConfigurationSnapshot;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
 import cz.zcu.fav.kiv.antipatterndetectionapp.utils.Utils;
@@ -14,7 +18,51 @@ public interface AntiPatternDetector {
 
     String getAntiPatternSqlFileName();
 
-    void setSqlQueries(List<String> queries);
+    QueryPlan getQueryPlan();
 
-    QueryResultItem analyze(Project project, DatabaseConnection databaseConnection);
+    void setQueryPlan(QueryPlan queryPlan);
+
+    /**
+     * Fetches data of the project needed by the detector. Fetching is separated from evaluation,
+     * so data can be fetched in advance, by another thread or once for several evaluations.
+     *
+     * @param project            analyzed project
+     * @param databaseConnection connection used for queries of the detector
+     * @param queryPlan          queries of the detector read by the analysis, e.g. queries reading summary tables
+     * @return results of queries of the detector
+     * @throws IllegalStateException if the queries fail or do not return result of every select
+     */
+    default DetectorDataset fetch(Project project, DatabaseConnection databaseConnection, QueryPlan queryPlan) {
+        List<ResultTable> resultTables = databaseConnection.executeQueriesWithMultipleResults(project, queryPlan);
+        // detectors read missing results as zeros, so incomplete data must never be evaluated
+        if (resultTables.size() != queryPlan.getSelectCount()) {
+            throw new IllegalStateException("Queries of " + queryPlan.getName() + " returned " + resultTables.size()
+                    + " results instead of " + queryPlan.getSelectCount() + " for project " + project.getId());
+        }
+        return new DetectorDataset(project, resultTables);
+    }
+
+    /**
+     * Evaluates fetched data of the project. Evaluation does not access database and depends only
+     * on the dataset and configuration, so the same inputs always give the same result.
+     *
+     * @param dataset       data fetched by {@link #fetch(Project, DatabaseConnection, QueryPlan)}
+     * @param configuration configuration pinned by the analysis
+     * @return result of detection
+     */
+    QueryResultItem evaluate(DetectorDataset dataset, ConfigurationSnapshot configuration);
+
+    /**
+     * Detects anti-pattern in the project by fetching its data and evaluating them. Thresholds
+     * are read only from the given configuration, so one analysis uses the same values even if
+     * configuration is changed meanwhile.
+     *
+     * @param project            analyzed project
+     * @param databaseConnection connection used for queries of the detector
+     * @param configuration      configuration pinned by the analysis
+     * @return result of detection
+     */
+    default QueryResultItem analyze(Project project, DatabaseConnection databaseConnection, ConfigurationSnapshot configuration) {
+        return evaluate(fetch(project, databaseConnection, getQueryPlan()), configuration);
+    }
 }
@@ -1,15 +1,20 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors;
 
-import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorDataset;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+@Component
 public class BusinessAsUsualDetectorImpl implements AntiPatternDetector {
 
     private final Logger LOGGER = LoggerFactory.getLogger(BusinessAsUsualDetectorImpl.class);
@@ -27,11 +32,15 @@ public class BusinessAsUsualDetectorImpl implements AntiPatternDetector {
 
     private final String sqlFileName = "business_as_usual.sql";
 
-    // sql queries loaded from sql file
-    private List<String> sqlQueries;
+    // queries compiled from sql file, replaced when the file is reloaded
+    private volatile QueryPlan queryPlan;
+
+    // columns of query results read by the detector
+    private static final ResultColumn NUMBER_OF_ITERATIONS = new ResultColumn("numberOfIterations", ResultTable.ColumnType.LONG);
+    private static final ResultColumn ITERATION_NAME = new ResultColumn("iterationName", ResultTable.ColumnType.STRING);
     
-    private float getDivisionOfIterationsWithRetrospective() {
-        return (float) antiPattern.getConfigurations().get("divisionOfIterationsWithRetrospective").getValue();
+    private float getDivisionOfIterationsWithRetrospective(ConfigurationSnapshot configuration) {
+        return (float) configuration.getValue(this.antiPattern.getId(), "divisionOfIterationsWithRetrospective");
     }
 
     @Override
@@ -45,8 +54,13 @@ public class BusinessAsUsualDetectorImpl implements AntiPatternDetector {
     }
 
     @Override
-    public void setSqlQueries(List<String> queries) {
-        this.sqlQueries = queries;
+    public QueryPlan getQueryPlan() {
+        return this.queryPlan;
+    }
+
+    @Override
+    public void setQueryPlan(QueryPlan queryPlan) {
+        this.queryPlan = queryPlan;
     }
 
     /**
@@ -61,12 +75,12 @@ public class BusinessAsUsualDetectorImpl implements AntiPatternDetector {
      *      5) výsledky wiki stránek a aktivit dát dohromady a u každé iterace by měl být alespoň jeden záznam
      *      6) pokud nebude nalezen žádný záznam u více jak jedné třetiny iterací, tak je anti-pattern detekován
      *
-     * @param project            analyzovaný project
-     * @param databaseConnection databázové připojení
+     * @param dataset            data projektu načtená dotazy detektoru
+     * @param configuration      konfigurace platná po celou dobu analýzy
      * @return výsledek detekce
      */
     @Override
-    public QueryResultItem analyze(Project project, DatabaseConnection databaseConnection) {
+    public QueryResultItem evaluate(DetectorDataset dataset, ConfigurationSnapshot configuration) {
 
         // init values
         List<ResultDetail> resultDetails = new ArrayList<>();
@@ -74,33 +88,35 @@ public class BusinessAsUsualDetectorImpl implements AntiPatternDetector {
         Map<String, Integer> iterationsResults = new HashMap<>();
 
         // projít výsledky dotazů a dát do jedné mapy => v této mapě by měly být všechny iterace
-        List<List<Map<String, Object>>> resultSets = databaseConnection.executeQueriesWithMultipleResults(project, this.sqlQueries);
-        for (int i = 0; i < resultSets.size(); i++) {
-            List<Map<String, Object>> rs = resultSets.get(i);
+        List<ResultTable> resultTables = dataset.getResultTables();
+        for (int i = 0; i < resultTables.size(); i++) {
+            ResultTable rs = resultTables.get(i);
+            ResultTable.Cursor cursor = rs.cursor();
 
             if (i == 0) {
-                totalNumberIterations = (Long) rs.get(0).get("numberOfIterations");
+                int numberOfIterationsColumn = rs.getColumnIndex(NUMBER_OF_ITERATIONS);
+                if (cursor.next()) {
+                    totalNumberIterations = cursor.getLong(numberOfIterationsColumn);
+                }
             }
 
             if (i == 1) {
-                String iterationName;
-                for (Map<String, Object> map : rs) {
-                    iterationName = (String) map.get("iterationName");
-                    iterationsResults.put(iterationName, 1);
+                int iterationNameColumn = rs.getColumnIndex(ITERATION_NAME);
+                while (cursor.next()) {
+                    iterationsResults.put(cursor.getString(iterationNameColumn), 1);
                 }
             }
 
             if (i == 2) {
-                String iterationName;
-                for (Map<String, Object> map : rs) {
-                    iterationName = (String) map.get("iterationName");
-                    iterationsResults.put(iterationName, 2);
+                int iterationNameColumn = rs.getColumnIndex(ITERATION_NAME);
+                while (cursor.next()) {
+                    iterationsResults.put(cursor.getString(iterationNameColumn), 2);
                 }
             }
 
         }
 
-        int minRetrospectiveLimit =  Math.round(totalNumberIterations * getDivisionOfIterationsWithRetrospective());
+        int minRetrospectiveLimit =  Math.round(totalNumberIterations * getDivisionOfIterationsWithRetrospective(configuration));
 
         resultDetails.add(new ResultDetail("Min retrospective limit", String.valueOf(minRetrospectiveLimit)));
         resultDetails.add(new ResultDetail("Found retrospectives", String.valueOf(iterationsResults.size())));
@@ -1,18 +1,20 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors;
 
-import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorDataset;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.*;
 import cz.zcu.fav.kiv.antipatterndetectionapp.utils.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.sql.Date;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+@Component
 public class LongOrNonExistentFeedbackLoopsDetectorImpl implements AntiPatternDetector {
 
     private final Logger LOGGER = LoggerFactory.getLogger(LongOrNonExistentFeedbackLoopsDetectorImpl.class);
@@ -37,15 +39,24 @@ public class LongOrNonExistentFeedbackLoopsDetectorImpl implements AntiPatternDe
             );
 
     private final String SQL_FILE_NAME = "long_or_non_existent_feedback_loops.sql";
-    // sql queries loaded from sql file
-    private List<String> sqlQueries;
-
-    private float getDivisionOfIterationsWithFeedbackLoop() {
-        return (float) antiPattern.getConfigurations().get("divisionOfIterationsWithFeedbackLoop").getValue();
+    // queries compiled from sql file, replaced when the file is reloaded
+    private volatile QueryPlan queryPlan;
+
+    // columns of query results read by the detector
+    private static final ResultColumn NUMBER_OF_ITERATIONS = new ResultColumn("numberOfIterations", ResultTable.ColumnType.LONG);
+    private static final ResultColumn AVERAGE_ITERATION_LENGTH = new ResultColumn("averageIterationLength", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn TOTAL_COUNT_OF_ITERATIONS_WITH_FEEDBACK_ACTIVITY = new ResultColumn("totalCountOfIterationsWithFeedbackActivity", ResultTable.ColumnType.LONG);
+    private static final ResultColumn END_DATE = new ResultColumn("endDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn PROJECT_START_DATE = new ResultColumn("projectStartDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn PROJECT_END_DATE = new ResultColumn("projectEndDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn APPOINTMENT_DATE = new ResultColumn("appointmentDate", ResultTable.ColumnType.DATE);
+
+    private float getDivisionOfIterationsWithFeedbackLoop(ConfigurationSnapshot configuration) {
+        return (float) configuration.getValue(this.antiPattern.getId(), "divisionOfIterationsWithFeedbackLoop");
     }
 
-    private float getMaxGapBetweenFeedbackLoopRate() {
-        return (float) antiPattern.getConfigurations().get("maxGapBetweenFeedbackLoopRate").getValue();
+    private float getMaxGapBetweenFeedbackLoopRate(ConfigurationSnapshot configuration) {
+        return (float) configuration.getValue(this.antiPattern.getId(), "maxGapBetweenFeedbackLoopRate");
     }
 
     @Override
@@ -59,8 +70,13 @@ public class LongOrNonExistentFeedbackLoopsDetectorImpl implements AntiPatternDe
     }
 
     @Override
-    public void setSqlQueries(List<String> queries) {
-        this.sqlQueries = queries;
+    public QueryPlan getQueryPlan() {
+        return this.queryPlan;
+    }
+
+    @Override
+    public void setQueryPlan(QueryPlan queryPlan) {
+        this.queryPlan = queryPlan;
     }
 
     /**
@@ -74,66 +90,73 @@ public class LongOrNonExistentFeedbackLoopsDetectorImpl implements AntiPatternDe
      * 7) najít všechny wiki stránky a udělat join kdy se měnily (může být použita jedná stránka pro více schůzek) s příslušným názvem
      * 8) udělat group podle dne
      *
-     * @param project            analyzovaný project
-     * @param databaseConnection databázové připojení
+     * @param dataset            data projektu načtená dotazy detektoru
+     * @param configuration      konfigurace platná po celou dobu analýzy
      * @return výsledek detekce
      */
     @Override
-    public QueryResultItem analyze(Project project, DatabaseConnection databaseConnection) {
+    public QueryResultItem evaluate(DetectorDataset dataset, ConfigurationSnapshot configuration) {
 
         // init values
         long totalNumberIterations = 0;
         int averageIterationLength = 0;
         int numberOfIterationsWhichContainsAtLeastOneActivityForFeedback = 0;
         int numberOfIterationsWhichContainsAtLeastOneWikiPageForFeedback = 0;
-        List<Date> feedbackActivityEndDates = new ArrayList<>();
-        List<Date> feedbackWikiPagesEndDates = new ArrayList<>();
-        Date projectStartDate = null;
-        Date projectEndDate = null;
+        // dates are stored as epoch days, missing dates are skipped instead of being read as 1970-01-01
+        long[] feedbackActivityEndDates = new long[0];
+        long[] feedbackWikiPagesEndDates = new long[0];
+        Long projectStartDate = null;
+        Long projectEndDate = null;
 
-        List<List<Map<String, Object>>> resultSets = databaseConnection.executeQueriesWithMultipleResults(project, this.sqlQueries);
-        for (int i = 0; i < resultSets.size(); i++) {
-            List<Map<String, Object>> rs = resultSets.get(i);
+        List<ResultTable> resultTables = dataset.getResultTables();
+        for (int i = 0; i < resultTables.size(); i++) {
+            ResultTable rs = resultTables.get(i);
+            ResultTable.Cursor cursor = rs.cursor();
 
             switch (i) {
                 case 0:
-                    totalNumberIterations = (long) rs.get(0).get("numberOfIterations");
+                    int numberOfIterationsColumn = rs.getColumnIndex(NUMBER_OF_ITERATIONS);
+                    if (cursor.next()) {
+                        totalNumberIterations = cursor.getLong(numberOfIterationsColumn);
+                    }
                     break;
                 case 1:
-                    averageIterationLength = ((BigDecimal) rs.get(0).get("averageIterationLength")).intValue();
+                    int averageIterationLengthColumn = rs.getColumnIndex(AVERAGE_ITERATION_LENGTH);
+                    if (cursor.next()) {
+                        averageIterationLength = cursor.getInt(averageIterationLengthColumn);
+                    }
                     break;
                 case 2:
-                    if (rs.size() != 0) {
-                        numberOfIterationsWhichContainsAtLeastOneActivityForFeedback = ((Long) rs.get(0).get("totalCountOfIterationsWithFeedbackActivity")).intValue();
+                    int feedbackActivityColumn = rs.getColumnIndex(TOTAL_COUNT_OF_ITERATIONS_WITH_FEEDBACK_ACTIVITY);
+                    if (cursor.next()) {
+                        numberOfIterationsWhichContainsAtLeastOneActivityForFeedback = cursor.getInt(feedbackActivityColumn);
                     }
                     break;
                 case 3:
-                    Date activityEndDate;
-                    for (Map<String, Object> map : rs) {
-                        activityEndDate = (Date) map.get("endDate");
-                        feedbackActivityEndDates.add(activityEndDate);
-                    }
+                    feedbackActivityEndDates = getEpochDays(rs, END_DATE);
                     break;
                 case 4:
-                    projectStartDate = (Date) rs.get(0).get("startDate");
+                    int projectStartDateColumn = rs.getColumnIndex(PROJECT_START_DATE);
+                    if (cursor.next() && !cursor.isNull(projectStartDateColumn)) {
+                        projectStartDate = cursor.getEpochDay(projectStartDateColumn);
+                    }
                     break;
                 case 5:
-                    projectEndDate = (Date) rs.get(0).get("endDate");
+                    int projectEndDateColumn = rs.getColumnIndex(PROJECT_END_DATE);
+                    if (cursor.next() && !cursor.isNull(projectEndDateColumn)) {
+                        projectEndDate = cursor.getEpochDay(projectEndDateColumn);
+                    }
                     break;
                 case 6:
-                    numberOfIterationsWhichContainsAtLeastOneWikiPageForFeedback = rs.size();
-                    Date wikiPageEndDate;
-                    for (Map<String, Object> map : rs) {
-                        wikiPageEndDate = (Date) map.get("appointmentDate");
-                        feedbackWikiPagesEndDates.add(wikiPageEndDate);
-                    }
+                    numberOfIterationsWhichContainsAtLeastOneWikiPageForFeedback = rs.getRowCount();
+                    feedbackWikiPagesEndDates = getEpochDays(rs, APPOINTMENT_DATE);
                     break;
                 default:
 
             }
         }
 
-        double halfNumberOfIterations = totalNumberIterations * getDivisionOfIterationsWithFeedbackLoop();
+        double halfNumberOfIterations = totalNumberIterations * getDivisionOfIterationsWithFeedbackLoop(configuration);
 
         // pokud je počet iterací, které obsahují alespoň jednu aktivitu s feedbackem, tak je to ideální případ
         if (totalNumberIterations <= numberOfIterationsWhichContainsAtLeastOneActivityForFeedback) {
@@ -146,17 +169,22 @@ public class LongOrNonExistentFeedbackLoopsDetectorImpl implements AntiPatternDe
             return new QueryResultItem(this.antiPattern, false, resultDetails);
 
             // pokud alespoň v polovině iteracích došlo ke kontaktu se zákazníkem => zkontrolovat rozestupy
-        } else if (feedbackActivityEndDates.size() > halfNumberOfIterations) {
+        } else if (feedbackActivityEndDates.length > halfNumberOfIterations) {
 
-            Date firstDate = projectStartDate;
-            Date secondDate = null;
+            // projekt bez data začátku nemá známý rozestup před první zpětnou vazbou
+            Long firstDate = projectStartDate;
+            long secondDate;
 
-            for (Date feedbackActivityDate : feedbackActivityEndDates) {
+            for (long feedbackActivityDate : feedbackActivityEndDates) {
                 secondDate = feedbackActivityDate;
-                long daysBetween = Utils.daysBetween(firstDate, secondDate);
+                if (firstDate == null) {
+                    firstDate = secondDate;
+                    continue;
+                }
+                long daysBetween = secondDate - firstDate;
                 firstDate = secondDate;
 
-                if (daysBetween >= getMaxGapBetweenFeedbackLoopRate() * averageIterationLength) {
+                if (daysBetween >= getMaxGapBetweenFeedbackLoopRate(configuration) * averageIterationLength) {
                     List<ResultDetail> resultDetails = Utils.createResultDetailsList(
                             new ResultDetail("Days between", Long.toString(daysBetween)),
                             new ResultDetail("Average iteration length", Integer.toString(averageIterationLength)),
@@ -189,15 +217,19 @@ public class LongOrNonExistentFeedbackLoopsDetectorImpl implements AntiPatternDe
             }
 
             // pokud alespoň v polovině iteracích došlo ke kontaktu se zákazníkem => zkontrolovat rozestupy
-            Date firstDate = projectStartDate;
-            Date secondDate = null;
+            Long firstDate = projectStartDate;
+            long secondDate;
 
-            for (Date feedbackWikipagesDate : feedbackWikiPagesEndDates) {
+            for (long feedbackWikipagesDate : feedbackWikiPagesEndDates) {
                 secondDate = feedbackWikipagesDate;
-                long daysBetween = Utils.daysBetween(firstDate, secondDate);
+                if (firstDate == null) {
+                    firstDate = secondDate;
+                    continue;
+                }
+                long daysBetween = secondDate - firstDate;
                 firstDate = secondDate;
 
-                if (daysBetween >= getMaxGapBetweenFeedbackLoopRate() * averageIterationLength) {
+                if (daysBetween >= getMaxGapBetweenFeedbackLoopRate(configuration) * averageIterationLength) {
                     List<ResultDetail> resultDetails = Utils.createResultDetailsList(
                             new ResultDetail("Days between", Long.toString(daysBetween)),
                             new ResultDetail("Average iteration length", Integer.toString(averageIterationLength)),
@@ -216,4 +248,25 @@ public class LongOrNonExistentFeedbackLoopsDetectorImpl implements AntiPatternDe
             return new QueryResultItem(this.antiPattern, false, resultDetails);
         }
     }
+
+    /**
+     * Načte data sloupce jako počet dní od 1970-01-01. Řádky bez data jsou přeskočeny,
+     * aby chybějící datum nebylo porovnáváno jako 1970-01-01.
+     *
+     * @param resultTable výsledek dotazu
+     * @param column      sloupec s datem
+     * @return data všech řádků, které datum mají
+     */
+    private long[] getEpochDays(ResultTable resultTable, ResultColumn column) {
+        int columnIndex = resultTable.getColumnIndex(column);
+        long[] epochDays = new long[resultTable.getRowCount()];
+        int count = 0;
+        ResultTable.Cursor cursor = resultTable.cursor();
+        while (cursor.next()) {
+            if (!cursor.isNull(columnIndex)) {
+                epochDays[count++] = cursor.getEpochDay(columnIndex);
+            }
+        }
+        return Arrays.copyOf(epochDays, count);
+    }
 }
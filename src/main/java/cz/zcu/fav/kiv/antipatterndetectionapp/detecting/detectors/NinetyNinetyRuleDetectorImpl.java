@@ -1,12 +1,17 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors;
 
-import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorDataset;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
 import java.util.*;
 
+@Component
 public class NinetyNinetyRuleDetectorImpl implements AntiPatternDetector {
 
     private final Logger LOGGER = LoggerFactory.getLogger(BusinessAsUsualDetectorImpl.class);
@@ -29,15 +34,18 @@ public class NinetyNinetyRuleDetectorImpl implements AntiPatternDetector {
             }});
 
     private final String sqlFileName = "ninety_ninety_rule.sql";
-    // sql queries loaded from sql file
-    private List<String> sqlQueries;
+    // queries compiled from sql file, replaced when the file is reloaded
+    private volatile QueryPlan queryPlan;
 
-    private double getMaxDivisionRange() {
-        return (Double) antiPattern.getConfigurations().get("maxDivisionRange").getValue();
+    // columns of query results read by the detector
+    private static final ResultColumn TIME_DIVISION = new ResultColumn("timeDivision", ResultTable.ColumnType.DOUBLE);
+
+    private double getMaxDivisionRange(ConfigurationSnapshot configuration) {
+        return (Double) configuration.getValue(this.antiPattern.getId(), "maxDivisionRange");
     }
 
-    private int getMaxBadDivisionLimit() {
-        return (int) antiPattern.getConfigurations().get("maxBadDivisionLimit").getValue();
+    private int getMaxBadDivisionLimit(ConfigurationSnapshot configuration) {
+        return (int) configuration.getValue(this.antiPattern.getId(), "maxBadDivisionLimit");
     }
 
     @Override
@@ -51,8 +59,13 @@ public class NinetyNinetyRuleDetectorImpl implements AntiPatternDetector {
     }
 
     @Override
-    public void setSqlQueries(List<String> queries) {
-        this.sqlQueries = queries;
+    public QueryPlan getQueryPlan() {
+        return this.queryPlan;
+    }
+
+    @Override
+    public void setQueryPlan(QueryPlan queryPlan) {
+        this.queryPlan = queryPlan;
     }
 
     /**
@@ -63,28 +76,30 @@ public class NinetyNinetyRuleDetectorImpl implements AntiPatternDetector {
      *      4) pokud předchozí bod nezabere, tak iterovat přes všechny podíly
      *      5) pokud budou nalezeny tři iterace po sobě, kde se stále zhoršují odhady => detekováno
      *
-     * @param project            analyzovaný project
-     * @param databaseConnection databázové připojení
+     * @param dataset            data projektu načtená dotazy detektoru
+     * @param configuration      konfigurace platná po celou dobu analýzy
      * @return výsledek detekce
      */
     @Override
-    public QueryResultItem analyze(Project project, DatabaseConnection databaseConnection) {
+    public QueryResultItem evaluate(DetectorDataset dataset, ConfigurationSnapshot configuration) {
 
         List<ResultDetail> resultDetails = new ArrayList<>();
         List<Double> divisionsResults = new ArrayList<>();
         boolean isAllInRange = true;
 
-        List<List<Map<String, Object>>> resultSets = databaseConnection.executeQueriesWithMultipleResults(project, this.sqlQueries);
-        for (List<Map<String, Object>> rs : resultSets) {
-            for (Map<String, Object> map : rs) {
-                Double resultDivision = (Double) map.get("timeDivision");
+        List<ResultTable> resultTables = dataset.getResultTables();
+        for (ResultTable rs : resultTables) {
+            int timeDivisionColumn = rs.getColumnIndex(TIME_DIVISION);
+            ResultTable.Cursor cursor = rs.cursor();
+            while (cursor.next()) {
                 // some divisions can by null
-                if (resultDivision == null) {
+                if (cursor.isNull(timeDivisionColumn)) {
                     continue;
                 }
+                double resultDivision = cursor.getDouble(timeDivisionColumn);
                 divisionsResults.add(resultDivision);
                 // if is one division is out of range set boolean to false
-                if (resultDivision > getMaxDivisionRange()) {
+                if (resultDivision > getMaxDivisionRange(configuration)) {
                     isAllInRange = false;
                 }
             }
@@ -98,15 +113,15 @@ public class NinetyNinetyRuleDetectorImpl implements AntiPatternDetector {
 
         int counterOverEstimated = 0;
         for (Double divisionResult : divisionsResults) {
-            if (divisionResult > getMaxDivisionRange()) {
+            if (divisionResult > getMaxDivisionRange(configuration)) {
                 counterOverEstimated++;
             } else {
                 counterOverEstimated = 0;
             }
 
-            if (counterOverEstimated > getMaxBadDivisionLimit()) {
+            if (counterOverEstimated > getMaxBadDivisionLimit(configuration)) {
                 resultDetails.add(new ResultDetail("Conclusion",
-                        getMaxBadDivisionLimit() + " or more consecutive iterations has a bad trend in estimates"));
+                        getMaxBadDivisionLimit(configuration) + " or more consecutive iterations has a bad trend in estimates"));
                 return new QueryResultItem(this.antiPattern, true, resultDetails);
             }
 
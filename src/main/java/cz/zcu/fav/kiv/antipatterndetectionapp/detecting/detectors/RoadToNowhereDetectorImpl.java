@@ -1,16 +1,19 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors;
 
-import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorDataset;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
+@Component
 public class RoadToNowhereDetectorImpl implements AntiPatternDetector {
 
     private final Logger LOGGER = LoggerFactory.getLogger(SpecifyNothingDetectorImpl.class);
@@ -31,15 +34,19 @@ public class RoadToNowhereDetectorImpl implements AntiPatternDetector {
             }});
 
     private final String sqlFileName = "road_to_nowhere.sql";
-    // sql queries loaded from sql file
-    private List<String> sqlQueries;
+    // queries compiled from sql file, replaced when the file is reloaded
+    private volatile QueryPlan queryPlan;
 
-    private int getMinNumberOfWikiPagesWithProjectPlan() {
-        return (int) antiPattern.getConfigurations().get("minNumberOfWikiPagesWithProjectPlan").getValue();
+    // columns of query results read by the detector
+    private static final ResultColumn NUMBER_OF_ISSUES_FOR_PROJECT_PLAN = new ResultColumn("numberOfIssuesForProjectPlan", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_WIKI_PAGES_FOR_PROJECT_PLAN = new ResultColumn("numberOfWikiPagesForProjectPlan", ResultTable.ColumnType.LONG);
+
+    private int getMinNumberOfWikiPagesWithProjectPlan(ConfigurationSnapshot configuration) {
+        return (int) configuration.getValue(this.antiPattern.getId(), "minNumberOfWikiPagesWithProjectPlan");
     }
 
-    private int getMinNumberOfActivitiesWithProjectPlan() {
-        return (int) antiPattern.getConfigurations().get("minNumberOfActivitiesWithProjectPlan").getValue();
+    private int getMinNumberOfActivitiesWithProjectPlan(ConfigurationSnapshot configuration) {
+        return (int) configuration.getValue(this.antiPattern.getId(), "minNumberOfActivitiesWithProjectPlan");
     }
 
     @Override
@@ -53,8 +60,13 @@ public class RoadToNowhereDetectorImpl implements AntiPatternDetector {
     }
 
     @Override
-    public void setSqlQueries(List<String> queries) {
-        this.sqlQueries = queries;
+    public QueryPlan getQueryPlan() {
+        return this.queryPlan;
+    }
+
+    @Override
+    public void setQueryPlan(QueryPlan queryPlan) {
+        this.queryPlan = queryPlan;
     }
 
     /**
@@ -63,37 +75,37 @@ public class RoadToNowhereDetectorImpl implements AntiPatternDetector {
      *      2) dále zkusit najít aktivity, které by naznačovali, že vznikl nějaký projektový plán
      *      3) pokud nebude nalezena žádná aktivita nebo wiki stránka, tak je antivzor detekován
      *
-     * @param project            analyzovaný project
-     * @param databaseConnection databázové připojení
+     * @param dataset            data projektu načtená dotazy detektoru
+     * @param configuration      konfigurace platná po celou dobu analýzy
      * @return výsledek detekce
      */
     @Override
-    public QueryResultItem analyze(Project project, DatabaseConnection databaseConnection) {
+    public QueryResultItem evaluate(DetectorDataset dataset, ConfigurationSnapshot configuration) {
 
         /* Init values */
         List<ResultDetail> resultDetails = new ArrayList<>();
         int numberOfIssuesForProjectPlan = 0;
         int numberOfWikiPagesForProjectPlan = 0;
 
-        try {
-            ResultSet rs = databaseConnection.executeQueries(project, this.sqlQueries);
-            if (rs != null) {
-                while (rs.next()) {
-                    numberOfIssuesForProjectPlan = rs.getInt("numberOfIssuesForProjectPlan");
-                    numberOfWikiPagesForProjectPlan = rs.getInt("numberOfWikiPagesForProjectPlan");
-                }
-            }
-
-        } catch (SQLException e) {
+        List<ResultTable> resultTables = dataset.getResultTables();
+        if (resultTables.isEmpty()) {
             LOGGER.error("Cannot read results from db");
-            resultDetails.add(new ResultDetail("Problem in reading database", e.toString()));
+            resultDetails.add(new ResultDetail("Problem in reading database", "No results"));
             return new QueryResultItem(this.antiPattern, true, resultDetails);
         }
+        ResultTable counts = resultTables.get(0);
+        int numberOfIssuesColumn = counts.getColumnIndex(NUMBER_OF_ISSUES_FOR_PROJECT_PLAN);
+        int numberOfWikiPagesColumn = counts.getColumnIndex(NUMBER_OF_WIKI_PAGES_FOR_PROJECT_PLAN);
+        ResultTable.Cursor cursor = counts.cursor();
+        while (cursor.next()) {
+            numberOfIssuesForProjectPlan = cursor.getInt(numberOfIssuesColumn);
+            numberOfWikiPagesForProjectPlan = cursor.getInt(numberOfWikiPagesColumn);
+        }
 
         resultDetails.add(new ResultDetail("Number of issues for creating project plan", String.valueOf(numberOfIssuesForProjectPlan)));
         resultDetails.add(new ResultDetail("Number of wiki pages for creating project plan", String.valueOf(numberOfWikiPagesForProjectPlan)));
 
-        if( numberOfIssuesForProjectPlan >= getMinNumberOfActivitiesWithProjectPlan() || numberOfWikiPagesForProjectPlan >= getMinNumberOfWikiPagesWithProjectPlan()) {
+        if( numberOfIssuesForProjectPlan >= getMinNumberOfActivitiesWithProjectPlan(configuration) || numberOfWikiPagesForProjectPlan >= getMinNumberOfWikiPagesWithProjectPlan(configuration)) {
             resultDetails.add(new ResultDetail("Conclusion", "Found some activities or wiki pages for project plan in first two iterations"));
             return new QueryResultItem(this.antiPattern, false, resultDetails);
         } else {
@@ -1,16 +1,19 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors;
 
-import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorDataset;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
+@Component
 public class SpecifyNothingDetectorImpl implements AntiPatternDetector {
 
     private final Logger LOGGER = LoggerFactory.getLogger(SpecifyNothingDetectorImpl.class);
@@ -33,19 +36,24 @@ public class SpecifyNothingDetectorImpl implements AntiPatternDetector {
             }});
 
     private final String sqlFileName = "specify_nothing.sql";
-    // sql queries loaded from sql file
-    private List<String> sqlQueries;
+    // queries compiled from sql file, replaced when the file is reloaded
+    private volatile QueryPlan queryPlan;
 
-    private int getMinNumberOfWikiPagesWithSpecification() {
-        return (int) antiPattern.getConfigurations().get("minNumberOfWikiPagesWithSpecification").getValue();
+    // columns of query results read by the detector
+    private static final ResultColumn NUMBER_OF_WIKI_PAGES = new ResultColumn("numberOfWikiPages", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_ACTIVITIES_FOR_SPECIFICATION = new ResultColumn("numberOfActivitiesForSpecification", ResultTable.ColumnType.LONG);
+    private static final ResultColumn AVERAGE_LENGTH_OF_ISSUE_DESCRIPTION = new ResultColumn("averageLengthOfIssueDescription", ResultTable.ColumnType.DOUBLE);
+
+    private int getMinNumberOfWikiPagesWithSpecification(ConfigurationSnapshot configuration) {
+        return (int) configuration.getValue(this.antiPattern.getId(), "minNumberOfWikiPagesWithSpecification");
     }
 
-    private int getMinNumberOfActivitiesWithSpecification() {
-        return (int) antiPattern.getConfigurations().get("minNumberOfActivitiesWithSpecification").getValue();
+    private int getMinNumberOfActivitiesWithSpecification(ConfigurationSnapshot configuration) {
+        return (int) configuration.getValue(this.antiPattern.getId(), "minNumberOfActivitiesWithSpecification");
     }
 
-    private int getMinAvgLengthOfActivityDescription() {
-        return (int) antiPattern.getConfigurations().get("minAvgLengthOfActivityDescription").getValue();
+    private int getMinAvgLengthOfActivityDescription(ConfigurationSnapshot configuration) {
+        return (int) configuration.getValue(this.antiPattern.getId(), "minAvgLengthOfActivityDescription");
     }
 
     @Override
@@ -59,8 +67,13 @@ public class SpecifyNothingDetectorImpl implements AntiPatternDetector {
     }
 
     @Override
-    public void setSqlQueries(List<String> queries) {
-        this.sqlQueries = queries;
+    public QueryPlan getQueryPlan() {
+        return this.queryPlan;
+    }
+
+    @Override
+    public void setQueryPlan(QueryPlan queryPlan) {
+        this.queryPlan = queryPlan;
     }
 
     /**
@@ -71,12 +84,12 @@ public class SpecifyNothingDetectorImpl implements AntiPatternDetector {
      *      4) pokud nebude nalezena žádná aktivity ani wiki stránka, tak se zkontroluje průměrná délka popisku aktivity
      *      5) pokud ani jedno nezabere, tak je anti-pattern detekován
      *
-     * @param project            analyzovaný project
-     * @param databaseConnection databázové připojení
+     * @param dataset            data projektu načtená dotazy detektoru
+     * @param configuration      konfigurace platná po celou dobu analýzy
      * @return výsledek detekce
      */
     @Override
-    public QueryResultItem analyze(Project project, DatabaseConnection databaseConnection) {
+    public QueryResultItem evaluate(DetectorDataset dataset, ConfigurationSnapshot configuration) {
 
         /* Init values */
         List<ResultDetail> resultDetails = new ArrayList<>();
@@ -84,31 +97,32 @@ public class SpecifyNothingDetectorImpl implements AntiPatternDetector {
         int numberOfActivitiesForSpecification = 0;
         double averageLengthOfIssueDescription = 0;
 
-        try {
-            ResultSet rs = databaseConnection.executeQueries(project, this.sqlQueries);
-            if (rs != null) {
-                while (rs.next()) {
-                    numberOfWikiPages = rs.getInt("numberOfWikiPages");
-                    numberOfActivitiesForSpecification = rs.getInt("numberOfActivitiesForSpecification");
-                    averageLengthOfIssueDescription = rs.getDouble("averageLengthOfIssueDescription");
-                }
-            }
-
-        } catch (SQLException e) {
+        List<ResultTable> resultTables = dataset.getResultTables();
+        if (resultTables.isEmpty()) {
             LOGGER.error("Cannot read results from db");
-            resultDetails.add(new ResultDetail("Problem in reading database", e.toString()));
+            resultDetails.add(new ResultDetail("Problem in reading database", "No results"));
             return new QueryResultItem(this.antiPattern, true, resultDetails);
         }
+        ResultTable counts = resultTables.get(0);
+        int numberOfWikiPagesColumn = counts.getColumnIndex(NUMBER_OF_WIKI_PAGES);
+        int numberOfActivitiesColumn = counts.getColumnIndex(NUMBER_OF_ACTIVITIES_FOR_SPECIFICATION);
+        int averageLengthColumn = counts.getColumnIndex(AVERAGE_LENGTH_OF_ISSUE_DESCRIPTION);
+        ResultTable.Cursor cursor = counts.cursor();
+        while (cursor.next()) {
+            numberOfWikiPages = cursor.getInt(numberOfWikiPagesColumn);
+            numberOfActivitiesForSpecification = cursor.getInt(numberOfActivitiesColumn);
+            averageLengthOfIssueDescription = cursor.getDouble(averageLengthColumn);
+        }
 
         resultDetails.add(new ResultDetail("Number of activities for specification", String.valueOf(numberOfActivitiesForSpecification)));
         resultDetails.add(new ResultDetail("Number of wiki pages for specification", String.valueOf(numberOfWikiPages)));
 
-        if (numberOfActivitiesForSpecification >= getMinNumberOfActivitiesWithSpecification() ||
-                numberOfWikiPages >= getMinNumberOfWikiPagesWithSpecification()) {
+        if (numberOfActivitiesForSpecification >= getMinNumberOfActivitiesWithSpecification(configuration) ||
+                numberOfWikiPages >= getMinNumberOfWikiPagesWithSpecification(configuration)) {
             resultDetails.add(new ResultDetail("Conclusion", "Found activities or wiki pages that represents creation of specification"));
             return new QueryResultItem(this.antiPattern, false, resultDetails);
         } else {
-            if (averageLengthOfIssueDescription > getMinAvgLengthOfActivityDescription()) {
+            if (averageLengthOfIssueDescription > getMinAvgLengthOfActivityDescription(configuration)) {
                 resultDetails.add(new ResultDetail("Conclusion", "Average length of activity description is grater then minimum"));
                 return new QueryResultItem(this.antiPattern, false, resultDetails);
             } else {
@@ -1,15 +1,19 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors;
 
-import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorDataset;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+@Component
 public class TooLongSprintDetectorImpl implements AntiPatternDetector {
 
     private final Logger LOGGER = LoggerFactory.getLogger(TooLongSprintDetectorImpl.class);
@@ -33,8 +37,11 @@ public class TooLongSprintDetectorImpl implements AntiPatternDetector {
     );
 
     private final String SQL_FILE_NAME = "too_long_sprint.sql";
-    // sql queries loaded from sql file
-    private List<String> sqlQueries;
+    // queries compiled from sql file, replaced when the file is reloaded
+    private volatile QueryPlan queryPlan;
+
+    // columns of query results read by the detector
+    private static final ResultColumn ITERATION_LENGTH = new ResultColumn("iterationLength", ResultTable.ColumnType.LONG);
 
     @Override
     public AntiPattern getAntiPatternModel() {
@@ -47,16 +54,21 @@ public class TooLongSprintDetectorImpl implements AntiPatternDetector {
     }
 
     @Override
-    public void setSqlQueries(List<String> queries) {
-        this.sqlQueries = queries;
+    public QueryPlan getQueryPlan() {
+        return this.queryPlan;
+    }
+
+    @Override
+    public void setQueryPlan(QueryPlan queryPlan) {
+        this.queryPlan = queryPlan;
     }
 
-    private Integer getMaxIterationLength(){
-        return (Integer) this.antiPattern.getConfigurations().get("maxIterationLength").getValue();
+    private Integer getMaxIterationLength(ConfigurationSnapshot configuration) {
+        return (Integer) configuration.getValue(this.antiPattern.getId(), "maxIterationLength");
     }
 
-    private Integer getMaxNumberOfTooLongIterations(){
-        return (Integer) this.antiPattern.getConfigurations().get("maxNumberOfTooLongIterations").getValue();
+    private Integer getMaxNumberOfTooLongIterations(ConfigurationSnapshot configuration) {
+        return (Integer) configuration.getValue(this.antiPattern.getId(), "maxNumberOfTooLongIterations");
     }
 
     /**
@@ -67,29 +79,31 @@ public class TooLongSprintDetectorImpl implements AntiPatternDetector {
      *      4) pokud iterace přesháne délku 21 dní (nastavitelná prahová hodnota), tak jsou označeny jako moc dlouhé
      *      5) pokud je nalezena jedna nebo více iterací jako dlouhé, tak je anti pattern detekován
      *
-     * @param project            analyzovaný project
-     * @param databaseConnection databázové připojení
+     * @param dataset            data projektu načtená dotazy detektoru
+     * @param configuration      konfigurace platná po celou dobu analýzy
      * @return výsledek detekce
      */
     @Override
-    public QueryResultItem analyze(Project project, DatabaseConnection databaseConnection) {
+    public QueryResultItem evaluate(DetectorDataset dataset, ConfigurationSnapshot configuration) {
 
         // get configuration
-        int maxIterationLength = getMaxIterationLength();
-        int maxNumberOfTooLongIterations = getMaxNumberOfTooLongIterations();
+        int maxIterationLength = getMaxIterationLength(configuration);
+        int maxNumberOfTooLongIterations = getMaxNumberOfTooLongIterations(configuration);
 
         // auxiliary variables
         int numberOfLongIterations = 0;
         int totalCountOfIteration = 0;
 
-        List<List<Map<String, Object>>> resultSets = databaseConnection.executeQueriesWithMultipleResults(project, this.sqlQueries);
-        List<Map<String, Object>> rs = resultSets.get(0);
+        List<ResultTable> resultTables = dataset.getResultTables();
+        ResultTable iterationLengths = resultTables.get(0);
+        int iterationLengthColumn = iterationLengths.getColumnIndex(ITERATION_LENGTH);
 
-        for (Map<String, Object> iterationLengths : rs) {
+        ResultTable.Cursor cursor = iterationLengths.cursor();
+        while (cursor.next()) {
             totalCountOfIteration++;
-            if (!iterationLengths.containsKey("iterationLength") || iterationLengths.get("iterationLength") == null)
+            if (cursor.isNull(iterationLengthColumn))
                 continue;
-            int iterationLength = ((Long) iterationLengths.get("iterationLength")).intValue();
+            int iterationLength = cursor.getInt(iterationLengthColumn);
             if (iterationLength > maxIterationLength) {
                 numberOfLongIterations++;
             }
@@ -103,8 +117,8 @@ public class TooLongSprintDetectorImpl implements AntiPatternDetector {
             resultDetails.add(new ResultDetail("Conclusion", "All iterations in limit"));
         }
 
-        LOGGER.info(this.antiPattern.getPrintName());
-        LOGGER.info(resultDetails.toString());
+        LOGGER.debug(this.antiPattern.getPrintName());
+        LOGGER.debug("{}", resultDetails);
 
         return new QueryResultItem(this.antiPattern, numberOfLongIterations > maxNumberOfTooLongIterations, resultDetails);
     }
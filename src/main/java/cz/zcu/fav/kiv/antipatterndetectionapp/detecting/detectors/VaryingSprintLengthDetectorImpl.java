@@ -1,16 +1,19 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors;
 
-import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorDataset;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
+@Component
 public class VaryingSprintLengthDetectorImpl implements AntiPatternDetector {
 
     private final Logger LOGGER = LoggerFactory.getLogger(VaryingSprintLengthDetectorImpl.class);
@@ -33,15 +36,18 @@ public class VaryingSprintLengthDetectorImpl implements AntiPatternDetector {
             }});
 
     private final String sqlFileName = "varying_sprint_length.sql";
-    // sql queries loaded from sql file
-    private List<String> sqlQueries;
+    // queries compiled from sql file, replaced when the file is reloaded
+    private volatile QueryPlan queryPlan;
 
-    private Integer getMaxDaysDifference(){
-        return (Integer) this.antiPattern.getConfigurations().get("maxDaysDifference").getValue();
+    // columns of query results read by the detector
+    private static final ResultColumn ITERATION_LENGTH = new ResultColumn("iterationLength", ResultTable.ColumnType.LONG);
+
+    private Integer getMaxDaysDifference(ConfigurationSnapshot configuration) {
+        return (Integer) configuration.getValue(this.antiPattern.getId(), "maxDaysDifference");
     }
 
-    private Integer getMaxIterationChanged(){
-        return (Integer) this.antiPattern.getConfigurations().get("maxIterationChanged").getValue();
+    private Integer getMaxIterationChanged(ConfigurationSnapshot configuration) {
+        return (Integer) configuration.getValue(this.antiPattern.getId(), "maxIterationChanged");
     }
 
     @Override
@@ -55,8 +61,13 @@ public class VaryingSprintLengthDetectorImpl implements AntiPatternDetector {
     }
 
     @Override
-    public void setSqlQueries(List<String> queries) {
-        this.sqlQueries = queries;
+    public QueryPlan getQueryPlan() {
+        return this.queryPlan;
+    }
+
+    @Override
+    public void setQueryPlan(QueryPlan queryPlan) {
+        this.queryPlan = queryPlan;
     }
 
     /**
@@ -70,60 +81,60 @@ public class VaryingSprintLengthDetectorImpl implements AntiPatternDetector {
      * <p>
      * Alternativa (sledovat rozptyl délek jednotlivých iterací a pokud překročí nějakou hodnotu, tak detevat)
      *
-     * @param project            analyzovaný project
-     * @param databaseConnection databázové připojení
+     * @param dataset            data projektu načtená dotazy detektoru
+     * @param configuration      konfigurace platná po celou dobu analýzy
      * @return výsledek detekce
      */
     @Override
-    public QueryResultItem analyze(Project project, DatabaseConnection databaseConnection) {
+    public QueryResultItem evaluate(DetectorDataset dataset, ConfigurationSnapshot configuration) {
 
         // init values
         List<ResultDetail> resultDetails = new ArrayList<>();
         int iterationLengthChanged = 0;
         int numberOfIterations = 0;
 
-        try {
-            ResultSet rs = databaseConnection.executeQueries(project, this.sqlQueries);
-            if (rs != null) {
-                int firstIterationLength = Integer.MIN_VALUE;
-                int secondIterationLength;
-                while (rs.next()) {
-                    int iterationLength = rs.getInt("iterationLength");
-                    numberOfIterations++;
-                    if (firstIterationLength == Integer.MIN_VALUE) {
-                        firstIterationLength = iterationLength;
-                        continue;
-                    } else {
-                        secondIterationLength = iterationLength;
-                    }
-
-                    if (Math.abs(firstIterationLength - secondIterationLength) >= getMaxDaysDifference()) {
-                        iterationLengthChanged = iterationLengthChanged + 1;
-                    }
-                    firstIterationLength = secondIterationLength;
-                }
-            }
-
-        } catch (SQLException e) {
+        List<ResultTable> resultTables = dataset.getResultTables();
+        if (resultTables.isEmpty()) {
             LOGGER.error("Cannot read results from db");
-            resultDetails.add(new ResultDetail("Problem in reading database", e.toString()));
+            resultDetails.add(new ResultDetail("Problem in reading database", "No results"));
             return new QueryResultItem(this.antiPattern, true, resultDetails);
         }
 
-        resultDetails.add(new ResultDetail("Maximum iteration length change", String.valueOf(getMaxIterationChanged())));
+        int firstIterationLength = Integer.MIN_VALUE;
+        int secondIterationLength;
+        ResultTable iterationLengths = resultTables.get(0);
+        int iterationLengthColumn = iterationLengths.getColumnIndex(ITERATION_LENGTH);
+        ResultTable.Cursor cursor = iterationLengths.cursor();
+        while (cursor.next()) {
+            int iterationLength = cursor.getInt(iterationLengthColumn);
+            numberOfIterations++;
+            if (firstIterationLength == Integer.MIN_VALUE) {
+                firstIterationLength = iterationLength;
+                continue;
+            } else {
+                secondIterationLength = iterationLength;
+            }
+
+            if (Math.abs(firstIterationLength - secondIterationLength) >= getMaxDaysDifference(configuration)) {
+                iterationLengthChanged = iterationLengthChanged + 1;
+            }
+            firstIterationLength = secondIterationLength;
+        }
+
+        resultDetails.add(new ResultDetail("Maximum iteration length change", String.valueOf(getMaxIterationChanged(configuration))));
         resultDetails.add(new ResultDetail("Count of iterations", String.valueOf(numberOfIterations)));
         resultDetails.add(new ResultDetail("Iteration length changed", String.valueOf(iterationLengthChanged)));
 
 
-        if (iterationLengthChanged > getMaxIterationChanged()) {
+        if (iterationLengthChanged > getMaxIterationChanged(configuration)) {
             resultDetails.add(new ResultDetail("Conclusion", "Iteration length changed significantly too often"));
         } else {
             resultDetails.add(new ResultDetail("Conclusion", "Varying iteration length is all right"));
         }
 
-        LOGGER.info(this.antiPattern.getPrintName());
-        LOGGER.info(resultDetails.toString());
+        LOGGER.debug(this.antiPattern.getPrintName());
+        LOGGER.debug("{}", resultDetails);
 
-        return new QueryResultItem(this.antiPattern, (iterationLengthChanged > getMaxIterationChanged()), resultDetails);
+        return new QueryResultItem(this.antiPattern, (iterationLengthChanged > getMaxIterationChanged(configuration)), resultDetails);
     }
 }
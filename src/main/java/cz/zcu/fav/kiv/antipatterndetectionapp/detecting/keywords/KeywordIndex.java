@@ -0,0 +1,93 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Stores flags of {@link SpadeKeywords} of work units and artifacts of one project into tables
+ * apd_work_unit_tags and apd_artifact_tags. Names and descriptions are matched once when the
+ * project is refreshed, detector queries then filter rows by bits of column tags instead of
+ * matching texts by like. Only rows with at least one flag are stored.
+ */
+public class KeywordIndex {
+
+    private static final String SELECT_WORK_UNITS = "select id, name, description, iterationStartDate from workUnitView where projectId = ?";
+    private static final String SELECT_ARTIFACTS = "select id, name, description, artifactClass from artifactView where projectId = ?";
+    private static final String DELETE_WORK_UNIT_TAGS = "delete from apd_work_unit_tags where projectId = ?";
+    private static final String DELETE_ARTIFACT_TAGS = "delete from apd_artifact_tags where projectId = ?";
+    private static final String INSERT_WORK_UNIT_TAGS = "insert into apd_work_unit_tags (workUnitId, projectId, iterationStartDate, tags) values (?, ?, ?, ?)";
+    private static final String INSERT_ARTIFACT_TAGS = "insert into apd_artifact_tags (artifactId, projectId, tags) values (?, ?, ?)";
+
+    /**
+     * Replaces stored tags of the project. Caller is responsible for the transaction.
+     *
+     * @param connection connection to SPADE database
+     * @param projectId  id of the project
+     * @return number of stored tagged rows
+     * @throws SQLException if reading or writing of some table fails
+     */
+    public int refresh(Connection connection, long projectId) throws SQLException {
+        delete(connection, DELETE_WORK_UNIT_TAGS, projectId);
+        delete(connection, DELETE_ARTIFACT_TAGS, projectId);
+        return tagWorkUnits(connection, projectId) + tagArtifacts(connection, projectId);
+    }
+
+    private void delete(Connection connection, String sql, long projectId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, projectId);
+            statement.executeUpdate();
+        }
+    }
+
+    private int tagWorkUnits(Connection connection, long projectId) throws SQLException {
+        int tagged = 0;
+        try (PreparedStatement select = connection.prepareStatement(SELECT_WORK_UNITS);
+             PreparedStatement insert = connection.prepareStatement(INSERT_WORK_UNIT_TAGS)) {
+            select.setLong(1, projectId);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    int tags = SpadeKeywords.workUnitFlags(LikePattern.normalize(resultSet.getString(2)),
+                            LikePattern.normalize(resultSet.getString(3)));
+                    if (tags == 0) {
+                        continue;
+                    }
+                    insert.setLong(1, resultSet.getLong(1));
+                    insert.setLong(2, projectId);
+                    insert.setObject(3, resultSet.getObject(4, LocalDateTime.class));
+                    insert.setInt(4, tags);
+                    insert.addBatch();
+                    tagged++;
+                }
+            }
+            insert.executeBatch();
+        }
+        return tagged;
+    }
+
+    private int tagArtifacts(Connection connection, long projectId) throws SQLException {
+        int tagged = 0;
+        try (PreparedStatement select = connection.prepareStatement(SELECT_ARTIFACTS);
+             PreparedStatement insert = connection.prepareStatement(INSERT_ARTIFACT_TAGS)) {
+            select.setLong(1, projectId);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    int tags = SpadeKeywords.artifactFlags(LikePattern.normalize(resultSet.getString(2)),
+                            LikePattern.normalize(resultSet.getString(3)), LikePattern.normalize(resultSet.getString(4)));
+                    if (tags == 0) {
+                        continue;
+                    }
+                    insert.setLong(1, resultSet.getLong(1));
+                    insert.setLong(2, projectId);
+                    insert.setInt(3, tags);
+                    insert.addBatch();
+                    tagged++;
+                }
+            }
+            insert.executeBatch();
+        }
+        return tagged;
+    }
+}
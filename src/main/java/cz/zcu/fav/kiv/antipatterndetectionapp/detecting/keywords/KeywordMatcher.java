@@ -0,0 +1,268 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates many like patterns against one value by a single pass of Aho-Corasick automaton.
+ * Every pattern belongs to a tag, value gets the tag if it matches any pattern of the tag.
+ * Literal parts of all unanchored patterns are searched at once and every pattern advances
+ * to its next part when its current part is found after the previous one, as like does.
+ * Anchored patterns are matched one by one.
+ */
+public final class KeywordMatcher {
+
+    private static final int ROOT = 0;
+    // normalized values are mostly ascii, transitions of ascii characters are precomputed
+    private static final int ASCII = 128;
+
+    // trie of literal parts, children of node are sorted by their character
+    private final char[][] childChars;
+    private final int[][] children;
+    private final int[] failures;
+    // transitions of node n start at index n * ASCII and hold offset of the next node, offset is
+    // complemented when some part ends in the next node, so nodes without output are passed by one lookup
+    private final int[] asciiTransitions;
+    // ids of parts which end in the node, including parts which are suffixes of the node
+    private final int[][] outputs;
+    private final int[] partLengths;
+
+    private final int[] unanchoredTags;
+    private final int[][] unanchoredParts;
+    // unanchored patterns which contain the part
+    private final int[][] patternsByPart;
+    // tags of patterns without any literal part, which match every value
+    private final int emptyTags;
+    private final int[] anchoredTags;
+    private final LikePattern[] anchoredPatterns;
+    // tags and patterns in order of their addition
+    private final String description;
+
+    private KeywordMatcher(Builder builder) {
+        Map<String, Integer> partIds = new HashMap<>();
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        trieOutputs.add(new ArrayList<>());
+
+        List<Integer> tags = new ArrayList<>();
+        List<int[]> patternParts = new ArrayList<>();
+        List<Integer> otherTags = new ArrayList<>();
+        List<LikePattern> otherPatterns = new ArrayList<>();
+        StringJoiner description = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < builder.patterns.size(); i++) {
+            LikePattern likePattern = builder.patterns.get(i);
+            description.add(builder.tags.get(i) + ": " + likePattern);
+            if (!likePattern.isUnanchored()) {
+                otherTags.add(builder.tags.get(i));
+                otherPatterns.add(likePattern);
+                continue;
+            }
+            int[] ids = Arrays.stream(likePattern.getParts())
+                    .filter(part -> !part.isEmpty())
+                    .mapToInt(part -> partIds.computeIfAbsent(part, key -> insert(trie, trieOutputs, key, partIds.size())))
+                    .toArray();
+            tags.add(builder.tags.get(i));
+            patternParts.add(ids);
+        }
+
+        this.partLengths = new int[partIds.size()];
+        for (Map.Entry<String, Integer> entry : partIds.entrySet()) {
+            this.partLengths[entry.getValue()] = entry.getKey().length();
+        }
+        this.childChars = new char[trie.size()][];
+        this.children = new int[trie.size()][];
+        for (int node = 0; node < trie.size(); node++) {
+            TreeMap<Character, Integer> nodeChildren = trie.get(node);
+            this.childChars[node] = new char[nodeChildren.size()];
+            this.children[node] = new int[nodeChildren.size()];
+            int c = 0;
+            for (Map.Entry<Character, Integer> child : nodeChildren.entrySet()) {
+                this.childChars[node][c] = child.getKey();
+                this.children[node][c] = child.getValue();
+                c++;
+            }
+        }
+        this.failures = new int[trie.size()];
+        this.outputs = new int[trie.size()][];
+        linkFailures(trieOutputs);
+        this.asciiTransitions = new int[trie.size() * ASCII];
+        for (int node = 0; node < trie.size(); node++) {
+            for (char character = 0; character < ASCII; character++) {
+                int next = next(node, character);
+                this.asciiTransitions[node * ASCII + character] = outputs[next].length == 0 ? next * ASCII : ~(next * ASCII);
+            }
+        }
+
+        this.unanchoredTags = tags.stream().mapToInt(Integer::intValue).toArray();
+        this.unanchoredParts = patternParts.toArray(new int[0][]);
+        this.patternsByPart = new int[partIds.size()][];
+        for (int part = 0; part < partIds.size(); part++) {
+            int partId = part;
+            this.patternsByPart[part] = IntStream.range(0, unanchoredParts.length)
+                    .filter(pattern -> Arrays.stream(unanchoredParts[pattern]).anyMatch(id -> id == partId))
+                    .toArray();
+        }
+        this.emptyTags = IntStream.range(0, unanchoredParts.length)
+                .filter(pattern -> unanchoredParts[pattern].length == 0)
+                .map(pattern -> unanchoredTags[pattern])
+                .reduce(0, (left, right) -> left | right);
+        this.anchoredTags = otherTags.stream().mapToInt(Integer::intValue).toArray();
+        this.anchoredPatterns = otherPatterns.toArray(new LikePattern[0]);
+        this.description = description.toString();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static int insert(List<TreeMap<Character, Integer>> trie, List<List<Integer>> trieOutputs, String part, int partId) {
+        int node = ROOT;
+        for (int i = 0; i < part.length(); i++) {
+            Integer child = trie.get(node).get(part.charAt(i));
+            if (child == null) {
+                child = trie.size();
+                trie.get(node).put(part.charAt(i), child);
+                trie.add(new TreeMap<>());
+                trieOutputs.add(new ArrayList<>());
+            }
+            node = child;
+        }
+        trieOutputs.get(node).add(partId);
+        return partId;
+    }
+
+    /**
+     * Computes failure links breadth first, so failure of every node is known before its children
+     * are processed and outputs of the failure node can be appended to outputs of the node.
+     */
+    private void linkFailures(List<List<Integer>> trieOutputs) {
+        int[] queue = new int[childChars.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+        outputs[ROOT] = new int[0];
+        while (head < tail) {
+            int node = queue[head++];
+            for (int c = 0; c < children[node].length; c++) {
+                int child = children[node][c];
+                failures[child] = node == ROOT ? ROOT : next(failures[node], childChars[node][c]);
+                List<Integer> childOutputs = new ArrayList<>(trieOutputs.get(child));
+                for (int output : outputs[failures[child]]) {
+                    childOutputs.add(output);
+                }
+                outputs[child] = childOutputs.stream().mapToInt(Integer::intValue).toArray();
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    private int next(int node, char character) {
+        while (true) {
+            int c = Arrays.binarySearch(childChars[node], character);
+            if (c >= 0) {
+                return children[node][c];
+            }
+            if (node == ROOT) {
+                return ROOT;
+            }
+            node = failures[node];
+        }
+    }
+
+    /**
+     * Matches normalized value against all patterns.
+     *
+     * @param value value normalized by {@link LikePattern#normalize(String)}
+     * @return union of tags of matched patterns, zero for null value
+     */
+    public int match(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int tags = 0;
+        for (int i = 0; i < anchoredPatterns.length; i++) {
+            if ((tags & anchoredTags[i]) != anchoredTags[i] && anchoredPatterns[i].matches(value)) {
+                tags |= anchoredTags[i];
+            }
+        }
+        if (unanchoredParts.length == 0) {
+            return tags;
+        }
+
+        tags |= emptyTags;
+        // index of the next part of every pattern and position where the part may start,
+        // created when the first part is found
+        int[] nextParts = null;
+        int[] from = null;
+        int offset = ROOT;
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character < ASCII) {
+                offset = asciiTransitions[offset + character];
+                if (offset >= 0) {
+                    continue;
+                }
+                offset = ~offset;
+            } else {
+                offset = next(offset / ASCII, character) * ASCII;
+            }
+            if (nextParts == null) {
+                nextParts = new int[unanchoredParts.length];
+                from = new int[unanchoredParts.length];
+            }
+            for (int part : outputs[offset / ASCII]) {
+                int start = i - partLengths[part] + 1;
+                for (int pattern : patternsByPart[part]) {
+                    int[] parts = unanchoredParts[pattern];
+                    if (nextParts[pattern] < parts.length && parts[nextParts[pattern]] == part && start >= from[pattern]) {
+                        from[pattern] = i + 1;
+                        if (++nextParts[pattern] == parts.length) {
+                            tags |= unanchoredTags[pattern];
+                        }
+                    }
+                }
+            }
+        }
+        return tags;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    public static final class Builder {
+
+        private final List<Integer> tags = new ArrayList<>();
+        private final List<LikePattern> patterns = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds patterns of the tag.
+         *
+         * @param tag      flag set when any of the patterns matches
+         * @param patterns like patterns
+         * @return this builder
+         */
+        public Builder add(int tag, LikePattern... patterns) {
+            for (LikePattern likePattern : patterns) {
+                this.tags.add(tag);
+                this.patterns.add(likePattern);
+            }
+            return this;
+        }
+
+        public KeywordMatcher build() {
+            return new KeywordMatcher(this);
+        }
+    }
+}
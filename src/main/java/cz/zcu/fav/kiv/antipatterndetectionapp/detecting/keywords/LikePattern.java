@@ -0,0 +1,95 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Pattern of sql operator like with wildcard %. Values are compared case and accent insensitive
+ * in the same way as by default collation of SPADE database, so value has to be normalized
+ * by {@link #normalize(String)} before it is matched.
+ */
+public final class LikePattern {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final String pattern;
+    // literal parts between wildcards, the first part is prefix and the last part is suffix
+    private final String[] parts;
+
+    private LikePattern(String pattern) {
+        this.pattern = pattern;
+        this.parts = normalize(pattern).split("%", -1);
+    }
+
+    public static LikePattern compile(String pattern) {
+        if (pattern.indexOf('_') >= 0) {
+            throw new IllegalArgumentException("Wildcard _ is not supported: " + pattern);
+        }
+        return new LikePattern(pattern);
+    }
+
+    /**
+     * Converts value to lower case without diacritics.
+     *
+     * @param value compared value
+     * @return normalized value or null for null value
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(value.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    /**
+     * Matches normalized value.
+     *
+     * @param value value normalized by {@link #normalize(String)}
+     * @return true if the value matches, false for null value
+     */
+    public boolean matches(String value) {
+        if (value == null) {
+            return false;
+        }
+        if (parts.length == 1) {
+            return value.equals(parts[0]);
+        }
+        String prefix = parts[0];
+        String suffix = parts[parts.length - 1];
+        if (value.length() < prefix.length() + suffix.length() || !value.startsWith(prefix) || !value.endsWith(suffix)) {
+            return false;
+        }
+        int from = prefix.length();
+        int to = value.length() - suffix.length();
+        for (int i = 1; i < parts.length - 1; i++) {
+            int index = value.indexOf(parts[i], from);
+            if (index < 0 || index + parts[i].length() > to) {
+                return false;
+            }
+            from = index + parts[i].length();
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the pattern starts and ends with wildcard, so it only requires its literal
+     * parts to occur in the value in the given order.
+     */
+    boolean isUnanchored() {
+        return parts.length > 1 && parts[0].isEmpty() && parts[parts.length - 1].isEmpty();
+    }
+
+    /**
+     * Returns normalized literal parts between wildcards.
+     */
+    String[] getParts() {
+        return parts;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,145 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords.LikePattern.compile;
+
+/**
+ * Key word conditions of sql files of detectors evaluated once for every iteration, work unit and
+ * artifact, when snapshot is loaded or when keyword tags of a project are stored. Every condition
+ * is one bit of flags, so detectors count rows by flags instead of matching texts. Patterns are
+ * the same as in the sql files, including their typos, so both ways detect the same rows.
+ * All patterns of one text are evaluated by one pass of {@link KeywordMatcher}.
+ */
+public final class SpadeKeywords {
+
+    // iterations
+    public static final int ITERATION_NAMED_ITERATION = 1;
+
+    // work units
+    public static final int WORK_UNIT_RETROSPECTIVE = 1;
+    public static final int WORK_UNIT_FEEDBACK = 1 << 1;
+    public static final int WORK_UNIT_PROJECT_PLAN = 1 << 2;
+    public static final int WORK_UNIT_SPECIFICATION = 1 << 3;
+
+    // artifacts
+    public static final int ARTIFACT_WIKI_PAGE = 1;
+    public static final int ARTIFACT_RETROSPECTIVE = 1 << 1;
+    public static final int ARTIFACT_MEETING_RECORD = 1 << 2;
+    public static final int ARTIFACT_CUSTOMER_MEETING = 1 << 3;
+    public static final int ARTIFACT_PROJECT_PLAN = 1 << 4;
+    public static final int ARTIFACT_SPECIFICATION = 1 << 5;
+
+    // business_as_usual.sql
+    private static final LikePattern ITERATION = compile("%itera%");
+    private static final LikePattern[] RETROSPECTIVE_ACTIVITY = {compile("%retr%"), compile("%revi%"), compile("%week%scrum%")};
+    private static final LikePattern RETROSPECTIVE_PAGE = compile("%retr%");
+
+    // long_or_non_existent_feedback_loops.sql
+    private static final LikePattern[] FEEDBACK_ACTIVITY = {compile("%schůz%zákazník%"), compile("%předvedení%zákazník%"),
+            compile("%zákazn%demo%"), compile("%schůz%zadavat%"), compile("%inform%schůz%"), compile("%zákazn%"),
+            compile("%zadavatel%")};
+    private static final LikePattern MEETING_RECORD_PAGE = compile("%zápis%schůz%");
+    private static final LikePattern[] CUSTOMER_MEETING_PAGE = {compile("%schůz%zákazník%"), compile("%zákazn%demo%"),
+            compile("%schůz%zadavat%"), compile("%zadavatel%"), compile("%zákazn%")};
+
+    // road_to_nowhere.sql
+    private static final LikePattern[] PROJECT_PLAN = {compile("%plán projektu%"), compile("%project plan%"),
+            compile("%plan project%"), compile("%projektový plán%")};
+    private static final LikePattern[] PROJECT_PLAN_PAGE_NAME = {compile("%plán projektu%"), compile("%project plan%"),
+            compile("%plan project%"), compile("%projekotvý plán%")};
+
+    // specify_nothing.sql
+    private static final LikePattern[] SPECIFICATION_ACTIVITY = {compile("%DSP%"), compile("%specifikace%"),
+            compile("%specification%"), compile("%vize%proj%")};
+    private static final LikePattern[] SPECIFICATION_PAGE_NAME = {compile("%dsp%"), compile("%specifikace%"),
+            compile("%specification%"), compile("%vize%proj%"), compile("%vize%produ%")};
+    private static final LikePattern[] SPECIFICATION_PAGE_DESCRIPTION = {compile("%DSP%"), compile("%specifikace%"),
+            compile("%specification%")};
+
+    private static final LikePattern WIKI_PAGE = compile("WIKIPAGE");
+
+    private static final KeywordMatcher ITERATION_NAME = KeywordMatcher.builder()
+            .add(ITERATION_NAMED_ITERATION, ITERATION)
+            .build();
+    private static final KeywordMatcher WORK_UNIT_NAME = KeywordMatcher.builder()
+            .add(WORK_UNIT_RETROSPECTIVE, RETROSPECTIVE_ACTIVITY)
+            .add(WORK_UNIT_FEEDBACK, FEEDBACK_ACTIVITY)
+            .add(WORK_UNIT_PROJECT_PLAN, PROJECT_PLAN)
+            .add(WORK_UNIT_SPECIFICATION, SPECIFICATION_ACTIVITY)
+            .build();
+    private static final KeywordMatcher WORK_UNIT_DESCRIPTION = KeywordMatcher.builder()
+            .add(WORK_UNIT_PROJECT_PLAN, PROJECT_PLAN)
+            .build();
+    private static final KeywordMatcher ARTIFACT_NAME = KeywordMatcher.builder()
+            .add(ARTIFACT_RETROSPECTIVE, RETROSPECTIVE_PAGE)
+            .add(ARTIFACT_MEETING_RECORD, MEETING_RECORD_PAGE)
+            .add(ARTIFACT_CUSTOMER_MEETING, CUSTOMER_MEETING_PAGE)
+            .add(ARTIFACT_PROJECT_PLAN, PROJECT_PLAN_PAGE_NAME)
+            .add(ARTIFACT_SPECIFICATION, SPECIFICATION_PAGE_NAME)
+            .build();
+    private static final KeywordMatcher ARTIFACT_DESCRIPTION = KeywordMatcher.builder()
+            .add(ARTIFACT_RETROSPECTIVE, RETROSPECTIVE_PAGE)
+            .add(ARTIFACT_PROJECT_PLAN, PROJECT_PLAN)
+            .add(ARTIFACT_SPECIFICATION, SPECIFICATION_PAGE_DESCRIPTION)
+            .build();
+    private static final KeywordMatcher ARTIFACT_CLASS = KeywordMatcher.builder()
+            .add(ARTIFACT_WIKI_PAGE, WIKI_PAGE)
+            .build();
+
+    private SpadeKeywords() {
+    }
+
+    /**
+     * Describes tags and patterns of all conditions, so flags evaluated by different patterns
+     * can be recognized.
+     *
+     * @return tags and patterns of every condition
+     */
+    public static String describe() {
+        return "iteration name " + ITERATION_NAME + ", work unit name " + WORK_UNIT_NAME
+                + ", work unit description " + WORK_UNIT_DESCRIPTION + ", artifact name " + ARTIFACT_NAME
+                + ", artifact description " + ARTIFACT_DESCRIPTION + ", artifact class " + ARTIFACT_CLASS;
+    }
+
+    /**
+     * Returns patterns of all conditions.
+     */
+    static List<LikePattern> patterns() {
+        List<LikePattern> patterns = new ArrayList<>(Arrays.asList(ITERATION, RETROSPECTIVE_PAGE, MEETING_RECORD_PAGE, WIKI_PAGE));
+        for (LikePattern[] conditionPatterns : new LikePattern[][]{RETROSPECTIVE_ACTIVITY, FEEDBACK_ACTIVITY, CUSTOMER_MEETING_PAGE,
+                PROJECT_PLAN, PROJECT_PLAN_PAGE_NAME, SPECIFICATION_ACTIVITY, SPECIFICATION_PAGE_NAME, SPECIFICATION_PAGE_DESCRIPTION}) {
+            patterns.addAll(Arrays.asList(conditionPatterns));
+        }
+        return patterns;
+    }
+
+    public static int iterationFlags(String name) {
+        return ITERATION_NAME.match(name);
+    }
+
+    /**
+     * Evaluates conditions of work unit.
+     *
+     * @param name        normalized name
+     * @param description normalized description
+     * @return flags of satisfied conditions
+     */
+    public static int workUnitFlags(String name, String description) {
+        return WORK_UNIT_NAME.match(name) | WORK_UNIT_DESCRIPTION.match(description);
+    }
+
+    /**
+     * Evaluates conditions of artifact.
+     *
+     * @param name          normalized name
+     * @param description   normalized description
+     * @param artifactClass normalized class of artifact
+     * @return flags of satisfied conditions
+     */
+    public static int artifactFlags(String name, String description, String artifactClass) {
+        return ARTIFACT_CLASS.match(artifactClass) | ARTIFACT_NAME.match(name) | ARTIFACT_DESCRIPTION.match(description);
+    }
+}
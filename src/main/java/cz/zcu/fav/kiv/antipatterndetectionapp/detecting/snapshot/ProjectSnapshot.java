@@ -0,0 +1,278 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords.LikePattern;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords.SpadeKeywords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Data of one project stored by columns in primitive arrays. Times are stored as seconds from
+ * 1970-01-01 of local date and time, missing time as {@link #NULL_TIME}. Changes of every work unit
+ * and artifact are stored in one array sorted by time of the change, changes of item i are
+ * between offsets i and i + 1.
+ *
+ * Arrays are not modified after the snapshot is built and are read directly by {@link SnapshotQueries}.
+ */
+final class ProjectSnapshot {
+
+    static final long NULL_TIME = Long.MIN_VALUE;
+    private static final long SECONDS_PER_DAY = 86400;
+
+    final long projectId;
+
+    // iterations
+    final int iterationCount;
+    final long[] iterationIds;
+    final String[] iterationNames;
+    final long[] iterationStarts;
+    final long[] iterationEnds;
+    final int[] iterationFlags;
+    // indexes of iterations ordered by name and by start date with missing dates first as sorted by database
+    final int[] iterationsByName;
+    final int[] iterationsByStart;
+    // normalized names compared by database collation
+    final String[] iterationKeys;
+
+    // work units
+    final int workUnitCount;
+    final long[] workUnitIds;
+    final String[] workUnitNames;
+    final String[] workUnitIterationNames;
+    final String[] workUnitIterationKeys;
+    final long[] workUnitIterationStarts;
+    final double[] estimatedTimes;
+    final double[] spentTimes;
+    final int[] descriptionLengths;
+    final int[] workUnitFlags;
+    final int[] workUnitChangeOffsets;
+    final long[] workUnitChanges;
+
+    // artifacts
+    final int artifactCount;
+    final String[] artifactNameKeys;
+    final int[] artifactFlags;
+    final int[] artifactChangeOffsets;
+    final long[] artifactChanges;
+    // sorted times of changes which extended wiki page with record of meeting
+    final long[] meetingRecordChanges;
+
+    private ProjectSnapshot(Builder builder, Map<Long, Changes> changesByItem) {
+        this.projectId = builder.projectId;
+
+        this.iterationCount = builder.iterationIds.size();
+        this.iterationIds = toLongArray(builder.iterationIds);
+        this.iterationNames = builder.iterationNames.toArray(new String[0]);
+        this.iterationStarts = toLongArray(builder.iterationStarts);
+        this.iterationEnds = toLongArray(builder.iterationEnds);
+        this.iterationKeys = new String[iterationCount];
+        this.iterationFlags = new int[iterationCount];
+        for (int i = 0; i < iterationCount; i++) {
+            iterationKeys[i] = LikePattern.normalize(iterationNames[i]);
+            iterationFlags[i] = SpadeKeywords.iterationFlags(iterationKeys[i]);
+        }
+        this.iterationsByName = sortedIndexes(iterationCount, Comparator.comparing(i -> iterationKeys[i],
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        this.iterationsByStart = sortedIndexes(iterationCount, Comparator.comparingLong(i -> iterationStarts[i]));
+
+        this.workUnitCount = builder.workUnitIds.size();
+        this.workUnitIds = toLongArray(builder.workUnitIds);
+        this.workUnitNames = builder.workUnitNames.toArray(new String[0]);
+        this.workUnitIterationNames = builder.workUnitIterationNames.toArray(new String[0]);
+        this.workUnitIterationKeys = new String[workUnitCount];
+        for (int i = 0; i < workUnitCount; i++) {
+            workUnitIterationKeys[i] = LikePattern.normalize(workUnitIterationNames[i]);
+        }
+        this.workUnitIterationStarts = toLongArray(builder.workUnitIterationStarts);
+        this.estimatedTimes = builder.estimatedTimes.stream().mapToDouble(Double::doubleValue).toArray();
+        this.spentTimes = builder.spentTimes.stream().mapToDouble(Double::doubleValue).toArray();
+        this.descriptionLengths = builder.descriptionLengths.stream().mapToInt(Integer::intValue).toArray();
+        this.workUnitFlags = builder.workUnitFlags.stream().mapToInt(Integer::intValue).toArray();
+        this.workUnitChangeOffsets = new int[workUnitCount + 1];
+        this.workUnitChanges = collectChanges(workUnitIds, changesByItem, workUnitChangeOffsets);
+
+        this.artifactCount = builder.artifactIds.size();
+        this.artifactNameKeys = builder.artifactNameKeys.toArray(new String[0]);
+        this.artifactFlags = builder.artifactFlags.stream().mapToInt(Integer::intValue).toArray();
+        this.artifactChangeOffsets = new int[artifactCount + 1];
+        long[] artifactIds = toLongArray(builder.artifactIds);
+        this.artifactChanges = collectChanges(artifactIds, changesByItem, artifactChangeOffsets);
+
+        List<Long> meetingRecordChanges = new ArrayList<>();
+        int meetingRecord = SpadeKeywords.ARTIFACT_WIKI_PAGE | SpadeKeywords.ARTIFACT_MEETING_RECORD;
+        for (int i = 0; i < artifactCount; i++) {
+            Changes changes = changesByItem.get(artifactIds[i]);
+            if ((artifactFlags[i] & meetingRecord) == meetingRecord && changes != null) {
+                for (int c = 0; c < changes.size; c++) {
+                    if (changes.extending.get(c)) {
+                        meetingRecordChanges.add(changes.created[c]);
+                    }
+                }
+            }
+        }
+        this.meetingRecordChanges = toLongArray(meetingRecordChanges);
+        Arrays.sort(this.meetingRecordChanges);
+    }
+
+    static ProjectSnapshot empty(long projectId) {
+        return new Builder(projectId).build(Map.of());
+    }
+
+    static long epochDay(long time) {
+        return Math.floorDiv(time, SECONDS_PER_DAY);
+    }
+
+    /**
+     * Returns the latest time from sorted part of array which is between start and end inclusive.
+     *
+     * @param sorted sorted times
+     * @param from   first index of searched part
+     * @param to     index after the last index of searched part
+     * @param start  start of interval
+     * @param end    end of interval
+     * @return the latest time in interval or {@link #NULL_TIME} if there is no such time or the interval is not known
+     */
+    static long latestBetween(long[] sorted, int from, int to, long start, long end) {
+        if (start == NULL_TIME || end == NULL_TIME) {
+            return NULL_TIME;
+        }
+        // first index with time after the end
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] <= end) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low > from && sorted[low - 1] >= start ? sorted[low - 1] : NULL_TIME;
+    }
+
+    private static long[] collectChanges(long[] itemIds, Map<Long, Changes> changesByItem, int[] offsets) {
+        int total = 0;
+        for (int i = 0; i < itemIds.length; i++) {
+            offsets[i] = total;
+            Changes changes = changesByItem.get(itemIds[i]);
+            total += changes == null ? 0 : changes.size;
+        }
+        offsets[itemIds.length] = total;
+
+        long[] created = new long[total];
+        for (int i = 0; i < itemIds.length; i++) {
+            Changes changes = changesByItem.get(itemIds[i]);
+            if (changes != null) {
+                System.arraycopy(changes.created, 0, created, offsets[i], changes.size);
+                Arrays.sort(created, offsets[i], offsets[i + 1]);
+            }
+        }
+        return created;
+    }
+
+    private static int[] sortedIndexes(int count, Comparator<Integer> comparator) {
+        return IntStream.range(0, count).boxed().sorted(comparator).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static long[] toLongArray(List<Long> values) {
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Changes of one item read from fieldChangeView.
+     *
+     * created: times of changes
+     * extending: changes where new value is longer than old value
+     */
+    static final class Changes {
+
+        private long[] created = new long[4];
+        private final BitSet extending = new BitSet();
+        private int size;
+
+        void add(long time, boolean extendingChange) {
+            if (size == created.length) {
+                created = Arrays.copyOf(created, size * 2);
+            }
+            if (extendingChange) {
+                extending.set(size);
+            }
+            created[size++] = time;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long getCreated(int index) {
+            return created[index];
+        }
+    }
+
+    /**
+     * Collects rows of project while the tables are read.
+     */
+    static final class Builder {
+
+        private final long projectId;
+
+        private final List<Long> iterationIds = new ArrayList<>();
+        private final List<String> iterationNames = new ArrayList<>();
+        private final List<Long> iterationStarts = new ArrayList<>();
+        private final List<Long> iterationEnds = new ArrayList<>();
+
+        private final List<Long> workUnitIds = new ArrayList<>();
+        private final List<String> workUnitNames = new ArrayList<>();
+        private final List<String> workUnitIterationNames = new ArrayList<>();
+        private final List<Long> workUnitIterationStarts = new ArrayList<>();
+        private final List<Double> estimatedTimes = new ArrayList<>();
+        private final List<Double> spentTimes = new ArrayList<>();
+        private final List<Integer> descriptionLengths = new ArrayList<>();
+        private final List<Integer> workUnitFlags = new ArrayList<>();
+
+        private final List<Long> artifactIds = new ArrayList<>();
+        private final List<String> artifactNameKeys = new ArrayList<>();
+        private final List<Integer> artifactFlags = new ArrayList<>();
+
+        Builder(long projectId) {
+            this.projectId = projectId;
+        }
+
+        void addIteration(long id, String name, long start, long end) {
+            iterationIds.add(id);
+            iterationNames.add(name);
+            iterationStarts.add(start);
+            iterationEnds.add(end);
+        }
+
+        /**
+         * Adds work unit, missing times of work unit are given as NaN.
+         */
+        void addWorkUnit(long id, String name, String iterationName, long iterationStart, double estimatedTime,
+                         double spentTime, int descriptionLength, int flags) {
+            workUnitIds.add(id);
+            workUnitNames.add(name);
+            workUnitIterationNames.add(iterationName);
+            workUnitIterationStarts.add(iterationStart);
+            estimatedTimes.add(estimatedTime);
+            spentTimes.add(spentTime);
+            descriptionLengths.add(descriptionLength);
+            workUnitFlags.add(flags);
+        }
+
+        void addArtifact(long id, String nameKey, int flags) {
+            artifactIds.add(id);
+            artifactNameKeys.add(nameKey);
+            artifactFlags.add(flags);
+        }
+
+        ProjectSnapshot build(Map<Long, Changes> changesByItem) {
+            return new ProjectSnapshot(this, changesByItem);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DatabaseConnection;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+
+import java.util.List;
+
+/**
+ * Connection which evaluates queries of detectors by {@link SnapshotQueries} against in-memory
+ * snapshot instead of database. Queries are chosen by sql file name of the detector, not by name
+ * of the executed plan. Connection holds no database resources, so one connection can be shared
+ * by any number of threads analyzing the same detector.
+ */
+public class SnapshotDatabaseConnection extends DatabaseConnection {
+
+    private final SpadeSnapshot spadeSnapshot;
+    private final String sqlFileName;
+
+    /**
+     * @param spadeSnapshot snapshot of SPADE tables
+     * @param sqlFileName   sql file name of the detector, see {@link SnapshotQueries#supports(String)}
+     */
+    public SnapshotDatabaseConnection(SpadeSnapshot spadeSnapshot, String sqlFileName) {
+        this.spadeSnapshot = spadeSnapshot;
+        this.sqlFileName = sqlFileName;
+    }
+
+    @Override
+    public List<ResultTable> executeQueriesWithMultipleResults(Project project, QueryPlan queryPlan) {
+        return SnapshotQueries.execute(sqlFileName, spadeSnapshot, project.getId());
+    }
+}
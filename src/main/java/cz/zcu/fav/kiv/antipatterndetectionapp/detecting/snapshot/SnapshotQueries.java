@@ -0,0 +1,339 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords.SpadeKeywords;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+import static cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.ProjectSnapshot.NULL_TIME;
+import static cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.ProjectSnapshot.epochDay;
+import static cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot.ProjectSnapshot.latestBetween;
+
+/**
+ * Java implementations of sql files of detectors evaluated against {@link SpadeSnapshot}. Every
+ * implementation returns results of all selects of its sql file with the same columns and rows
+ * as the database, so detectors evaluate them without any change. Implementations are chosen by
+ * name of the sql file, so sql files changed at runtime are not reflected by the snapshot engine.
+ */
+public final class SnapshotQueries {
+
+    private static final ResultColumn PROJECT_ID = new ResultColumn("projectId", ResultTable.ColumnType.LONG);
+    private static final ResultColumn ITERATION_LENGTH = new ResultColumn("iterationLength", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_ITERATIONS = new ResultColumn("numberOfIterations", ResultTable.ColumnType.LONG);
+    private static final ResultColumn ITERATION_NAME = new ResultColumn("iterationName", ResultTable.ColumnType.STRING);
+    private static final ResultColumn NUMBER_OF_ISSUES = new ResultColumn("numberOfIssues", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_WIKI_PAGES = new ResultColumn("numberOfWikiPages", ResultTable.ColumnType.LONG);
+    private static final ResultColumn AVERAGE_ITERATION_LENGTH = new ResultColumn("averageIterationLength", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn TOTAL_COUNT_OF_ITERATIONS_WITH_FEEDBACK_ACTIVITY = new ResultColumn("totalCountOfIterationsWithFeedbackActivity", ResultTable.ColumnType.LONG);
+    private static final ResultColumn ID = new ResultColumn("id", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NAME = new ResultColumn("name", ResultTable.ColumnType.STRING);
+    private static final ResultColumn END_DATE = new ResultColumn("endDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn PROJECT_START_DATE = new ResultColumn("projectStartDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn PROJECT_END_DATE = new ResultColumn("projectEndDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn ITERATION_WITH_CUSTOMER_FEEDBACK = new ResultColumn("iterationWithCustomerFeedback", ResultTable.ColumnType.STRING);
+    private static final ResultColumn APPOINTMENT_DATE = new ResultColumn("appointmentDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn ESTIMATED_TIME = new ResultColumn("estimatedTime", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn SPENT_TIME = new ResultColumn("spentTime", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn TIME_DIVISION = new ResultColumn("timeDivision", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn DEVIATION = new ResultColumn("deviation", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn NUMBER_OF_ISSUES_FOR_PROJECT_PLAN = new ResultColumn("numberOfIssuesForProjectPlan", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_WIKI_PAGES_FOR_PROJECT_PLAN = new ResultColumn("numberOfWikiPagesForProjectPlan", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_ACTIVITIES_FOR_SPECIFICATION = new ResultColumn("numberOfActivitiesForSpecification", ResultTable.ColumnType.LONG);
+    private static final ResultColumn AVERAGE_LENGTH_OF_ISSUE_DESCRIPTION = new ResultColumn("averageLengthOfIssueDescription", ResultTable.ColumnType.DOUBLE);
+
+    private static final Map<String, BiFunction<SpadeSnapshot, ProjectSnapshot, List<ResultTable>>> QUERIES = Map.of(
+            "too_long_sprint.sql", SnapshotQueries::iterationLengths,
+            "varying_sprint_length.sql", SnapshotQueries::iterationLengths,
+            "business_as_usual.sql", SnapshotQueries::businessAsUsual,
+            "long_or_non_existent_feedback_loops.sql", SnapshotQueries::longOrNonExistentFeedbackLoops,
+            "ninety_ninety_rule.sql", SnapshotQueries::ninetyNinetyRule,
+            "road_to_nowhere.sql", SnapshotQueries::roadToNowhere,
+            "specify_nothing.sql", SnapshotQueries::specifyNothing);
+
+    private SnapshotQueries() {
+    }
+
+    public static boolean supports(String sqlFileName) {
+        return QUERIES.containsKey(sqlFileName);
+    }
+
+    /**
+     * Evaluates sql file for the project.
+     *
+     * @param sqlFileName  name of sql file of detector
+     * @param spadeSnapshot snapshot of SPADE tables
+     * @param projectId    id of analyzed project
+     * @return results of all selects of the sql file
+     * @throws IllegalArgumentException if there is no implementation of the sql file
+     */
+    public static List<ResultTable> execute(String sqlFileName, SpadeSnapshot spadeSnapshot, long projectId) {
+        BiFunction<SpadeSnapshot, ProjectSnapshot, List<ResultTable>> query = QUERIES.get(sqlFileName);
+        if (query == null) {
+            throw new IllegalArgumentException("Sql file " + sqlFileName + " cannot be evaluated on snapshot");
+        }
+        return query.apply(spadeSnapshot, spadeSnapshot.getProject(projectId));
+    }
+
+    /**
+     * too_long_sprint.sql and varying_sprint_length.sql: lengths of iterations ordered by name
+     * without the first and the last iteration.
+     */
+    private static List<ResultTable> iterationLengths(SpadeSnapshot spadeSnapshot, ProjectSnapshot project) {
+        ResultTable.Builder iterationLengths = ResultTable.builder(ITERATION_LENGTH);
+        if (project.iterationCount > 0) {
+            long firstIterationId = project.iterationIds[project.iterationsByName[0]];
+            long lastIterationId = project.iterationIds[project.iterationsByName[project.iterationCount - 1]];
+            for (int i : project.iterationsByName) {
+                if (project.iterationIds[i] != firstIterationId && project.iterationIds[i] != lastIterationId) {
+                    iterationLengths.addRow(dateDiff(project.iterationEnds[i], project.iterationStarts[i]));
+                }
+            }
+        }
+        return List.of(iterationLengths.build());
+    }
+
+    private static List<ResultTable> businessAsUsual(SpadeSnapshot spadeSnapshot, ProjectSnapshot project) {
+        int iterations = 0;
+        for (int i = 0; i < project.iterationCount; i++) {
+            if ((project.iterationFlags[i] & SpadeKeywords.ITERATION_NAMED_ITERATION) != 0) {
+                iterations++;
+            }
+        }
+
+        // retrospective activities grouped by iteration, the first name of group is returned as database does
+        Map<String, String> groupNames = new LinkedHashMap<>();
+        Map<String, Integer> groupCounts = new HashMap<>();
+        for (int w = 0; w < project.workUnitCount; w++) {
+            if ((project.workUnitFlags[w] & SpadeKeywords.WORK_UNIT_RETROSPECTIVE) != 0) {
+                groupNames.putIfAbsent(project.workUnitIterationKeys[w], project.workUnitIterationNames[w]);
+                groupCounts.merge(project.workUnitIterationKeys[w], 1, Integer::sum);
+            }
+        }
+        ResultTable.Builder activities = ResultTable.builder(ITERATION_NAME, NUMBER_OF_ISSUES);
+        for (Map.Entry<String, String> group : groupNames.entrySet()) {
+            activities.addRow(group.getValue(), groupCounts.get(group.getKey()));
+        }
+
+        // retrospective wiki pages changed within iteration
+        int retrospectivePage = SpadeKeywords.ARTIFACT_WIKI_PAGE | SpadeKeywords.ARTIFACT_RETROSPECTIVE;
+        ResultTable.Builder wikiPages = ResultTable.builder(ITERATION_NAME, NUMBER_OF_WIKI_PAGES);
+        for (int i : project.iterationsByName) {
+            boolean changed = false;
+            Set<String> names = new HashSet<>();
+            for (int a = 0; a < project.artifactCount; a++) {
+                if ((project.artifactFlags[a] & retrospectivePage) == retrospectivePage
+                        && latestBetween(project.artifactChanges, project.artifactChangeOffsets[a], project.artifactChangeOffsets[a + 1],
+                        project.iterationStarts[i], project.iterationEnds[i]) != NULL_TIME) {
+                    changed = true;
+                    if (project.artifactNameKeys[a] != null) {
+                        names.add(project.artifactNameKeys[a]);
+                    }
+                }
+            }
+            if (changed) {
+                wikiPages.addRow(project.iterationNames[i], names.size());
+            }
+        }
+
+        return List.of(ResultTable.builder(NUMBER_OF_ITERATIONS).addRow(iterations).build(), activities.build(), wikiPages.build());
+    }
+
+    private static List<ResultTable> longOrNonExistentFeedbackLoops(SpadeSnapshot spadeSnapshot, ProjectSnapshot project) {
+        List<ResultTable> results = new ArrayList<>();
+        results.add(ResultTable.builder(NUMBER_OF_ITERATIONS).addRow(project.iterationCount).build());
+
+        long lengthSum = 0;
+        int lengthCount = 0;
+        for (int i = 0; i < project.iterationCount; i++) {
+            Long length = dateDiff(project.iterationEnds[i], project.iterationStarts[i]);
+            if (length != null) {
+                lengthSum += Math.abs(length);
+                lengthCount++;
+            }
+        }
+        results.add(ResultTable.builder(AVERAGE_ITERATION_LENGTH)
+                .addRow(lengthCount == 0 ? null : (double) lengthSum / lengthCount).build());
+
+        // count(*) over () returns number of groups in every row of the result
+        Set<String> iterationsWithFeedback = new HashSet<>();
+        List<Integer> feedbackActivities = new ArrayList<>();
+        for (int w = 0; w < project.workUnitCount; w++) {
+            if ((project.workUnitFlags[w] & SpadeKeywords.WORK_UNIT_FEEDBACK) != 0) {
+                iterationsWithFeedback.add(project.workUnitIterationKeys[w]);
+                if (project.workUnitChangeOffsets[w] < project.workUnitChangeOffsets[w + 1]) {
+                    feedbackActivities.add(w);
+                }
+            }
+        }
+        ResultTable.Builder iterationCounts = ResultTable.builder(TOTAL_COUNT_OF_ITERATIONS_WITH_FEEDBACK_ACTIVITY);
+        for (int i = 0; i < iterationsWithFeedback.size(); i++) {
+            iterationCounts.addRow(iterationsWithFeedback.size());
+        }
+        results.add(iterationCounts.build());
+
+        // activities are ordered by their first change, database orders group by the first joined row
+        feedbackActivities.sort(Comparator.comparingLong(w -> firstChange(project, w)));
+        ResultTable.Builder activities = ResultTable.builder(ID, ITERATION_NAME, NAME, END_DATE);
+        for (int w : feedbackActivities) {
+            long lastChange = project.workUnitChanges[project.workUnitChangeOffsets[w + 1] - 1];
+            activities.addRow(project.workUnitIds[w], project.workUnitIterationNames[w], project.workUnitNames[w], toDate(lastChange));
+        }
+        results.add(activities.build());
+
+        ResultTable.Builder projectStart = ResultTable.builder(PROJECT_START_DATE);
+        ResultTable.Builder projectEnd = ResultTable.builder(PROJECT_END_DATE);
+        if (project.iterationCount > 0) {
+            long end = NULL_TIME;
+            for (int i = 0; i < project.iterationCount; i++) {
+                end = Math.max(end, project.iterationEnds[i]);
+            }
+            projectStart.addRow(toDate(project.iterationStarts[project.iterationsByStart[0]]));
+            projectEnd.addRow(toDate(end));
+        }
+        results.add(projectStart.build());
+        results.add(projectEnd.build());
+
+        // precedence of and/or in the sql makes all customer name conditions except the first one
+        // independent of project, class and length of change, snapshot keeps the same semantics
+        Map<String, String> groupNames = new TreeMap<>();
+        Map<String, Long> appointments = new HashMap<>();
+        long[] customerMeetingChanges = spadeSnapshot.getCustomerMeetingChanges();
+        for (int i : project.iterationsByName) {
+            long appointment = Math.max(
+                    latestBetween(project.meetingRecordChanges, 0, project.meetingRecordChanges.length,
+                            project.iterationStarts[i], project.iterationEnds[i]),
+                    latestBetween(customerMeetingChanges, 0, customerMeetingChanges.length,
+                            project.iterationStarts[i], project.iterationEnds[i]));
+            if (appointment != NULL_TIME && project.iterationKeys[i] != null) {
+                groupNames.putIfAbsent(project.iterationKeys[i], project.iterationNames[i]);
+                appointments.merge(project.iterationKeys[i], appointment, Math::max);
+            }
+        }
+        ResultTable.Builder wikiPages = ResultTable.builder(ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE);
+        for (Map.Entry<String, String> group : groupNames.entrySet()) {
+            wikiPages.addRow(group.getValue(), toDate(appointments.get(group.getKey())));
+        }
+        results.add(wikiPages.build());
+        return results;
+    }
+
+    private static List<ResultTable> ninetyNinetyRule(SpadeSnapshot spadeSnapshot, ProjectSnapshot project) {
+        Map<String, String> groupNames = new TreeMap<>();
+        Map<String, double[]> groupSums = new HashMap<>();
+        for (int w = 0; w < project.workUnitCount; w++) {
+            String key = project.workUnitIterationKeys[w];
+            if (key == null) {
+                continue;
+            }
+            groupNames.putIfAbsent(key, project.workUnitIterationNames[w]);
+            // sums of estimated and spent time, NaN until some value is not null
+            double[] sums = groupSums.computeIfAbsent(key, k -> new double[]{Double.NaN, Double.NaN});
+            sums[0] = addNullable(sums[0], project.estimatedTimes[w]);
+            sums[1] = addNullable(sums[1], project.spentTimes[w]);
+        }
+
+        ResultTable.Builder divisions = ResultTable.builder(ITERATION_NAME, ESTIMATED_TIME, SPENT_TIME, TIME_DIVISION, DEVIATION);
+        for (Map.Entry<String, String> group : groupNames.entrySet()) {
+            double[] sums = groupSums.get(group.getKey());
+            // division by zero is null in database
+            Double timeDivision = Double.isNaN(sums[0]) || Double.isNaN(sums[1]) || sums[0] == 0 ? null : sums[1] / sums[0];
+            divisions.addRow(group.getValue(), nullable(sums[0]), nullable(sums[1]), timeDivision,
+                    timeDivision == null ? null : Math.abs(1 - timeDivision));
+        }
+        return List.of(divisions.build());
+    }
+
+    private static List<ResultTable> roadToNowhere(SpadeSnapshot spadeSnapshot, ProjectSnapshot project) {
+        long firstIterationStart = project.iterationCount > 0 ? project.iterationStarts[project.iterationsByStart[0]] : NULL_TIME;
+        long secondIterationStart = project.iterationCount > 1 ? project.iterationStarts[project.iterationsByStart[1]] : NULL_TIME;
+
+        int issues = 0;
+        for (int w = 0; w < project.workUnitCount; w++) {
+            long iterationStart = project.workUnitIterationStarts[w];
+            if ((project.workUnitFlags[w] & SpadeKeywords.WORK_UNIT_PROJECT_PLAN) != 0 && iterationStart != NULL_TIME
+                    && (iterationStart == firstIterationStart || iterationStart == secondIterationStart)) {
+                issues++;
+            }
+        }
+        int projectPlanPage = SpadeKeywords.ARTIFACT_WIKI_PAGE | SpadeKeywords.ARTIFACT_PROJECT_PLAN;
+        int wikiPages = 0;
+        for (int a = 0; a < project.artifactCount; a++) {
+            if ((project.artifactFlags[a] & projectPlanPage) == projectPlanPage) {
+                wikiPages++;
+            }
+        }
+
+        return List.of(ResultTable.builder(PROJECT_ID, NUMBER_OF_ISSUES_FOR_PROJECT_PLAN, NUMBER_OF_WIKI_PAGES_FOR_PROJECT_PLAN)
+                .addRow(project.projectId, issues, wikiPages).build());
+    }
+
+    private static List<ResultTable> specifyNothing(SpadeSnapshot spadeSnapshot, ProjectSnapshot project) {
+        int specificationPage = SpadeKeywords.ARTIFACT_WIKI_PAGE | SpadeKeywords.ARTIFACT_SPECIFICATION;
+        int wikiPages = 0;
+        for (int a = 0; a < project.artifactCount; a++) {
+            if ((project.artifactFlags[a] & specificationPage) == specificationPage && project.artifactNameKeys[a] != null) {
+                wikiPages++;
+            }
+        }
+
+        int activities = 0;
+        long descriptionLengthSum = 0;
+        int descriptions = 0;
+        for (int w = 0; w < project.workUnitCount; w++) {
+            if ((project.workUnitFlags[w] & SpadeKeywords.WORK_UNIT_SPECIFICATION) != 0) {
+                activities++;
+            }
+            if (project.descriptionLengths[w] >= 0) {
+                descriptionLengthSum += project.descriptionLengths[w];
+                descriptions++;
+            }
+        }
+
+        return List.of(ResultTable.builder(PROJECT_ID, NUMBER_OF_WIKI_PAGES, NUMBER_OF_ACTIVITIES_FOR_SPECIFICATION,
+                AVERAGE_LENGTH_OF_ISSUE_DESCRIPTION)
+                .addRow(project.projectId, wikiPages, activities,
+                        descriptions == 0 ? null : (double) descriptionLengthSum / descriptions).build());
+    }
+
+    /**
+     * Returns time of the first known change of work unit, unknown times are sorted first.
+     */
+    private static long firstChange(ProjectSnapshot project, int workUnit) {
+        int to = project.workUnitChangeOffsets[workUnit + 1];
+        int from = project.workUnitChangeOffsets[workUnit];
+        int firstKnown = Arrays.binarySearch(project.workUnitChanges, from, to, NULL_TIME + 1);
+        firstKnown = firstKnown >= 0 ? firstKnown : -firstKnown - 1;
+        return firstKnown < to ? project.workUnitChanges[firstKnown] : NULL_TIME;
+    }
+
+    private static Long dateDiff(long end, long start) {
+        return end == NULL_TIME || start == NULL_TIME ? null : epochDay(end) - epochDay(start);
+    }
+
+    private static LocalDate toDate(long time) {
+        return time == NULL_TIME ? null : LocalDate.ofEpochDay(epochDay(time));
+    }
+
+    private static double addNullable(double sum, double value) {
+        if (Double.isNaN(value)) {
+            return sum;
+        }
+        return Double.isNaN(sum) ? value : sum + value;
+    }
+
+    private static Double nullable(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,67 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot;
+
+import java.util.Map;
+
+/**
+ * Immutable in-memory copy of SPADE tables read by detectors, partitioned by project.
+ * Snapshot is loaded by {@link SpadeSnapshotLoader} and shared by all analyses until it is
+ * replaced by newer snapshot.
+ *
+ * loadedAt: time when loading of the snapshot has started
+ * projects: data of projects by their ids
+ * customerMeetingChanges: sorted times of changes of artifacts of all projects which name mentions
+ * meeting with customer, see {@link SnapshotQueries}
+ */
+public final class SpadeSnapshot {
+
+    private final long loadedAt;
+    private final Map<Long, ProjectSnapshot> projects;
+    private final long[] customerMeetingChanges;
+    private final int rowCount;
+
+    SpadeSnapshot(long loadedAt, Map<Long, ProjectSnapshot> projects, long[] customerMeetingChanges, int rowCount) {
+        this.loadedAt = loadedAt;
+        this.projects = projects;
+        this.customerMeetingChanges = customerMeetingChanges;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Returns data of project, project without any rows in SPADE tables has empty data.
+     *
+     * @param projectId id of project
+     * @return data of the project
+     */
+    ProjectSnapshot getProject(long projectId) {
+        ProjectSnapshot projectSnapshot = projects.get(projectId);
+        return projectSnapshot != null ? projectSnapshot : ProjectSnapshot.empty(projectId);
+    }
+
+    long[] getCustomerMeetingChanges() {
+        return customerMeetingChanges;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int getProjectCount() {
+        return projects.size();
+    }
+
+    /**
+     * Returns number of rows read from all tables.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SpadeSnapshot{" +
+                "loadedAt=" + loadedAt +
+                ", projects=" + projects.size() +
+                ", rowCount=" + rowCount +
+                '}';
+    }
+}
@@ -0,0 +1,138 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords.LikePattern;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords.SpadeKeywords;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads tables iteration, workUnitView, artifactView and fieldChangeView into {@link SpadeSnapshot}.
+ * Every table is read by one select, so loading takes four round trips regardless of number of projects.
+ * Only columns needed by detectors are read, texts are reduced to flags of {@link SpadeKeywords}.
+ */
+class SpadeSnapshotLoader {
+
+    private static final String CHANGES = "select itemId, created, length(newValue) > length(oldValue) from fieldChangeView";
+    private static final String ITERATIONS = "select id, name, superProjectId, startDate, endDate from iteration";
+    private static final String WORK_UNITS = "select id, name, description, projectId, iterationName, iterationStartDate, "
+            + "estimatedTime, spentTime from workUnitView";
+    private static final String ARTIFACTS = "select id, name, description, projectId, artifactClass from artifactView";
+
+    // hint for drivers which read rows of large tables in chunks
+    private static final int FETCH_SIZE = 10000;
+
+    private final Map<Long, ProjectSnapshot.Builder> builders = new HashMap<>();
+    private final Map<Long, ProjectSnapshot.Changes> changesByItem = new HashMap<>();
+    private int rowCount;
+
+    /**
+     * Loads snapshot of all projects.
+     *
+     * @param connection connection to SPADE database
+     * @return loaded snapshot
+     * @throws SQLException if reading of some table fails
+     */
+    SpadeSnapshot load(Connection connection) throws SQLException {
+        long loadedAt = System.currentTimeMillis();
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(FETCH_SIZE);
+            readChanges(statement);
+            readIterations(statement);
+            readWorkUnits(statement);
+            long[] customerMeetingChanges = readArtifacts(statement);
+
+            Map<Long, ProjectSnapshot> projects = new HashMap<>();
+            for (Map.Entry<Long, ProjectSnapshot.Builder> entry : builders.entrySet()) {
+                projects.put(entry.getKey(), entry.getValue().build(changesByItem));
+            }
+            return new SpadeSnapshot(loadedAt, projects, customerMeetingChanges, rowCount);
+        }
+    }
+
+    private void readChanges(Statement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(CHANGES)) {
+            while (resultSet.next()) {
+                changesByItem.computeIfAbsent(resultSet.getLong(1), itemId -> new ProjectSnapshot.Changes())
+                        .add(readTime(resultSet, 2), resultSet.getBoolean(3));
+                rowCount++;
+            }
+        }
+    }
+
+    private void readIterations(Statement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(ITERATIONS)) {
+            while (resultSet.next()) {
+                getBuilder(resultSet.getLong(3)).addIteration(resultSet.getLong(1), resultSet.getString(2),
+                        readTime(resultSet, 4), readTime(resultSet, 5));
+                rowCount++;
+            }
+        }
+    }
+
+    private void readWorkUnits(Statement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(WORK_UNITS)) {
+            while (resultSet.next()) {
+                String name = resultSet.getString(2);
+                String description = resultSet.getString(3);
+                int flags = SpadeKeywords.workUnitFlags(LikePattern.normalize(name), LikePattern.normalize(description));
+                getBuilder(resultSet.getLong(4)).addWorkUnit(resultSet.getLong(1), name, resultSet.getString(5),
+                        readTime(resultSet, 6), readDouble(resultSet, 7), readDouble(resultSet, 8),
+                        description == null ? -1 : description.codePointCount(0, description.length()), flags);
+                rowCount++;
+            }
+        }
+    }
+
+    /**
+     * Reads artifacts and returns sorted times of changes of artifacts which name mentions meeting with customer.
+     */
+    private long[] readArtifacts(Statement statement) throws SQLException {
+        long[] customerMeetingChanges = new long[16];
+        int customerMeetingChangeCount = 0;
+        try (ResultSet resultSet = statement.executeQuery(ARTIFACTS)) {
+            while (resultSet.next()) {
+                long id = resultSet.getLong(1);
+                String nameKey = LikePattern.normalize(resultSet.getString(2));
+                int flags = SpadeKeywords.artifactFlags(nameKey, LikePattern.normalize(resultSet.getString(3)),
+                        LikePattern.normalize(resultSet.getString(5)));
+                getBuilder(resultSet.getLong(4)).addArtifact(id, nameKey, flags);
+                rowCount++;
+
+                ProjectSnapshot.Changes changes = changesByItem.get(id);
+                if ((flags & SpadeKeywords.ARTIFACT_CUSTOMER_MEETING) != 0 && changes != null) {
+                    for (int c = 0; c < changes.size(); c++) {
+                        if (customerMeetingChangeCount == customerMeetingChanges.length) {
+                            customerMeetingChanges = Arrays.copyOf(customerMeetingChanges, customerMeetingChangeCount * 2);
+                        }
+                        customerMeetingChanges[customerMeetingChangeCount++] = changes.getCreated(c);
+                    }
+                }
+            }
+        }
+        long[] sorted = Arrays.copyOf(customerMeetingChanges, customerMeetingChangeCount);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private ProjectSnapshot.Builder getBuilder(long projectId) {
+        return builders.computeIfAbsent(projectId, ProjectSnapshot.Builder::new);
+    }
+
+    private static long readTime(ResultSet resultSet, int index) throws SQLException {
+        LocalDateTime dateTime = resultSet.getObject(index, LocalDateTime.class);
+        return dateTime == null ? ProjectSnapshot.NULL_TIME : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static double readDouble(ResultSet resultSet, int index) throws SQLException {
+        double value = resultSet.getDouble(index);
+        return resultSet.wasNull() ? Double.NaN : value;
+    }
+}
@@ -0,0 +1,68 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Holds current snapshot of SPADE tables. Snapshot is loaded on first use and loaded again when it
+ * is older than configured maximum age, analyses running meanwhile keep using the previous snapshot.
+ */
+@Component
+public class SpadeSnapshotProvider {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(SpadeSnapshotProvider.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    private volatile SpadeSnapshot spadeSnapshot;
+
+    /**
+     * Returns current snapshot, snapshot is loaded if it is missing or too old.
+     *
+     * @return current snapshot or null if no snapshot could be loaded
+     */
+    public SpadeSnapshot getSnapshot() {
+        SpadeSnapshot current = this.spadeSnapshot;
+        if (current != null && !isExpired(current)) {
+            return current;
+        }
+        synchronized (this) {
+            if (this.spadeSnapshot == null || isExpired(this.spadeSnapshot)) {
+                refresh();
+            }
+            return this.spadeSnapshot;
+        }
+    }
+
+    /**
+     * Loads new snapshot. If loading fails, the previous snapshot is kept.
+     */
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection()) {
+            SpadeSnapshot loaded = new SpadeSnapshotLoader().load(connection);
+            this.spadeSnapshot = loaded;
+            LOGGER.info("Loaded snapshot of " + loaded.getProjectCount() + " projects with " + loaded.getRowCount()
+                    + " rows in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (SQLException e) {
+            LOGGER.error("Cannot load snapshot of SPADE tables");
+            e.printStackTrace();
+        }
+    }
+
+    private boolean isExpired(SpadeSnapshot snapshot) {
+        long maxAge = applicationProperties.getSnapshotMaxAge();
+        return maxAge >= 0 && System.currentTimeMillis() - snapshot.getLoadedAt() > maxAge * 1000;
+    }
+}
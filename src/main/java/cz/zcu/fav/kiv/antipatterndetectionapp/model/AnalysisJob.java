@@ -0,0 +1,133 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Model class for analysis running in background.
+ *
+ * id: identifier of the job
+ * status: current state of the job
+ * totalItems: number of combinations of projects and anti-patterns to analyze
+ * analyzedItems: number of already analyzed combinations
+ * finishedAt: time when the job has finished
+ * queryResults: results of the analysis, available when the job is done
+ */
+public class AnalysisJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final int totalItems;
+    private final AtomicInteger analyzedItems = new AtomicInteger();
+    private final long created = System.currentTimeMillis();
+    private volatile Status status = Status.QUEUED;
+    private volatile long finishedAt;
+    private volatile String errorMessage;
+    private volatile List<QueryResult> queryResults;
+    private volatile Future<?> future;
+    private volatile Consumer<AnalysisJob> finishedCallback;
+
+    public AnalysisJob(String id, int totalItems) {
+        this.id = id;
+        this.totalItems = totalItems;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public synchronized void setStatus(Status status) {
+        if (!isFinished()) {
+            this.status = status;
+        }
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public int getAnalyzedItems() {
+        return analyzedItems.get();
+    }
+
+    public void itemAnalyzed() {
+        analyzedItems.incrementAndGet();
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    @JsonIgnore
+    public List<QueryResult> getQueryResults() {
+        return queryResults;
+    }
+
+    /**
+     * Finishes the job with given status. Job can be finished only once, e.g. results of analysis
+     * which has been already cancelled are ignored.
+     *
+     * @param status       final status of the job
+     * @param queryResults results of the analysis, null if the job is not done
+     * @return true if the job has been finished by this call
+     */
+    public boolean finish(Status status, List<QueryResult> queryResults) {
+        synchronized (this) {
+            if (isFinished()) {
+                return false;
+            }
+            this.queryResults = queryResults;
+            this.finishedAt = System.currentTimeMillis();
+            this.status = status;
+        }
+        if (finishedCallback != null) {
+            finishedCallback.accept(this);
+        }
+        return true;
+    }
+
+    /**
+     * Sets callback which is called once the job is finished.
+     *
+     * @param finishedCallback callback called with finished job
+     */
+    public void setFinishedCallback(Consumer<AnalysisJob> finishedCallback) {
+        this.finishedCallback = finishedCallback;
+    }
+
+    @JsonIgnore
+    public Future<?> getFuture() {
+        return future;
+    }
+
+    public void setFuture(Future<?> future) {
+        this.future = future;
+    }
+}
@@ -0,0 +1,88 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable configuration values of all anti-patterns. Every change of configuration creates
+ * new snapshot with higher version, so analysis which reads one snapshot sees the same
+ * values for its whole run, no matter how the configuration is changed meanwhile.
+ */
+public final class ConfigurationSnapshot {
+
+    private final long version;
+    // values by anti-pattern id and configuration name, names are sorted
+    private final Map<Long, Map<String, Object>> values;
+
+    public ConfigurationSnapshot(long version, Map<Long, Map<String, Object>> values) {
+        this.version = version;
+        Map<Long, Map<String, Object>> copy = new HashMap<>();
+        for (Map.Entry<Long, Map<String, Object>> entry : values.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableMap(new TreeMap<>(entry.getValue())));
+        }
+        this.values = Collections.unmodifiableMap(copy);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns configuration value of anti-pattern.
+     *
+     * @param antiPatternId id of anti-pattern
+     * @param name          name of configuration
+     * @return value or null if the anti-pattern does not have such configuration
+     */
+    public Object getValue(Long antiPatternId, String name) {
+        return getValues(antiPatternId).get(name);
+    }
+
+    /**
+     * Returns all configuration values of anti-pattern.
+     *
+     * @param antiPatternId id of anti-pattern
+     * @return unmodifiable values by configuration name, empty if anti-pattern has no configuration
+     */
+    public Map<String, Object> getValues(Long antiPatternId) {
+        return values.getOrDefault(antiPatternId, Collections.emptyMap());
+    }
+
+    /**
+     * Parses configuration value from text, parsed value has the same type as the given value.
+     *
+     * @param currentValue value which type is used
+     * @param text         text of new value
+     * @return parsed value, null if type of current value is not supported
+     * @throws NumberFormatException if text is not in correct format
+     */
+    public static Object parseValue(Object currentValue, String text) {
+        if (currentValue.getClass() == Integer.class) {
+            return Integer.parseInt(text);
+        } else if (currentValue.getClass() == Float.class) {
+            return Float.parseFloat(text);
+        } else if (currentValue.getClass() == Double.class) {
+            return Double.parseDouble(text);
+        }
+        return null;
+    }
+
+    /**
+     * Creates next version of the snapshot with changed values, this snapshot is not modified.
+     *
+     * @param changes changed values by anti-pattern id and configuration name
+     * @return new snapshot
+     */
+    public ConfigurationSnapshot withValues(Map<Long, Map<String, Object>> changes) {
+        Map<Long, Map<String, Object>> newValues = new HashMap<>();
+        for (Map.Entry<Long, Map<String, Object>> entry : this.values.entrySet()) {
+            newValues.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        }
+        for (Map.Entry<Long, Map<String, Object>> entry : changes.entrySet()) {
+            newValues.computeIfAbsent(entry.getKey(), id -> new HashMap<>()).putAll(entry.getValue());
+        }
+        return new ConfigurationSnapshot(this.version + 1, newValues);
+    }
+}
@@ -1,5 +1,6 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -8,11 +9,13 @@ import java.util.List;
  * antiPattern: info about anti-pattern
  * isDetected: is anti-pattern detected (true = detected, false = not detected)
  * resultDetails: details about detection of anti-pattern
+ * configurationVersion: version of configuration the detection was computed with
  */
 public class QueryResultItem {
     private AntiPattern antiPattern;
     private boolean isDetected;
     private List<ResultDetail> resultDetails;
+    private long configurationVersion;
 
     public QueryResultItem() {
     }
@@ -47,6 +50,28 @@ public class QueryResultItem {
         this.resultDetails = resultDetails;
     }
 
+    public long getConfigurationVersion() {
+        return configurationVersion;
+    }
+
+    public void setConfigurationVersion(long configurationVersion) {
+        this.configurationVersion = configurationVersion;
+    }
+
+    /**
+     * Creates copy of the result recorded with the given version of configuration. Cached results
+     * are shared by analyses with different configuration versions, so each analysis gets its own copy.
+     *
+     * @param configurationVersion version of configuration pinned by the analysis
+     * @return new result with the same anti-pattern, outcome and details
+     */
+    public QueryResultItem withConfigurationVersion(long configurationVersion) {
+        QueryResultItem queryResultItem = new QueryResultItem(antiPattern, isDetected,
+                resultDetails != null ? new ArrayList<>(resultDetails) : null);
+        queryResultItem.setConfigurationVersion(configurationVersion);
+        return queryResultItem;
+    }
+
     public String resultDetailsToString() {
         StringBuilder result = new StringBuilder();
         for (ResultDetail resultDetails :
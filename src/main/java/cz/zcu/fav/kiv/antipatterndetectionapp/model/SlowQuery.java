@@ -0,0 +1,80 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Model class for sql statement which took longer than threshold of slow query log.
+ *
+ * created: time when the statement has finished
+ * queryName: name of sql file with the statement
+ * sql: executed sql
+ * projectIds: ids of projects bound to parameters of the statement
+ * durationMillis: duration of the statement including reading of its result
+ * explainColumns: columns of EXPLAIN output
+ * explainRows: rows of EXPLAIN output
+ * explainError: reason why EXPLAIN output is missing, null if it has been captured
+ */
+public class SlowQuery {
+
+    private final long created = System.currentTimeMillis();
+    private final String queryName;
+    private final String sql;
+    private final String projectIds;
+    private final double durationMillis;
+    private final List<String> explainColumns;
+    private final List<List<String>> explainRows;
+    private final String explainError;
+
+    public SlowQuery(String queryName, String sql, String projectIds, double durationMillis,
+                     List<String> explainColumns, List<List<String>> explainRows, String explainError) {
+        this.queryName = queryName;
+        this.sql = sql;
+        this.projectIds = projectIds;
+        this.durationMillis = durationMillis;
+        this.explainColumns = explainColumns == null ? Collections.emptyList() : explainColumns;
+        this.explainRows = explainRows == null ? Collections.emptyList() : explainRows;
+        this.explainError = explainError;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public String getQueryName() {
+        return queryName;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getProjectIds() {
+        return projectIds;
+    }
+
+    public double getDurationMillis() {
+        return durationMillis;
+    }
+
+    public List<String> getExplainColumns() {
+        return explainColumns;
+    }
+
+    public List<List<String>> getExplainRows() {
+        return explainRows;
+    }
+
+    public String getExplainError() {
+        return explainError;
+    }
+
+    @Override
+    public String toString() {
+        return "SlowQuery{" +
+                "queryName='" + queryName + '\'' +
+                ", projectIds='" + projectIds + '\'' +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model class for outcome of one combination of thresholds evaluated by threshold sweep.
+ *
+ * values: configuration values of the combination, other values are taken from current configuration
+ * projectCount: number of evaluated projects
+ * detectedProjects: ids of projects where the anti-pattern has been detected
+ */
+public class ThresholdSweepResult {
+
+    private final Map<String, Object> values;
+    private final int projectCount;
+    private final List<Long> detectedProjects;
+
+    public ThresholdSweepResult(Map<String, Object> values, int projectCount, List<Long> detectedProjects) {
+        this.values = values;
+        this.projectCount = projectCount;
+        this.detectedProjects = detectedProjects;
+    }
+
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    public int getProjectCount() {
+        return projectCount;
+    }
+
+    public int getDetectedCount() {
+        return detectedProjects.size();
+    }
+
+    public List<Long> getDetectedProjects() {
+        return detectedProjects;
+    }
+}
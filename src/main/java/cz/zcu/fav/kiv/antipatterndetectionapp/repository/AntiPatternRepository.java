@@ -1,19 +1,26 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.repository;
 
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorQueryPlans;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlan;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryPlanCompiler;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryResultItemCache;
 import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
-import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StopWatch;
 import org.springframework.web.context.ServletContextAware;
 
 import javax.servlet.ServletContext;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.lang.reflect.InvocationTargetException;
-import java.net.URL;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class AntiPatternRepository implements ServletContextAware {
@@ -21,26 +28,52 @@ public class AntiPatternRepository implements ServletContextAware {
     private final Logger LOGGER = LoggerFactory.getLogger(AntiPatternRepository.class);
 
     private ServletContext servletContext;
-    private Map<Long, AntiPatternDetector> antiPatternDetectors = init();
+    private final Map<Long, AntiPatternDetector> antiPatternDetectors;
+    // set-based queries for analysis of several projects at once, not every detector has them
+    private final Map<Long, QueryPlan> batchQueryPlans = new ConcurrentHashMap<>();
+    // queries reading summary tables instead of raw data, not every detector has them
+    private final Map<Long, QueryPlan> summaryQueryPlans = new ConcurrentHashMap<>();
+    // number of reloads of sql files by anti-pattern id, guarded by this
+    private final Map<Long, Long> queryPlanGenerations = new HashMap<>();
+    // timing of repository initialization reported when sql files are loaded
+    private final StopWatch startupStopWatch = new StopWatch("AntiPatternRepository");
+
+    @Autowired
+    private QueryResultItemCache queryResultItemCache;
+
+    // subdirectories of directory queries
+    static final String BATCH_DIR = "batch";
+    static final String SUMMARY_DIR = "summary";
 
     private static final String QUERY_DIR = "/queries/" ;
+    private static final String BATCH_QUERY_DIR = QUERY_DIR + BATCH_DIR + "/";
+    private static final String SUMMARY_QUERY_DIR = QUERY_DIR + SUMMARY_DIR + "/";
 
-    private Map<Long, AntiPatternDetector> init() {
-        LOGGER.info("-------START CREATING DETECTORS WITH REFLECTION-------");
+    /**
+     * Detectors are Spring beans found by component scan, which uses index of components
+     * generated at build time instead of scanning the classpath.
+     *
+     * @param antiPatternDetectors all detector beans
+     */
+    @Autowired
+    public AntiPatternRepository(List<AntiPatternDetector> antiPatternDetectors) {
+        this.antiPatternDetectors = init(antiPatternDetectors);
+    }
+
+    private Map<Long, AntiPatternDetector> init(List<AntiPatternDetector> detectors) {
+        startupStopWatch.start("Registering detectors");
+        LOGGER.info("-------START REGISTERING DETECTORS-------");
         Map<Long, AntiPatternDetector> antiPatterns = new HashMap<>();
-        try {
-            Reflections reflections = new Reflections("cz.zcu.fav.kiv.antipatterndetectionapp");
-            Set<Class<? extends AntiPatternDetector>> subTypes = reflections.getSubTypesOf(AntiPatternDetector.class);
-            for (Class<? extends AntiPatternDetector> subType : subTypes) {
-                AntiPatternDetector antiPatternDetector = subType.getDeclaredConstructor().newInstance();
-                antiPatterns.putIfAbsent(antiPatternDetector.getAntiPatternModel().getId(), antiPatternDetector);
-                LOGGER.info("Creating detector " + antiPatternDetector.getAntiPatternModel().getPrintName());
+        for (AntiPatternDetector antiPatternDetector : detectors) {
+            if (antiPatterns.putIfAbsent(antiPatternDetector.getAntiPatternModel().getId(), antiPatternDetector) != null) {
+                LOGGER.warn("Detector " + antiPatternDetector.getClass().getName() + " has duplicate id "
+                        + antiPatternDetector.getAntiPatternModel().getId() + " and is ignored");
+                continue;
             }
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException | InstantiationException e) {
-            e.printStackTrace();
-            LOGGER.error("Cannot get all detectors with reflection", e);
+            LOGGER.info("Registering detector " + antiPatternDetector.getAntiPatternModel().getPrintName());
         }
-        LOGGER.info("-------FINISHED CREATING DETECTORS WITH REFLECTION-------");
+        LOGGER.info("-------FINISHED REGISTERING DETECTORS-------");
+        startupStopWatch.stop();
         return antiPatterns;
     }
 
@@ -52,35 +85,185 @@ public class AntiPatternRepository implements ServletContextAware {
         return this.antiPatternDetectors.getOrDefault(id, null);
     }
 
+    /**
+     * Returns all query plans of the detector at once, so they cannot be mixed with plans
+     * reloaded between reading one and another.
+     *
+     * @param id id of anti-pattern
+     * @return current plans of the detector
+     */
+    public synchronized DetectorQueryPlans getQueryPlans(Long id) {
+        return new DetectorQueryPlans(this.antiPatternDetectors.get(id).getQueryPlan(), this.batchQueryPlans.get(id),
+                this.summaryQueryPlans.get(id), this.queryPlanGenerations.getOrDefault(id, 0L));
+    }
+
     @Override
     public void setServletContext(ServletContext servletContext) {
         this.servletContext = servletContext;
+        startupStopWatch.start("Compiling sql files");
         LOGGER.info("-------START READING SQL FROM FILES-------");
         for (AntiPatternDetector antiPatternDetector : getAllAntiPatterns()) {
             LOGGER.info("Reading sql from file " + antiPatternDetector.getAntiPatternSqlFileName());
-            antiPatternDetector.setSqlQueries(loadSqlFile(antiPatternDetector.getAntiPatternSqlFileName()));
+            antiPatternDetector.setQueryPlan(loadSqlFile(QUERY_DIR, antiPatternDetector.getAntiPatternSqlFileName()));
+            if (hasSqlFile(BATCH_QUERY_DIR, antiPatternDetector.getAntiPatternSqlFileName())) {
+                LOGGER.info("Reading set-based sql from file " + antiPatternDetector.getAntiPatternSqlFileName());
+                this.batchQueryPlans.put(antiPatternDetector.getAntiPatternModel().getId(),
+                        loadSqlFile(BATCH_QUERY_DIR, antiPatternDetector.getAntiPatternSqlFileName()));
+            }
+            if (hasSqlFile(SUMMARY_QUERY_DIR, antiPatternDetector.getAntiPatternSqlFileName())) {
+                loadSummarySqlFile(antiPatternDetector);
+            }
         }
         LOGGER.info("-------FINISHED READING SQL FROM FILES-------");
+        startupStopWatch.stop();
+        LOGGER.info(startupStopWatch.prettyPrint());
     }
 
-    private List<String> loadSqlFile(String fileName) {
-        List<String> queries = new ArrayList<>();
+    /**
+     * Reads changed sql file again and replaces plan of the detector which uses the file.
+     * New plan is used by analyses which read plans of the detector after the replacement,
+     * see {@link #getQueryPlans(Long)}. Cached results of the detector are removed and results
+     * of analyses still running with older plans are not cached any more. Previous plan is kept
+     * if the new file cannot be compiled or it does not return columns returned by the previous plan.
+     * Summary queries are checked against the current plan of the detector instead, and when plan
+     * of the detector is replaced, its summary queries are dropped if they do not match the new plan.
+     *
+     * @param file      changed sql file
+     * @param directory subdirectory of directory queries containing the file, empty for the directory itself
+     * @return true if plan has been replaced
+     */
+    public synchronized boolean reloadSqlFile(Path file, String directory) {
+        boolean batch = directory.equals(BATCH_DIR);
+        boolean summary = directory.equals(SUMMARY_DIR);
+        if (!batch && !summary && !directory.isEmpty()) {
+            LOGGER.debug("Sql files in directory " + directory + " are not reloaded");
+            return false;
+        }
+        String fileName = file.getFileName().toString();
+        AntiPatternDetector antiPatternDetector = getAntiPatternBySqlFileName(fileName);
+        if (antiPatternDetector == null) {
+            LOGGER.debug("Sql file " + fileName + " is not used by any detector");
+            return false;
+        }
+        Long id = antiPatternDetector.getAntiPatternModel().getId();
 
+        QueryPlan queryPlan;
         try {
-            URL test = servletContext.getResource(QUERY_DIR + fileName);
-            BufferedReader read = new BufferedReader(
-                    new InputStreamReader(test.openStream()));
-            String line;
-            while ((line = read.readLine()) != null) {
-                if (line.startsWith("select") || line.startsWith("set") && line.charAt(line.length()-1) == ';') {
-                    queries.add(line);
+            queryPlan = QueryPlanCompiler.compile(directory.isEmpty() ? fileName : directory + "/" + fileName,
+                    new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Cannot reload sql from file " + file + ", previous version is kept", e);
+            return false;
+        }
+        // summary queries replace queries of the detector, so they must return the same columns
+        QueryPlan previousQueryPlan = batch ? this.batchQueryPlans.get(id) : antiPatternDetector.getQueryPlan();
+        String error = validate(previousQueryPlan, queryPlan);
+        if (error != null) {
+            LOGGER.warn("Sql file " + file + " is not valid, previous version is kept: " + error);
+            return false;
+        }
+
+        if (batch) {
+            this.batchQueryPlans.put(id, queryPlan);
+        } else if (summary) {
+            this.summaryQueryPlans.put(id, queryPlan);
+        } else {
+            antiPatternDetector.setQueryPlan(queryPlan);
+            QueryPlan summaryQueryPlan = this.summaryQueryPlans.get(id);
+            String summaryError = summaryQueryPlan != null ? validate(queryPlan, summaryQueryPlan) : null;
+            if (summaryError != null) {
+                this.summaryQueryPlans.remove(id);
+                LOGGER.warn("Summary sql file " + fileName + " does not match reloaded sql file and is ignored: " + summaryError);
+            }
+        }
+        // results of the detector were computed by previous queries
+        long generation = this.queryPlanGenerations.merge(id, 1L, Long::sum);
+        queryResultItemCache.invalidate(id, generation);
+        LOGGER.info("Reloaded " + queryPlan);
+        return true;
+    }
+
+    /**
+     * Reads queries of the detector which read summary tables. Queries are used only if they
+     * return the same selects and columns as the queries of the detector.
+     */
+    private void loadSummarySqlFile(AntiPatternDetector antiPatternDetector) {
+        LOGGER.info("Reading summary sql from file " + antiPatternDetector.getAntiPatternSqlFileName());
+        QueryPlan queryPlan = loadSqlFile(SUMMARY_QUERY_DIR, antiPatternDetector.getAntiPatternSqlFileName());
+        String error = validate(antiPatternDetector.getQueryPlan(), queryPlan);
+        if (error != null) {
+            LOGGER.warn("Summary sql file " + antiPatternDetector.getAntiPatternSqlFileName() + " is not valid and is ignored: " + error);
+            return;
+        }
+        this.summaryQueryPlans.put(antiPatternDetector.getAntiPatternModel().getId(), queryPlan);
+    }
+
+    private AntiPatternDetector getAntiPatternBySqlFileName(String fileName) {
+        for (AntiPatternDetector antiPatternDetector : this.antiPatternDetectors.values()) {
+            if (antiPatternDetector.getAntiPatternSqlFileName().equals(fileName)) {
+                return antiPatternDetector;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Detectors read results of selects by their order and column labels, so new plan must have
+     * the same number of selects and every select must return at least the columns returned
+     * by the same select of the previous plan.
+     *
+     * @return description of the problem or null if the new plan is valid
+     */
+    private String validate(QueryPlan previousQueryPlan, QueryPlan queryPlan) {
+        if (queryPlan.getSelectCount() == 0) {
+            return "file does not contain any select";
+        }
+        if (previousQueryPlan == null || previousQueryPlan.getSelectCount() == 0) {
+            return null;
+        }
+        if (previousQueryPlan.getSelectCount() != queryPlan.getSelectCount()) {
+            return "expected " + previousQueryPlan.getSelectCount() + " selects, found " + queryPlan.getSelectCount();
+        }
+        Iterator<QueryPlan.Statement> selects = queryPlan.getStatements().stream().filter(QueryPlan.Statement::isSelect).iterator();
+        for (QueryPlan.Statement previousSelect : previousQueryPlan.getStatements()) {
+            if (!previousSelect.isSelect()) {
+                continue;
+            }
+            QueryPlan.Statement select = selects.next();
+            for (String column : previousSelect.getExpectedColumns()) {
+                if (!select.getExpectedColumns().contains(column)) {
+                    return "column " + column + " is missing in select " + select.getSql();
                 }
             }
-            read.close();
-        } catch (IOException e) {
-            LOGGER.warn("Cannot read sql from file " + fileName, e);
-            return queries;
         }
-        return queries;
+        return null;
+    }
+
+    private boolean hasSqlFile(String directory, String fileName) {
+        try {
+            return servletContext.getResource(directory + fileName) != null;
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads sql file and compiles it into query plan.
+     *
+     * @param directory directory with sql files
+     * @param fileName  name of sql file
+     * @return compiled plan, empty plan if the file cannot be read
+     */
+    private QueryPlan loadSqlFile(String directory, String fileName) {
+        // plans are named by path relative to directory queries, so plans of the same file name are told apart
+        String name = (directory + fileName).substring(QUERY_DIR.length());
+        try (InputStream inputStream = servletContext.getResource(directory + fileName).openStream()) {
+            QueryPlan queryPlan = QueryPlanCompiler.compile(name, new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            LOGGER.info("Compiled " + queryPlan);
+            return queryPlan;
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Cannot read sql from file " + name, e);
+            return QueryPlanCompiler.compile(name, "");
+        }
     }
 }
@@ -0,0 +1,66 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.repository;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Configuration;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.ConfigurationSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds current configuration of anti-patterns. Configurations of detector models keep only
+ * default values, current values are read from {@link ConfigurationSnapshot} which is replaced
+ * as a whole when configuration changes, so readers never need a lock.
+ */
+@Component
+public class ConfigurationRepository {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(ConfigurationRepository.class);
+
+    private final AtomicReference<ConfigurationSnapshot> configurationSnapshot;
+
+    /**
+     * Creates the first version of configuration from default values of detectors.
+     *
+     * @param antiPatternDetectors all detector beans
+     */
+    @Autowired
+    public ConfigurationRepository(List<AntiPatternDetector> antiPatternDetectors) {
+        Map<Long, Map<String, Object>> values = new HashMap<>();
+        for (AntiPatternDetector antiPatternDetector : antiPatternDetectors) {
+            Map<String, Configuration> configurations = antiPatternDetector.getAntiPatternModel().getConfigurations();
+            if (configurations == null) {
+                continue;
+            }
+            Map<String, Object> antiPatternValues = new HashMap<>();
+            for (Map.Entry<String, Configuration> configuration : configurations.entrySet()) {
+                antiPatternValues.put(configuration.getKey(), configuration.getValue().getValue());
+            }
+            values.putIfAbsent(antiPatternDetector.getAntiPatternModel().getId(), antiPatternValues);
+        }
+        this.configurationSnapshot = new AtomicReference<>(new ConfigurationSnapshot(1, values));
+    }
+
+    public ConfigurationSnapshot getSnapshot() {
+        return this.configurationSnapshot.get();
+    }
+
+    /**
+     * Publishes new version of configuration with changed values. Changes are applied to the
+     * latest snapshot even if another change has been published concurrently.
+     *
+     * @param changes changed values by anti-pattern id and configuration name
+     * @return published snapshot
+     */
+    public ConfigurationSnapshot update(Map<Long, Map<String, Object>> changes) {
+        ConfigurationSnapshot updated = this.configurationSnapshot.updateAndGet(snapshot -> snapshot.withValues(changes));
+        LOGGER.info("Published configuration version " + updated.getVersion());
+        return updated;
+    }
+}
@@ -0,0 +1,140 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.repository;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.ServletContextAware;
+
+import javax.servlet.ServletContext;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Watches directory with sql files of detectors and reloads changed files by
+ * {@link AntiPatternRepository#reloadSqlFile(Path, String)}, so queries can be tuned
+ * without redeploying the application. Watching is enabled by property queries.hot-reload.enabled.
+ */
+@Component
+public class SqlFileWatcher implements ServletContextAware, DisposableBean {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(SqlFileWatcher.class);
+
+    // editors usually write file in several steps, events are collected for this time before reload
+    private static final long DEBOUNCE_MILLIS = 200;
+    private static final String SQL_FILE_SUFFIX = ".sql";
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AntiPatternRepository antiPatternRepository;
+
+    private Path queryDir;
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    @Override
+    public void setServletContext(ServletContext servletContext) {
+        if (!applicationProperties.isQueriesHotReloadEnabled()) {
+            return;
+        }
+        String directory = applicationProperties.getQueriesDirectory();
+        if (directory == null || directory.isEmpty()) {
+            directory = servletContext.getRealPath("/queries");
+        }
+        if (directory == null || !Files.isDirectory(Paths.get(directory))) {
+            LOGGER.warn("Directory with sql files " + directory + " not found, hot reload of sql files is disabled");
+            return;
+        }
+
+        Path queryDir = Paths.get(directory);
+        this.queryDir = queryDir;
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            register(queryDir);
+            for (String subdirectory : new String[]{AntiPatternRepository.BATCH_DIR, AntiPatternRepository.SUMMARY_DIR}) {
+                if (Files.isDirectory(queryDir.resolve(subdirectory))) {
+                    register(queryDir.resolve(subdirectory));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot watch directory " + queryDir + ", hot reload of sql files is disabled", e);
+            closeWatchService();
+            return;
+        }
+
+        this.watcherThread = new Thread(this::watch, "sql-file-watcher");
+        this.watcherThread.setDaemon(true);
+        this.watcherThread.start();
+        LOGGER.info("Watching sql files in " + queryDir);
+    }
+
+    private void register(Path directory) throws IOException {
+        directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = this.watchService.take();
+                Thread.sleep(DEBOUNCE_MILLIS);
+                Path directory = (Path) key.watchable();
+                Set<Path> changedFiles = new LinkedHashSet<>();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    Path file = directory.resolve((Path) event.context());
+                    if (file.getFileName().toString().endsWith(SQL_FILE_SUFFIX) && Files.isRegularFile(file)) {
+                        changedFiles.add(file);
+                    }
+                }
+                key.reset();
+
+                String subdirectory = this.queryDir.relativize(directory).toString();
+                for (Path file : changedFiles) {
+                    try {
+                        antiPatternRepository.reloadSqlFile(file, subdirectory);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Reload of sql file " + file + " failed", e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // watcher has been stopped
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (this.watcherThread != null) {
+            this.watcherThread.interrupt();
+        }
+        closeWatchService();
+    }
+
+    private void closeWatchService() {
+        if (this.watchService != null) {
+            try {
+                this.watchService.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.service;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.AnalysisListener;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.AnalysisJob;
+
+import java.util.function.Consumer;
+
+public interface AnalysisJobService {
+
+    AnalysisJob submit(String[] selectedProjects, String[] selectedAntiPatterns);
+
+    AnalysisJob submit(String[] selectedProjects, String[] selectedAntiPatterns,
+                       AnalysisListener analysisListener, Consumer<AnalysisJob> finishedCallback);
+
+    AnalysisJob getJobById(String id);
+
+    AnalysisJob cancel(String id);
+}
@@ -0,0 +1,112 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.service;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.AnalysisListener;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.AntiPatternManager;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.AnalysisJob;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResult;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+@Service
+public class AnalysisJobServiceImpl implements AnalysisJobService {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(AnalysisJobServiceImpl.class);
+
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    private AntiPatternManager antiPatternManager;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    @Qualifier("analysisJobExecutor")
+    private ExecutorService analysisJobExecutor;
+
+    @Override
+    public AnalysisJob submit(String[] selectedProjects, String[] selectedAntiPatterns) {
+        return this.submit(selectedProjects, selectedAntiPatterns, AnalysisListener.NONE, null);
+    }
+
+    @Override
+    public AnalysisJob submit(String[] selectedProjects, String[] selectedAntiPatterns,
+                              AnalysisListener analysisListener, Consumer<AnalysisJob> finishedCallback) {
+        removeExpiredJobs();
+
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString(), selectedProjects.length * selectedAntiPatterns.length);
+        job.setFinishedCallback(finishedCallback);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(analysisJobExecutor.submit(() -> run(job, selectedProjects, selectedAntiPatterns, analysisListener)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    @Override
+    public AnalysisJob getJobById(String id) {
+        return jobs.get(id);
+    }
+
+    @Override
+    public AnalysisJob cancel(String id) {
+        AnalysisJob job = jobs.get(id);
+        if (job != null && job.finish(AnalysisJob.Status.CANCELLED, null)) {
+            if (job.getFuture() != null) {
+                job.getFuture().cancel(true);
+            }
+            LOGGER.info("Analysis job " + id + " has been cancelled");
+        }
+        return job;
+    }
+
+    private void run(AnalysisJob job, String[] selectedProjects, String[] selectedAntiPatterns, AnalysisListener analysisListener) {
+        job.setStatus(AnalysisJob.Status.RUNNING);
+        try {
+            List<QueryResult> queryResults = antiPatternManager.analyze(selectedProjects, selectedAntiPatterns, new AnalysisListener() {
+                @Override
+                public void onItemAnalyzed(Project project, QueryResultItem queryResultItem) {
+                    job.itemAnalyzed();
+                    analysisListener.onItemAnalyzed(project, queryResultItem);
+                }
+
+                @Override
+                public void onProjectAnalyzed(QueryResult queryResult) {
+                    analysisListener.onProjectAnalyzed(queryResult);
+                }
+            });
+            job.finish(AnalysisJob.Status.DONE, queryResults);
+        } catch (RuntimeException e) {
+            if (!job.isFinished()) {
+                LOGGER.error("Analysis job " + job.getId() + " failed", e);
+                job.setErrorMessage(e.getMessage());
+                job.finish(AnalysisJob.Status.FAILED, null);
+            }
+        }
+    }
+
+    /**
+     * Removes finished jobs older than retention time, so their results do not stay in memory forever.
+     */
+    private void removeExpiredJobs() {
+        long expiration = System.currentTimeMillis() - applicationProperties.getAnalysisJobRetention() * 60 * 1000;
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < expiration);
+    }
+}
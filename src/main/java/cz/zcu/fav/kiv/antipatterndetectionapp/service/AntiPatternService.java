@@ -1,5 +1,6 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.service;
 
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorQueryPlans;
 import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.AntiPattern;
 
@@ -17,5 +18,7 @@ public interface AntiPatternService {
 
     List<AntiPatternDetector> getAllAntiPatternsForGivenIds(Long[] ids);
 
+    DetectorQueryPlans getQueryPlans(AntiPatternDetector antiPatternDetector);
+
     boolean saveNewConfiguration(String[] configNames, String[] configValues);
 }
@@ -1,14 +1,22 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.service;
 
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.DetectorQueryPlans;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.QueryResultItemCache;
 import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
 import cz.zcu.fav.kiv.antipatterndetectionapp.model.AntiPattern;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Configuration;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.ConfigurationSnapshot;
 import cz.zcu.fav.kiv.antipatterndetectionapp.repository.AntiPatternRepository;
+import cz.zcu.fav.kiv.antipatterndetectionapp.repository.ConfigurationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 
 @Service
@@ -17,6 +25,12 @@ public class AntiPatternServiceImpl implements AntiPatternService {
     @Autowired
     private AntiPatternRepository antiPatternRepository;
 
+    @Autowired
+    private QueryResultItemCache queryResultItemCache;
+
+    @Autowired
+    private ConfigurationRepository configurationRepository;
+
     @Override
     public List<AntiPatternDetector> getAllAntiPatterns() {
         return antiPatternRepository.getAllAntiPatterns();
@@ -29,16 +43,36 @@ public class AntiPatternServiceImpl implements AntiPatternService {
 
     @Override
     public List<AntiPattern> antiPatternsToModel(List<AntiPatternDetector> antiPatternDetectors) {
+        ConfigurationSnapshot configurationSnapshot = configurationRepository.getSnapshot();
         List<AntiPattern> antiPatterns = new LinkedList<>();
         for (AntiPatternDetector antiPatternDetector : antiPatternDetectors) {
-            antiPatterns.add(antiPatternDetector.getAntiPatternModel());
+            antiPatterns.add(antiPatternToModel(antiPatternDetector, configurationSnapshot));
         }
         return antiPatterns;
     }
 
     @Override
     public AntiPattern antiPatternToModel(AntiPatternDetector antiPatternDetector) {
-        return antiPatternDetector.getAntiPatternModel();
+        return antiPatternToModel(antiPatternDetector, configurationRepository.getSnapshot());
+    }
+
+    /**
+     * Copies model of anti-pattern with configuration values of the snapshot, model of detector
+     * holds only default values.
+     */
+    private AntiPattern antiPatternToModel(AntiPatternDetector antiPatternDetector, ConfigurationSnapshot configurationSnapshot) {
+        AntiPattern antiPattern = antiPatternDetector.getAntiPatternModel();
+        if (antiPattern.getConfigurations() == null) {
+            return antiPattern;
+        }
+        Map<String, Configuration> configurations = new LinkedHashMap<>();
+        for (Map.Entry<String, Configuration> entry : antiPattern.getConfigurations().entrySet()) {
+            Configuration configuration = entry.getValue();
+            configurations.put(entry.getKey(), new Configuration<>(configuration.getName(), configuration.getPrintName(),
+                    configuration.getDescription(), configurationSnapshot.getValue(antiPattern.getId(), entry.getKey())));
+        }
+        return new AntiPattern(antiPattern.getId(), antiPattern.getPrintName(), antiPattern.getName(),
+                antiPattern.getDescription(), configurations);
     }
 
     @Override
@@ -51,41 +85,54 @@ public class AntiPatternServiceImpl implements AntiPatternService {
         return antiPatternDetectors;
     }
 
+    @Override
+    public DetectorQueryPlans getQueryPlans(AntiPatternDetector antiPatternDetector) {
+        return antiPatternRepository.getQueryPlans(antiPatternDetector.getAntiPatternModel().getId());
+    }
+
     @Override
     public boolean saveNewConfiguration(String[] configNames, String[] configValues) {
-        List<AntiPatternDetector> antiPatternDetectors = antiPatternRepository.getAllAntiPatterns();
+        ConfigurationSnapshot previous = configurationRepository.getSnapshot();
+        Map<Long, Map<String, Object>> changes = parseConfiguration(previous, configNames, configValues);
+        if (changes == null) {
+            return false;
+        }
+        ConfigurationSnapshot updated = configurationRepository.update(changes);
 
-        for (AntiPatternDetector antiPatternDetector : antiPatternDetectors) {
-            // not every anti-pattern should have configuration
-            if (antiPatternDetector.getAntiPatternModel().getConfigurations() == null) {
-                continue;
+        // cached results of anti-patterns with changed thresholds are not valid anymore
+        for (Long id : changes.keySet()) {
+            if (!previous.getValues(id).equals(updated.getValues(id))) {
+                queryResultItemCache.invalidate(id);
             }
+        }
+        return true;
+    }
+
+    /**
+     * Parses new configuration values, every value has the same type as its current value.
+     *
+     * @return changed values by anti-pattern id and configuration name, null if some value is not in correct format
+     */
+    private Map<Long, Map<String, Object>> parseConfiguration(ConfigurationSnapshot current, String[] configNames, String[] configValues) {
+        Map<Long, Map<String, Object>> changes = new HashMap<>();
+        for (AntiPatternDetector antiPatternDetector : antiPatternRepository.getAllAntiPatterns()) {
+            Long id = antiPatternDetector.getAntiPatternModel().getId();
             for (int i = 0; i < configNames.length; i++) {
-                if (antiPatternDetector.getAntiPatternModel().getConfigurations().containsKey(configNames[i])) {
-
-                    if (antiPatternDetector.getAntiPatternModel().getConfigurations().get(configNames[i]).getValue().getClass() == Integer.class) {
-                        try {
-                            antiPatternDetector.getAntiPatternModel().getConfigurations().get(configNames[i]).setValue((Integer.parseInt(configValues[i])));
-                        } catch (NumberFormatException e) {
-                            return false;
-                        }
-
-                    } else if (antiPatternDetector.getAntiPatternModel().getConfigurations().get(configNames[i]).getValue().getClass() == Float.class) {
-                        try {
-                            antiPatternDetector.getAntiPatternModel().getConfigurations().get(configNames[i]).setValue((Float.parseFloat(configValues[i])));
-                        } catch (NumberFormatException e) {
-                            return false;
-                        }
-                    } else if (antiPatternDetector.getAntiPatternModel().getConfigurations().get(configNames[i]).getValue().getClass() == Double.class) {
-                        try {
-                            antiPatternDetector.getAntiPatternModel().getConfigurations().get(configNames[i]).setValue((Double.parseDouble(configValues[i])));
-                        } catch (NumberFormatException e) {
-                            return false;
-                        }
+                Object value = current.getValue(id, configNames[i]);
+                // not every anti-pattern should have configuration
+                if (value == null) {
+                    continue;
+                }
+                try {
+                    Object newValue = ConfigurationSnapshot.parseValue(value, configValues[i]);
+                    if (newValue != null) {
+                        changes.computeIfAbsent(id, key -> new HashMap<>()).put(configNames[i], newValue);
                     }
+                } catch (NumberFormatException e) {
+                    return null;
                 }
             }
         }
-        return true;
+        return changes;
     }
 }
@@ -1,9 +1,16 @@
 package cz.zcu.fav.kiv.antipatterndetectionapp.spring;
 
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -12,12 +19,108 @@ import org.thymeleaf.spring5.templateresolver.SpringResourceTemplateResolver;
 import org.thymeleaf.spring5.view.ThymeleafViewResolver;
 import org.thymeleaf.templatemode.TemplateMode;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @ComponentScan
 @EnableWebMvc
 @EnableAutoConfiguration
 public class AppConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    /**
+     * Pooled data source shared by JPA and by anti-pattern detection. Connections are
+     * kept warm in the pool so analysis does not pay the MySQL handshake on every run.
+     * Connection is given by spring.datasource.* and all settings of the pool, including
+     * properties of the driver, are bound from spring.datasource.hikari.*.
+     *
+     * @param dataSourceProperties url and credentials of the database
+     * @return pooled data source
+     */
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("anti-pattern-detection-pool");
+        // pool statistics (active, idle, waiting connections) are published as JMX MBeans
+        dataSource.setRegisterMbeans(true);
+        return dataSource;
+    }
+
+    /**
+     * Bounded executor on which single (project, anti-pattern) detections run in parallel.
+     * When the queue is full the submitting thread runs the detection itself. Number of threads
+     * defaults to maximum size of the connection pool.
+     *
+     * @param applicationProperties properties with executor settings
+     * @param dataSource            pool of connections used by detections
+     * @return executor for detections
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService analysisExecutor(ApplicationProperties applicationProperties, HikariDataSource dataSource) {
+        int threads = applicationProperties.getAnalysisThreads() > 0 ? applicationProperties.getAnalysisThreads()
+                : dataSource.getMaximumPoolSize();
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(applicationProperties.getAnalysisQueueCapacity()),
+                new CustomizableThreadFactory("analysis-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Executor on which detectors evaluate data fetched on analysis executor. Evaluation does not
+     * hold a connection, so analysis thread fetches data of the next project meanwhile.
+     * When the queue is full the thread which has fetched the data evaluates them itself.
+     *
+     * @param applicationProperties properties with executor settings
+     * @return executor for evaluation of fetched data
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService evaluationExecutor(ApplicationProperties applicationProperties) {
+        int threads = applicationProperties.getEvaluationThreads();
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(applicationProperties.getAnalysisQueueCapacity()),
+                new CustomizableThreadFactory("evaluation-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Executor for analysis jobs running in background. Jobs only wait for detections
+     * running on analysis executor, so they must not share the same executor.
+     *
+     * @param applicationProperties properties with executor settings
+     * @return executor for analysis jobs
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService analysisJobExecutor(ApplicationProperties applicationProperties) {
+        int threads = applicationProperties.getAnalysisJobThreads();
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(applicationProperties.getAnalysisJobQueueCapacity()),
+                new CustomizableThreadFactory("analysis-job-"));
+    }
+
+    /**
+     * Executor on which streamed responses of REST API are written. With {@link EnableWebMvc}
+     * Spring MVC would otherwise start a new thread for every request, and every such request
+     * runs a whole analysis. When the executor is full the request is rejected.
+     *
+     * @param applicationProperties properties with executor settings
+     * @return executor for streamed responses
+     */
+    @Bean
+    public ThreadPoolTaskExecutor streamingResponseExecutor(ApplicationProperties applicationProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(applicationProperties.getStreamingResponseThreads());
+        executor.setMaxPoolSize(applicationProperties.getStreamingResponseThreads());
+        executor.setQueueCapacity(applicationProperties.getStreamingResponseQueueCapacity());
+        executor.setThreadNamePrefix("streaming-response-");
+        return executor;
+    }
+
     @Bean
     public SpringResourceTemplateResolver templateResolver() {
         SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
@@ -45,4 +148,15 @@ public class AppConfig implements WebMvcConfigurer {
         viewResolver.setTemplateEngine(templateEngine());
         return viewResolver;
     }
+
+    /**
+     * Streamed responses (server-sent events, REST API) can take as long as the whole analysis,
+     * so default timeout of asynchronous requests is not used. Streamed bodies are written
+     * on bounded executor.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(applicationProperties.getAnalysisStreamTimeout());
+        configurer.setTaskExecutor(streamingResponseExecutor(applicationProperties));
+    }
 }
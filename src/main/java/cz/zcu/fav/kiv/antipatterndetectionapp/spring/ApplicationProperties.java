@@ -10,15 +10,114 @@ public class ApplicationProperties {
     @Autowired
     private Environment environment;
 
-    public String getDataSourceUrl () {
-        return environment.getProperty("spring.datasource.url");
+    /**
+     * Returns number of parallel detections, zero when it is given by size of connection pool.
+     */
+    public int getAnalysisThreads() {
+        return environment.getProperty("analysis.executor.threads", Integer.class, 0);
     }
 
-    public String getDataSourceUsername() {
-        return environment.getProperty("spring.datasource.username");
+    public int getAnalysisQueueCapacity() {
+        return environment.getProperty("analysis.executor.queue-capacity", Integer.class, 10000);
     }
 
-    public String getDataSourcePassword() {
-        return environment.getProperty("spring.datasource.password");
+    public int getEvaluationThreads() {
+        return environment.getProperty("analysis.evaluation.threads", Integer.class, Runtime.getRuntime().availableProcessors());
+    }
+
+    public boolean isCostAwareSchedulingEnabled() {
+        return environment.getProperty("analysis.scheduling.cost-aware", Boolean.class, true);
+    }
+
+    public boolean isSetBasedAnalysisEnabled() {
+        return environment.getProperty("analysis.set-based.enabled", Boolean.class, false);
+    }
+
+    public int getSetBasedAnalysisMinProjects() {
+        return environment.getProperty("analysis.set-based.min-projects", Integer.class, 2);
+    }
+
+    public int getSetBasedAnalysisBatchSize() {
+        return environment.getProperty("analysis.set-based.batch-size", Integer.class, 100);
+    }
+
+    public boolean isQueryMemoizationEnabled() {
+        return environment.getProperty("analysis.memoization.enabled", Boolean.class, true);
+    }
+
+    public int getResultCacheMaxSize() {
+        return environment.getProperty("analysis.result-cache.max-size", Integer.class, 10000);
+    }
+
+    public long getResultCacheTimeToLive() {
+        return environment.getProperty("analysis.result-cache.ttl-seconds", Long.class, 3600L);
+    }
+
+    public int getAnalysisJobThreads() {
+        return environment.getProperty("analysis.jobs.threads", Integer.class, 2);
+    }
+
+    public int getAnalysisJobQueueCapacity() {
+        return environment.getProperty("analysis.jobs.queue-capacity", Integer.class, 100);
+    }
+
+    public long getAnalysisJobRetention() {
+        return environment.getProperty("analysis.jobs.retention-minutes", Long.class, 60L);
+    }
+
+    public long getAnalysisStreamTimeout() {
+        return environment.getProperty("analysis.stream.timeout-ms", Long.class, 1800000L);
+    }
+
+    public int getStreamingResponseThreads() {
+        return environment.getProperty("analysis.api.threads", Integer.class, 4);
+    }
+
+    public int getStreamingResponseQueueCapacity() {
+        return environment.getProperty("analysis.api.queue-capacity", Integer.class, 20);
+    }
+
+    public int getApiAnalysisWindowSize() {
+        return environment.getProperty("analysis.api.window-size", Integer.class, 100);
+    }
+
+    public boolean isQueriesHotReloadEnabled() {
+        return environment.getProperty("queries.hot-reload.enabled", Boolean.class, false);
+    }
+
+    public String getQueriesDirectory() {
+        return environment.getProperty("queries.directory");
+    }
+
+    public long getSlowQueryThreshold() {
+        return environment.getProperty("analysis.slow-query.threshold-ms", Long.class, 1000L);
+    }
+
+    public int getSlowQueryLogSize() {
+        return environment.getProperty("analysis.slow-query.log-size", Integer.class, 100);
+    }
+
+    public boolean isSlowQueryExplainEnabled() {
+        return environment.getProperty("analysis.slow-query.explain", Boolean.class, true);
+    }
+
+    public boolean isSnapshotAnalysisEnabled() {
+        return environment.getProperty("analysis.snapshot.enabled", Boolean.class, false);
+    }
+
+    public long getSnapshotMaxAge() {
+        return environment.getProperty("analysis.snapshot.max-age-seconds", Long.class, 600L);
+    }
+
+    public boolean isWatermarkEnabled() {
+        return environment.getProperty("analysis.watermark.enabled", Boolean.class, false);
+    }
+
+    public boolean isSummaryTablesEnabled() {
+        return environment.getProperty("analysis.summary-tables.enabled", Boolean.class, false);
+    }
+
+    public int getSweepMaxCombinations() {
+        return environment.getProperty("analysis.sweep.max-combinations", Integer.class, 10000);
     }
 }
@@ -0,0 +1,15 @@
+/*
+Anti-pattern name: Business as usual (No sprint retrospective)
+
+Set-based variant of the detection query used for analysis of several projects
+at once. Every ? is replaced by the list of ids of all analyzed projects.
+Every select returns the same columns as the select in the original query
+extended by column projectId which is used for splitting the rows by project.
+*/
+
+/* Number of iterations for every project */
+select p.id as 'projectId', count(iteration.id) as 'numberOfIterations' from project p left join iteration on iteration.superProjectId = p.id and iteration.name like '%itera%' where p.id in (?) group by p.id;
+/* Select all iteration with detected retrospective activities */
+select projectId as 'projectId', iterationName as 'iterationName', count(name) as 'numberOfIssues' from workUnitView where projectId in (?) and (name like '%retr%' or name like '%revi%' or name like '%week%scrum%') group by projectId, iterationName;
+/* Select all wikipages that were created or updated in iteration and have name with retr or revi*/
+select iteration.superProjectId as 'projectId', iteration.name as 'iterationName', count(distinct(artifactView.name)) as 'numberOfWikiPages' from artifactView inner join fieldChangeView on artifactView.id = fieldChangeView.itemId inner join iteration on (fieldChangeView.created between iteration.startDate and iteration.endDate) and iteration.superProjectId = artifactView.projectId where artifactView.projectId in (?) and artifactView.artifactClass like 'WIKIPAGE' and (artifactView.name like '%retr%' or artifactView.description like '%retr%') group by iteration.superProjectId, iteration.id order by iteration.superProjectId, iteration.name;
@@ -0,0 +1,23 @@
+/*
+Anti-pattern name: Long Or Non-Existant Feedback Loops (No Customer feedback)
+
+Set-based variant of the detection query used for analysis of several projects
+at once. Every ? is replaced by the list of ids of all analyzed projects.
+Every select returns the same columns as the select in the original query
+extended by column projectId which is used for splitting the rows by project.
+*/
+
+/* Number of iterations for every project */
+select p.id as 'projectId', count(iteration.id) as 'numberOfIterations' from project p left join iteration on iteration.superProjectId = p.id where p.id in (?) group by p.id;
+/* Average iteration length */
+select p.id as 'projectId', avg(abs(dateDiff(iteration.endDate, iteration.startDate))) as 'averageIterationLength' from project p left join iteration on iteration.superProjectId = p.id where p.id in (?) group by p.id;
+/* Select number of iterations which contains at least one feedback activity */
+select wuv.projectId as 'projectId', count(*) over (partition by wuv.projectId) as 'totalCountOfIterationsWithFeedbackActivity' from workUnitView as wuv where wuv.projectId in (?) and (wuv.name like "%schůz%zákazník%" OR wuv.name like "%předvedení%zákazník%" OR wuv.name LIKE "%zákazn%demo%" OR wuv.name like "%schůz%zadavat%" OR wuv.name like "%inform%schůz%" OR wuv.name like "%zákazn%" OR wuv.name like "%zadavatel%") group by wuv.projectId, wuv.iterationName order by wuv.projectId, wuv.activityEndDate;
+/* Select all activities for feedback loop with last modified date as end date */
+select wuv.projectId as 'projectId', wuv.id, wuv.iterationName, wuv.name, cast(max(fieldChangeView.created) as date) as 'endDate' from workUnitView as wuv inner join fieldChangeView on wuv.id = fieldChangeView.itemId where wuv.projectId in (?) and (wuv.name like "%schůz%zákazník%" OR wuv.name like "%předvedení%zákazník%" OR wuv.name LIKE "%zákazn%demo%" OR wuv.name like "%schůz%zadavat%" OR wuv.name like "%inform%schůz%" OR wuv.name like "%zákazn%" OR wuv.name like "%zadavatel%") GROUP by wuv.projectId, wuv.id order by wuv.projectId, fieldChangeView.created;
+/* Get project start date (iteration without start date is ordered first in the original query, project without iterations has no row) */
+select superProjectId as 'projectId', case when count(*) > count(startDate) then null else min(startDate) end as 'projectStartDate' from iteration where superProjectId in (?) group by superProjectId;
+/* Get project end date (project without iterations has no row) */
+select superProjectId as 'projectId', max(endDate) as 'projectEndDate' from iteration where superProjectId in (?) group by superProjectId;
+/* Select all iterations that contains wiki pages which were created or updated in iteration and have name or description that mentions some key words for customer demo*/
+select iteration.superProjectId as 'projectId', iteration.name as 'iterationWithCustomerFeedback', cast(max(fieldChangeView.created) as date) as 'appointmentDate' from artifactView inner join fieldChangeView on artifactView.id = fieldChangeView.itemId inner join iteration on (fieldChangeView.created between iteration.startDate and iteration.endDate) and iteration.superProjectId in (?) where artifactView.artifactClass like "WIKIPAGE" and artifactView.projectId = iteration.superProjectId and length(fieldChangeView.newValue) > length(fieldChangeView.oldValue) and artifactView.name like "%zápis%schůz%" or artifactView.name like "%schůz%zákazník%" OR artifactView.name like "%zákazn%demo%" or artifactView.name like "%schůz%zadavat%" or artifactView.name like "%zadavatel%" OR artifactView.name like "%zákazn%" group by iteration.superProjectId, iteration.name order by iteration.superProjectId, iteration.name;
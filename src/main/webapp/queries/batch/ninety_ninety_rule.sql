@@ -0,0 +1,11 @@
+/*
+Anti-pattern name: Ninety-Ninety Rule
+
+Set-based variant of the detection query used for analysis of several projects
+at once. Every ? is replaced by the list of ids of all analyzed projects.
+Every select returns the same columns as the select in the original query
+extended by column projectId which is used for splitting the rows by project.
+*/
+
+/* Select all activities for each iteration and sum estimated time and spent time */
+select projectId as 'projectId', iterationName as 'iterationName', sum(estimatedTime) as 'estimatedTime', sum(spentTime) as 'spentTime', sum(spentTime)/sum(estimatedTime) as 'timeDivision',  abs(1-(sum(spentTime)/sum(estimatedTime))) as 'deviation' from workUnitView where projectId in (?) and iterationName is not null group by projectId, iterationName order by projectId, iterationName;
@@ -0,0 +1,11 @@
+/*
+Anti-pattern name: Road To Nowhere
+
+Set-based variant of the detection query used for analysis of several projects
+at once. Every ? is replaced by the list of ids of all analyzed projects.
+Every select returns the same columns as the select in the original query
+extended by column projectId which is used for splitting the rows by project.
+*/
+
+/* Find number of activities from the first two iterations and wiki pages for creating project plan */
+select p.id as `projectId`, coalesce(issues.numberOfIssuesForProjectPlan, 0) as `numberOfIssuesForProjectPlan`, coalesce(wikiPages.numberOfWikiPagesForProjectPlan, 0) as `numberOfWikiPagesForProjectPlan` from project p left join (select workUnitView.projectId as projectId, count(*) as numberOfIssuesForProjectPlan from workUnitView inner join (select distinct orderedIterations.superProjectId, orderedIterations.startDate from (select superProjectId, startDate, row_number() over (partition by superProjectId order by startDate) as iterationOrder from iteration where superProjectId in (?)) as orderedIterations where orderedIterations.iterationOrder <= 2) as firstIterations on firstIterations.superProjectId = workUnitView.projectId and firstIterations.startDate = workUnitView.iterationStartDate where workUnitView.projectId in (?) and (lower(workUnitView.name) like lower('%plán projektu%') or lower(workUnitView.description) like lower('%plán projektu%') or lower(workUnitView.name) like lower('%project plan%') or lower(workUnitView.description) like lower('%project plan%') or lower(workUnitView.name) like lower('%plan project%') or lower(workUnitView.description) like lower('%plan project%') or lower(workUnitView.name) like lower('%projektový plán%') or lower(workUnitView.description) like lower('%projektový plán%')) group by workUnitView.projectId) as issues on issues.projectId = p.id left join (select projectId, count(*) as numberOfWikiPagesForProjectPlan from artifactView where projectId in (?) AND artifactClass like 'WIKIPAGE' AND (lower(artifactView.name) like lower('%plán projektu%') or lower(artifactView.description) like lower('%plán projektu%') or lower(artifactView.name) like lower('%plán projektu%') or lower(artifactView.description) like lower('%plán projektu%') or lower(artifactView.name) like lower('%project plan%') or lower(artifactView.description) like lower('%project plan%') or lower(artifactView.name) like lower('%plan project%') or lower(artifactView.description) like lower('%plan project%') or lower(artifactView.name) like lower('%projekotvý plán%') or lower(artifactView.description) like lower('%projektový plán%')) group by projectId) as wikiPages on wikiPages.projectId = p.id where p.id in (?);
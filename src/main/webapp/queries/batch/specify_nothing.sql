@@ -0,0 +1,11 @@
+/*
+Anti-pattern name: Specify nothing
+
+Set-based variant of the detection query used for analysis of several projects
+at once. Every ? is replaced by the list of ids of all analyzed projects.
+Every select returns the same columns as the select in the original query
+extended by column projectId which is used for splitting the rows by project.
+*/
+
+/* Find number of wikipages with some project specification, activities for creating DSP or project specification and average length of issues description */
+select p.id as `projectId`, coalesce(wikiPages.numberOfWikiPages, 0) as `numberOfWikiPages`, coalesce(activities.numberOfActivitiesForSpecification, 0) as `numberOfActivitiesForSpecification`, descriptions.averageLengthOfIssueDescription as `averageLengthOfIssueDescription` from project p left join (select projectId, count(name) as numberOfWikiPages from artifactView where projectId in (?) and artifactClass = 'WIKIPAGE' and (lower(name) like lower('%dsp%') or lower(name) like lower('%specifikace%') or lower(name) like lower('%specification%') or lower(name) like lower('%vize%proj%') or lower(name) like lower('%vize%produ%') or lower(description) like lower('%DSP%') or lower(description) like lower('%specifikace%') or lower(description) like lower('%specification%')) group by projectId) as wikiPages on wikiPages.projectId = p.id left join (select projectId, count(id) as numberOfActivitiesForSpecification from workUnitView where projectId in (?) and (lower(name) like lower('%DSP%') or lower(name) like lower('%specifikace%') or lower(name) like lower('%specification%') or lower(name) like lower('%vize%proj%')) group by projectId) as activities on activities.projectId = p.id left join (select projectId, AVG(CHAR_LENGTH(workUnitView.description)) as averageLengthOfIssueDescription from workUnitView where workUnitView.projectId in (?) group by projectId) as descriptions on descriptions.projectId = p.id where p.id in (?);
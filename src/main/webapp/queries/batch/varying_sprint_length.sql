@@ -0,0 +1,11 @@
+/*
+Anti-pattern name: Varying Sprint Length
+
+Set-based variant of the detection query used for analysis of several projects
+at once. Every ? is replaced by the list of ids of all analyzed projects.
+Every select returns the same columns as the select in the original query
+extended by column projectId which is used for splitting the rows by project.
+*/
+
+/* Select all iterations with their length without the first and the last iteration of every project */
+select ranked.projectId as `projectId`, ranked.iterationLength as `iterationLength` from (select iteration.superProjectId as projectId, iteration.name as name, datediff(endDate, startDate) as iterationLength, row_number() over (partition by iteration.superProjectId order by iteration.name) as firstOrder, row_number() over (partition by iteration.superProjectId order by iteration.name desc) as lastOrder from iteration where iteration.superProjectId in (?)) as ranked where ranked.firstOrder > 1 and ranked.lastOrder > 1 order by ranked.projectId, ranked.name;
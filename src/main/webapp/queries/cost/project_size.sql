@@ -0,0 +1,15 @@
+/*
+Size of project data
+
+Numbers of rows read by detectors, used to estimate cost of analysis of projects
+which have not been analyzed yet, so the largest projects are analyzed first.
+Every ? is replaced by the list of ids of all analyzed projects, every select
+returns columns projectId and rowCount.
+*/
+
+/* Work units */
+select projectId as `projectId`, count(*) as `rowCount` from workUnitView where projectId in (?) group by projectId;
+/* Artifacts */
+select projectId as `projectId`, count(*) as `rowCount` from artifactView where projectId in (?) group by projectId;
+/* Iterations */
+select superProjectId as `projectId`, count(*) as `rowCount` from iteration where superProjectId in (?) group by superProjectId;
@@ -0,0 +1,29 @@
+/*
+Anti-pattern name: Business as usual (No sprint retrospective)
+
+Description: Absence of a retrospective after individual
+             iterations or after the completion project.
+
+Detection: There will be no activities in the project
+           that would indicate that a retrospective is
+           taking place (issue with the name of the
+           retrospective, issue on which all team members
+           log, issue that is repeated periodically,
+           issue to which no commit is bound, issue which
+           will be marked as administration or something like that).
+           There will be no notes in the wiki or other tool called
+           retrospectives (%retr%).
+*/
+
+/* Init project id */
+set @projectId = ?;
+/* Retrospective substring */
+set @restrospectiveSubstring = '%retr%';
+/* Revision substring */
+set @revisionSubstring = '%revi%';
+/* Number of iterations for given project */
+select COUNT(id) as 'numberOfIterations' from iteration where superProjectId = @projectId and name like '%itera%';
+/* Select all iteration with detected retrospective activities, activities are counted by refresh of summary tables */
+select iterationName as 'iterationName', retrospectiveWorkUnits as 'numberOfIssues' from apd_iteration_work where projectId = @projectId and retrospectiveWorkUnits > 0;
+/* Select all wikipages that were created or updated in iteration and have name with retr or revi, pages are tagged as wiki page (1) and retrospective (2) */
+select iteration.name as 'iterationName', count(distinct(artifactView.name)) as 'numberOfWikiPages' from apd_artifact_tags inner join artifactView on artifactView.id = apd_artifact_tags.artifactId inner join fieldChangeView on artifactView.id = fieldChangeView.itemId inner join iteration on (fieldChangeView.created between iteration.startDate and iteration.endDate) and iteration.superProjectId = @projectId where apd_artifact_tags.projectId = @projectId and apd_artifact_tags.tags & 3 = 3 group by iteration.id order by iteration.name;
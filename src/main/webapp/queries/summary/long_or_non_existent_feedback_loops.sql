@@ -0,0 +1,34 @@
+/*
+Anti-pattern name: Long Or Non-Existant Feedback Loops (No Customer feedback)
+
+Description: Long spacings between customer feedback or no feedback. The customer
+             enters the project and sees the final result. In the end, the customer
+             may not get what he really wanted. With long intervals of feedback,
+             some misunderstood functionality can be created and we have to spend
+             a lot of effort and time to redo it.
+
+
+Detection: How to choose what is the optimal spacing between feedbacks? In ASWI,
+           it was mostly after each iteration, ie 2-3 weeks apart. Check if there
+           is an activity that is repeated periodically, all team members or
+           leaders log time on it (essentially a similar issue as in the anti-Business
+           as usual model). Search for an activity named "DEMO", "CUSTOMER", etc.
+           Search for some records from the demo in the wiki. Similar to Business as usual.
+*/
+
+/* Init project id */
+set @projectId = ?;
+/* Number of iterations for given project */
+select COUNT(iterationId) as 'numberOfIterations' from apd_iteration_length where projectId = @projectId;
+/* Average iteration length */
+select avg(abs(iterationLength)) as 'averageIterationLength' from apd_iteration_length where projectId = @projectId;
+/* Select number of iterations which contains at least one feedback activity, activities are counted by refresh of summary tables */
+select count(*) over () as 'totalCountOfIterationsWithFeedbackActivity' from apd_iteration_work where projectId = @projectId and feedbackWorkUnits > 0;
+/* Select all activities for feedback loop with last modified date as end date, activities are tagged as customer feedback (2) */
+select wuv.id, wuv.iterationName, wuv.name, cast(max(fieldChangeView.created) as date) as 'endDate' from apd_work_unit_tags inner join workUnitView as wuv on wuv.id = apd_work_unit_tags.workUnitId inner join fieldChangeView on wuv.id = fieldChangeView.itemId where apd_work_unit_tags.projectId = @projectId and apd_work_unit_tags.tags & 2 GROUP by wuv.id order by fieldChangeView.created;
+/* Get project start date */
+select startDate as 'projectStartDate' from iteration where superProjectId = @projectId order by startDate limit 1;
+/* Get project end date */
+select endDate as 'projectEndDate' from iteration where superProjectId = @projectId order by endDate desc limit 1;
+/* Select all iterations that contains wiki pages which were created or updated in iteration and have name or description that mentions some key words for customer demo*/
+select iteration.name as 'iterationWithCustomerFeedback', cast(max(fieldChangeView.created) as date) as 'appointmentDate' from artifactView inner join fieldChangeView on artifactView.id = fieldChangeView.itemId inner join iteration on (fieldChangeView.created between iteration.startDate and iteration.endDate) and iteration.superProjectId = @projectId where artifactView.artifactClass like "WIKIPAGE" and artifactView.projectId = @projectId and length(fieldChangeView.newValue) > length(fieldChangeView.oldValue) and artifactView.name like "%zápis%schůz%" or artifactView.name like "%schůz%zákazník%" OR artifactView.name like "%zákazn%demo%" or artifactView.name like "%schůz%zadavat%" or artifactView.name like "%zadavatel%" OR artifactView.name like "%zákazn%" group by iteration.name order by iteration.name;
@@ -0,0 +1,18 @@
+/*
+Anti-pattern name: Ninety-Ninety Rule
+
+Description: The first 90 percent of the code represents the first 90 percent of development time. The
+             remaining 10 percent of the code represents another 90 percent of development time.
+             Then decide on a long delay of the project compared to the original estimate.
+             The functionality is almost done, some number is already closed and is only waiting
+             for one activity to close, but it has been open for a long time.
+
+Detection: Compare the estimated time and time spent in each iteration. If the estimates deteriorate
+           continuously during the project, it will be detected.
+
+*/
+
+/* Init project id */
+set @projectId = ?;
+/* Select precomputed sums of estimated time and spent time for each iteration */
+select iterationName, estimatedTime as 'estimatedTime', spentTime as 'spentTime', spentTime/estimatedTime as 'timeDivision', abs(1-(spentTime/estimatedTime)) as 'deviation' from apd_iteration_work where projectId = @projectId and iterationName is not null order by iterationName;
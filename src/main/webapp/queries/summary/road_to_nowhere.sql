@@ -0,0 +1,20 @@
+/*
+Anti-pattern name: Road To Nowhere
+
+Description: The project is not sufficiently planned and therefore
+             takes place on an ad hoc basis with an uncertain
+             outcome and deadline. There is no project plan in the project.
+
+Detection: There is no activity in ALM that would indicate the creation
+           of a project plan. There will be no document in the wiki
+           called the "Project Plan". Project plan should be created in first or
+           second iteration. Also could be detected with field change view. If is
+           a lot of changes on issues in the beginning of the iteration so then could
+           indicate some planning.
+*/
+set @projectId = ?;
+set @firstIterationStartDate = (select startDate from iteration where superProjectId = @projectId ORDER BY startDate LIMIT 1 offset 0);
+set @secondIterationStartDate = (select startDate from iteration where superProjectId = @projectId ORDER BY startDate LIMIT 1 offset 1);
+set @numberOfIssuesForProjectPlan = (select count(*) from apd_work_unit_tags where projectId = @projectId and tags & 4 and (iterationStartDate = @firstIterationStartDate OR iterationStartDate = @secondIterationStartDate));
+set @numberOfWikiPagesForProjectPlan = (select count(*) from apd_artifact_tags where projectId = @projectId and tags & 17 = 17);
+select @projectId as `projectId`, @numberOfIssuesForProjectPlan as `numberOfIssuesForProjectPlan`, @numberOfWikiPagesForProjectPlan as `numberOfWikiPagesForProjectPlan`;
@@ -0,0 +1,22 @@
+/*
+Anti-pattern name: Specify nothing
+
+Description: The specification is not done intentionally. Programmers are
+             expected to work better without written specifications.
+
+Detection: No specification artifact. There is no issue that will have something
+           like "DSP, SPECIFICATIONS, ETC." in the title. Initially, meetings
+           with the customer should be more frequent to clarify the project framework.
+            No entry in the wiki with the project specification.
+*/
+
+/* Init project id */
+set @projectId = ?;
+/* Find number of wikipages with some project specification, pages are tagged as wiki page (1) and specification (32) */
+set @numberOfWikiPages = (select count(artifactView.name) from apd_artifact_tags inner join artifactView on artifactView.id = apd_artifact_tags.artifactId where apd_artifact_tags.projectId = @projectId and apd_artifact_tags.tags & 33 = 33);
+/* Find activities for creating DSP or project specification, activities are tagged as specification (8) */
+set @numberOfActivitiesForSpecification = (select count(*) from apd_work_unit_tags where projectId = @projectId and tags & 8);
+/* Count average length of issues description */
+set @averageLengthOfIssueDescription = (select AVG(CHAR_LENGTH(workUnitView.description)) from workUnitView where workUnitView.projectId = @projectId);
+/* Show all statistics */
+select @projectId as `projectId`, @numberOfWikiPages as `numberOfWikiPages`, @numberOfActivitiesForSpecification as `numberOfActivitiesForSpecification`, @averageLengthOfIssueDescription as `averageLengthOfIssueDescription`;
@@ -0,0 +1,14 @@
+/*
+Refresh of summary rows of one project
+
+Every ? is replaced by id of the project. Statements are executed in one transaction,
+so detectors never read partially refreshed project. Key word tags of work units
+(apd_work_unit_tags) are stored by the application before these statements run.
+*/
+
+/* Lengths of iterations */
+delete from apd_iteration_length where projectId = ?;
+insert into apd_iteration_length (projectId, iterationId, name, startDate, endDate, iterationLength) select superProjectId, id, name, startDate, endDate, datediff(endDate, startDate) from iteration where superProjectId = ?;
+/* Sums of times and numbers of retrospective (tag 1) and customer feedback (tag 2) work units by iteration name */
+delete from apd_iteration_work where projectId = ?;
+insert into apd_iteration_work (projectId, iterationName, estimatedTime, spentTime, workUnits, retrospectiveWorkUnits, feedbackWorkUnits) select workUnitView.projectId, workUnitView.iterationName, sum(workUnitView.estimatedTime), sum(workUnitView.spentTime), count(*), count(case when apd_work_unit_tags.tags & 1 then 1 end), count(case when apd_work_unit_tags.tags & 2 then 1 end) from workUnitView left join apd_work_unit_tags on apd_work_unit_tags.workUnitId = workUnitView.id where workUnitView.projectId = ? group by workUnitView.iterationName;
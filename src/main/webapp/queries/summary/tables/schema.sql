@@ -0,0 +1,18 @@
+/*
+Summary tables of project data
+
+Tables are created from selects which return no rows, so their columns have the same
+types and collations as the columns of SPADE tables they are computed from. Rows of a project
+are computed again by refresh.sql only when watermark of project data changes.
+*/
+
+/* Length of every iteration */
+create table if not exists apd_iteration_length (index (projectId)) select superProjectId as projectId, id as iterationId, name, startDate, endDate, datediff(endDate, startDate) as iterationLength from iteration where false;
+/* Sums of times and number of work units mentioning retrospective or customer feedback for every iteration name */
+create table if not exists apd_iteration_work (index (projectId)) select projectId, iterationName, sum(estimatedTime) as estimatedTime, sum(spentTime) as spentTime, count(*) as workUnits, count(*) as retrospectiveWorkUnits, count(*) as feedbackWorkUnits from workUnitView where false group by projectId, iterationName;
+/* Key word tags of work units: 1 retrospective, 2 customer feedback, 4 project plan, 8 specification */
+create table if not exists apd_work_unit_tags (index (projectId), index (workUnitId)) select id as workUnitId, projectId, iterationStartDate, 0 as tags from workUnitView where false;
+/* Key word tags of artifacts: 1 wiki page, 2 retrospective, 4 meeting record, 8 customer meeting, 16 project plan, 32 specification */
+create table if not exists apd_artifact_tags (index (projectId), index (artifactId)) select id as artifactId, projectId, 0 as tags from artifactView where false;
+/* Watermark of project data summary rows of the project were computed from */
+create table if not exists apd_project_summary (projectId bigint not null primary key, watermark varchar(1024) not null, refreshed datetime not null);
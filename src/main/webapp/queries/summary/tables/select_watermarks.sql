@@ -0,0 +1,8 @@
+/*
+Watermarks stored with summary rows
+
+Every ? is replaced by the list of ids of projects read at once, the select returns
+columns projectId and watermark.
+*/
+
+select projectId as `projectId`, watermark as `watermark` from apd_project_summary where projectId in (?);
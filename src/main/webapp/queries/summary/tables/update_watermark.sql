@@ -0,0 +1,8 @@
+/*
+Watermark of refreshed summary rows
+
+The first ? is id of the project and the second ? is the watermark the rows were computed
+for. Statement is executed in the transaction of the refresh.
+*/
+
+insert into apd_project_summary (projectId, watermark, refreshed) values (?, ?, now()) on duplicate key update watermark = values(watermark), refreshed = values(refreshed);
@@ -0,0 +1,24 @@
+/*
+Anti-pattern name: Too Long Sprint
+
+Description: Iterations too long. (ideal iteration length is about 1-2 weeks,
+             maximum 3 weeks). It could also be detected here if the length
+             of the iteration does not change often (It can change at the
+             beginning and at the end of the project, but it should not
+             change in the already started project).
+
+Detection: Detect the beginning and end of the iteration and what is
+           the interval between these time points. We should exclude
+           the initial and final iterations, as they could skew the result.
+*/
+
+/* Init project id */
+set @projectId = ?;
+/* Exclude first and last iteration? */
+set @excludeFirstAndLastIteration = true;
+/* Id of first iteration */
+set @idOfFirstIteration = (select iterationId from apd_iteration_length where projectId = @projectId order by name limit 1);
+/* Id of last iteration */
+set @idOfLastIteration = (select iterationId from apd_iteration_length where projectId = @projectId order by name desc limit 1);
+/* Select all iterations with their precomputed length */
+select iterationLength as `iterationLength` from apd_iteration_length where projectId = @projectId and iterationId != if(@excludeFirstAndLastIteration = true, @idOfFirstIteration, -1) and iterationId != if(@excludeFirstAndLastIteration = true, @idOfLastIteration, -1) order by name;
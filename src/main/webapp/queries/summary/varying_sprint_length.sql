@@ -0,0 +1,27 @@
+/*
+Anti-pattern name: Varying Sprint Length
+
+Description: The length of the sprint changes very often.
+             It is clear that iterations will be different
+             lengths at the beginning and end of the project,
+             but the length of the sprint should not change
+             during the project.
+
+
+Detection: Detect sprint lengths throughout the project
+           and see if they are too different. Possibility to
+           eliminate the first and last sprint. It could be
+           otherwise long. Detection would be similar to
+           Too Long sprint anti-pattern.
+*/
+
+/* Init project id */
+set @projectId = ?;
+/* Exclude first and last iteration? */
+set @excludeFirstAndLastIteration = true;
+/* Id of first iteration */
+set @idOfFirstIteration = (select iterationId from apd_iteration_length where projectId = @projectId order by name limit 1);
+/* Id of last iteration */
+set @idOfLastIteration = (select iterationId from apd_iteration_length where projectId = @projectId order by name desc limit 1);
+/* Select all iterations with their precomputed length */
+select iterationLength as `iterationLength` from apd_iteration_length where projectId = @projectId and iterationId != if(@excludeFirstAndLastIteration = true, @idOfFirstIteration, -1) and iterationId != if(@excludeFirstAndLastIteration = true, @idOfLastIteration, -1) order by name;
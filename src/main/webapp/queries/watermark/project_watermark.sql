@@ -0,0 +1,17 @@
+/*
+Watermark of project data
+
+Values which change whenever data read by detectors change. Results of detectors
+are reused until some of the values of the project is different. Every ? is
+replaced by the list of ids of all analyzed projects, every select returns
+columns projectId and watermark.
+*/
+
+/* Work units: their number, the newest one and sums of times */
+select projectId as `projectId`, concat_ws(':', count(*), max(id), sum(estimatedTime), sum(spentTime)) as `watermark` from workUnitView where projectId in (?) group by projectId;
+/* Artifacts: their number and the newest one */
+select projectId as `projectId`, concat_ws(':', count(*), max(id)) as `watermark` from artifactView where projectId in (?) group by projectId;
+/* Iterations: their number, the newest one and checksum of names and dates */
+select superProjectId as `projectId`, concat_ws(':', count(*), max(id), bit_xor(crc32(concat_ws('|', id, name, startDate, endDate)))) as `watermark` from iteration where superProjectId in (?) group by superProjectId;
+/* Changes of work units and artifacts: their number and the latest one */
+select items.projectId as `projectId`, concat_ws(':', count(*), max(fieldChangeView.created)) as `watermark` from (select id, projectId from workUnitView where projectId in (?) union all select id, projectId from artifactView where projectId in (?)) as items inner join fieldChangeView on fieldChangeView.itemId = items.id group by items.projectId;
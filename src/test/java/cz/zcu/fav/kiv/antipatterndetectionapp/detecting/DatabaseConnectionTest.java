@@ -0,0 +1,46 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks acquisition of connection from the pool.
+ */
+class DatabaseConnectionTest {
+
+    @Test
+    void failsWhenPoolDoesNotProvideConnection() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        SQLException timeout = new SQLTransientConnectionException("Connection is not available, request timed out");
+        when(dataSource.getConnection()).thenThrow(timeout);
+        AnalysisMetrics analysisMetrics = mock(AnalysisMetrics.class);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> new DatabaseConnection(dataSource, analysisMetrics));
+        assertSame(timeout, e.getCause());
+        verify(analysisMetrics).recordConnectionAcquisition(anyLong(), eq(false));
+    }
+
+    @Test
+    void recordsAcquiredConnection() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        AnalysisMetrics analysisMetrics = mock(AnalysisMetrics.class);
+
+        new DatabaseConnection(dataSource, analysisMetrics).closeConnection();
+        verify(analysisMetrics).recordConnectionAcquisition(anyLong(), eq(true));
+        verify(connection).close();
+    }
+}
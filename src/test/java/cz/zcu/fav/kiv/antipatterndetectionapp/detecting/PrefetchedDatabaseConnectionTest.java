@@ -0,0 +1,163 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTableAssertions.assertSameTable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Splits results of set-based queries in queries/batch for several projects and compares result
+ * of every project with result of the per-project query for the same rows. Set-based queries
+ * must return the same columns as per-project queries extended by column projectId.
+ *
+ * Iterations of the projects (name, start date, end date):
+ * project 1: Iterace 1 (03-01, 03-14), Iterace 2 (03-15, 03-28), Iterace 3 (03-29, 04-18), Iterace 4 (04-19, 05-02)
+ * project 2: null (04-01, 04-08), Sprint 1 (null, 04-20), Sprint 2 (04-21, 05-04), Sprint 3 (05-05, 05-12)
+ * project 3: no iterations
+ * project 4: Iterace (06-01, 06-14)
+ *
+ * Wiki page "Zápis ze schůze" of project 1 is extended on 03-02, wiki page "Schůze se zákazníkem"
+ * of project 3 is changed on 04-22.
+ */
+class PrefetchedDatabaseConnectionTest {
+
+    private static final Path QUERIES = Paths.get("src/main/webapp/queries");
+
+    private static final ResultColumn PROJECT_ID = new ResultColumn("projectId", ResultTable.ColumnType.LONG);
+    private static final ResultColumn ITERATION_LENGTH = new ResultColumn("iterationLength", ResultTable.ColumnType.LONG);
+    private static final ResultColumn PROJECT_START_DATE = new ResultColumn("projectStartDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn PROJECT_END_DATE = new ResultColumn("projectEndDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn ITERATION_WITH_CUSTOMER_FEEDBACK = new ResultColumn("iterationWithCustomerFeedback", ResultTable.ColumnType.STRING);
+    private static final ResultColumn APPOINTMENT_DATE = new ResultColumn("appointmentDate", ResultTable.ColumnType.DATE);
+
+    @Test
+    void excludesFirstAndLastIterationOfEveryProject() {
+        // batch/too_long_sprint.sql: row_number by name in both directions, null name is the first one
+        ResultTable iterationLengths = ResultTable.builder(PROJECT_ID, ITERATION_LENGTH)
+                .addRow(1, 13)
+                .addRow(1, 20)
+                .addRow(2, null)
+                .addRow(2, 13).build();
+        DatabaseConnection connection = new PrefetchedDatabaseConnection(Arrays.asList(iterationLengths));
+
+        // too_long_sprint.sql excludes ids of the first and the last iteration ordered by name
+        assertProject(connection, 1, 0, ResultTable.builder(ITERATION_LENGTH).addRow(13).addRow(20).build(), ITERATION_LENGTH);
+        assertProject(connection, 2, 0, ResultTable.builder(ITERATION_LENGTH).addRow((Object) null).addRow(13).build(), ITERATION_LENGTH);
+        assertProject(connection, 3, 0, ResultTable.builder(ITERATION_LENGTH).build(), ITERATION_LENGTH);
+        assertProject(connection, 4, 0, ResultTable.builder(ITERATION_LENGTH).build(), ITERATION_LENGTH);
+    }
+
+    @Test
+    void splitsProjectDatesWithMissingStartDate() {
+        // batch/long_or_non_existent_feedback_loops.sql: start date is null when some iteration has no start
+        // date, project without iterations has no row
+        ResultTable startDates = ResultTable.builder(PROJECT_ID, PROJECT_START_DATE)
+                .addRow(1, LocalDate.parse("2021-03-01"))
+                .addRow(2, null)
+                .addRow(4, LocalDate.parse("2021-06-01")).build();
+        ResultTable endDates = ResultTable.builder(PROJECT_ID, PROJECT_END_DATE)
+                .addRow(1, LocalDate.parse("2021-05-02"))
+                .addRow(2, LocalDate.parse("2021-05-12"))
+                .addRow(4, LocalDate.parse("2021-06-14")).build();
+        DatabaseConnection connection = new PrefetchedDatabaseConnection(Arrays.asList(startDates, endDates));
+
+        // long_or_non_existent_feedback_loops.sql orders null start date first and null end date last
+        assertProject(connection, 1, 0, ResultTable.builder(PROJECT_START_DATE).addRow(LocalDate.parse("2021-03-01")).build(), PROJECT_START_DATE);
+        assertProject(connection, 1, 1, ResultTable.builder(PROJECT_END_DATE).addRow(LocalDate.parse("2021-05-02")).build(), PROJECT_END_DATE);
+        assertProject(connection, 2, 0, ResultTable.builder(PROJECT_START_DATE).addRow((Object) null).build(), PROJECT_START_DATE);
+        assertProject(connection, 2, 1, ResultTable.builder(PROJECT_END_DATE).addRow(LocalDate.parse("2021-05-12")).build(), PROJECT_END_DATE);
+        assertProject(connection, 3, 0, ResultTable.builder(PROJECT_START_DATE).build(), PROJECT_START_DATE);
+        assertProject(connection, 3, 1, ResultTable.builder(PROJECT_END_DATE).build(), PROJECT_END_DATE);
+        assertProject(connection, 4, 0, ResultTable.builder(PROJECT_START_DATE).addRow(LocalDate.parse("2021-06-01")).build(), PROJECT_START_DATE);
+        assertProject(connection, 4, 1, ResultTable.builder(PROJECT_END_DATE).addRow(LocalDate.parse("2021-06-14")).build(), PROJECT_END_DATE);
+    }
+
+    @Test
+    void keepsCustomerMeetingsOfOtherProjects() {
+        // precedence of and/or in both queries joins meeting with customer of project 3 with iterations
+        // of every analyzed project, while the meeting record counts only for its own project
+        ResultTable appointments = ResultTable.builder(PROJECT_ID, ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE)
+                .addRow(1, "Iterace 1", LocalDate.parse("2021-03-02"))
+                .addRow(1, "Iterace 4", LocalDate.parse("2021-04-22"))
+                .addRow(2, "Sprint 2", LocalDate.parse("2021-04-22")).build();
+        DatabaseConnection connection = new PrefetchedDatabaseConnection(Arrays.asList(appointments));
+
+        assertProject(connection, 1, 0, ResultTable.builder(ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE)
+                .addRow("Iterace 1", LocalDate.parse("2021-03-02"))
+                .addRow("Iterace 4", LocalDate.parse("2021-04-22")).build(), ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE);
+        assertProject(connection, 2, 0, ResultTable.builder(ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE)
+                .addRow("Sprint 2", LocalDate.parse("2021-04-22")).build(), ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE);
+        assertProject(connection, 3, 0, ResultTable.builder(ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE).build(),
+                ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE);
+    }
+
+    @Test
+    void returnsEmptyResultsWithColumnsForProjectWithoutRows() {
+        ResultTable iterationLengths = ResultTable.builder(PROJECT_ID, ITERATION_LENGTH).addRow(1, 13).build();
+        ResultTable emptyResult = ResultTable.builder(PROJECT_ID, PROJECT_START_DATE).build();
+        DatabaseConnection connection = new PrefetchedDatabaseConnection(Arrays.asList(iterationLengths, emptyResult));
+
+        List<ResultTable> results = connection.executeQueriesWithMultipleResults(project(5), null);
+        assertEquals(2, results.size());
+        assertEquals(0, results.get(0).getRowCount());
+        assertEquals(1, results.get(0).getColumnIndex(ITERATION_LENGTH));
+        assertEquals(0, results.get(1).getRowCount());
+        assertEquals(1, results.get(1).getColumnIndex(PROJECT_START_DATE));
+    }
+
+    @Test
+    void batchQueriesReturnColumnsOfPerProjectQueries() throws IOException {
+        try (DirectoryStream<Path> batchFiles = Files.newDirectoryStream(QUERIES.resolve("batch"), "*.sql")) {
+            for (Path batchFile : batchFiles) {
+                String name = batchFile.getFileName().toString();
+                List<QueryPlan.Statement> selects = selects("batch/" + name);
+                List<QueryPlan.Statement> projectSelects = selects(name);
+                assertEquals(projectSelects.size(), selects.size(), name);
+                for (int i = 0; i < selects.size(); i++) {
+                    Set<String> columns = new LinkedHashSet<>(projectSelects.get(i).getExpectedColumns());
+                    columns.add(PROJECT_ID.getLabel());
+                    assertEquals(columns, new LinkedHashSet<>(selects.get(i).getExpectedColumns()), name + " select " + i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Asserts that result of the select for the project contains only rows of the project and
+     * is the same as result of per-project query.
+     */
+    private void assertProject(DatabaseConnection connection, long projectId, int select, ResultTable expected,
+                               ResultColumn... columns) {
+        ResultTable result = connection.executeQueriesWithMultipleResults(project(projectId), null).get(select);
+        for (long resultProjectId : result.getLongColumn(result.getColumnIndex(PROJECT_ID))) {
+            assertEquals(projectId, resultProjectId);
+        }
+        assertSameTable(expected, result, columns);
+    }
+
+    private static List<QueryPlan.Statement> selects(String name) throws IOException {
+        String script = new String(Files.readAllBytes(QUERIES.resolve(name)), StandardCharsets.UTF_8);
+        return QueryPlanCompiler.compile(name, script).getStatements().stream().filter(QueryPlan.Statement::isSelect)
+                .collect(Collectors.toList());
+    }
+
+    private static Project project(long id) {
+        Project project = new Project();
+        project.setId(id);
+        return project;
+    }
+}
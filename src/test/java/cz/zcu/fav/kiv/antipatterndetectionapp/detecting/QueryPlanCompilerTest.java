@@ -0,0 +1,143 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks splitting of sql files into statements, parameter positions, labels of selected columns
+ * and fingerprints of selects found by {@link QueryPlanCompiler}.
+ */
+class QueryPlanCompilerTest {
+
+    @Test
+    void splitsStatementsAndFindsKinds() {
+        QueryPlan queryPlan = QueryPlanCompiler.compile("test.sql", "set @projectId = ?;\n"
+                + "SELECT count(id)\n   from iteration\twhere superProjectId = @projectId;\n"
+                + "update t set a = 1;;\n  ;");
+        assertEquals(Arrays.asList("set @projectId = ?", "SELECT count(id) from iteration where superProjectId = @projectId",
+                "update t set a = 1"), sqls(queryPlan));
+        assertEquals(Arrays.asList(QueryPlan.Kind.SET, QueryPlan.Kind.SELECT, QueryPlan.Kind.OTHER),
+                queryPlan.getStatements().stream().map(QueryPlan.Statement::getKind).collect(Collectors.toList()));
+        assertEquals(1, queryPlan.getSelectCount());
+        assertEquals("test.sql", queryPlan.getName());
+    }
+
+    @Test
+    void removesComments() {
+        QueryPlan queryPlan = QueryPlanCompiler.compile("test.sql", "/* header; with semicolon */\n"
+                + "select a -- comment; with semicolon\n"
+                + "from t # another comment; with semicolon\n"
+                + "where b = 5--1 and c = 1/**/and d = 2;\n"
+                + "select 1 --");
+        assertEquals(Arrays.asList("select a from t where b = 5--1 and c = 1 and d = 2", "select 1"), sqls(queryPlan));
+    }
+
+    @Test
+    void keepsQuotedStrings() {
+        QueryPlan queryPlan = QueryPlanCompiler.compile("test.sql",
+                "select 'a;  -- b' as `x`, \"/* c */ #d\" as `y`, `e;f` from t where g like '%retr%';");
+        assertEquals(Arrays.asList("select 'a;  -- b' as `x`, \"/* c */ #d\" as `y`, `e;f` from t where g like '%retr%'"),
+                sqls(queryPlan));
+        assertEquals(Arrays.asList("x", "y", "e;f"), queryPlan.getStatements().get(0).getExpectedColumns());
+    }
+
+    @Test
+    void keepsEscapedQuotes() {
+        QueryPlan queryPlan = QueryPlanCompiler.compile("test.sql",
+                "select 'it\\'s; ?' as a, \"say \\\"?\\\"; \" as b, 'x\\\\' as c from t where d = ?; select ?");
+        assertEquals(Arrays.asList("select 'it\\'s; ?' as a, \"say \\\"?\\\"; \" as b, 'x\\\\' as c from t where d = ?", "select ?"),
+                sqls(queryPlan));
+        assertEquals(Arrays.asList("a", "b", "c"), queryPlan.getStatements().get(0).getExpectedColumns());
+        assertEquals(1, queryPlan.getStatements().get(0).getParameterCount());
+        assertEquals(1, queryPlan.getStatements().get(1).getParameterCount());
+    }
+
+    @Test
+    void rejectsUnterminatedStringsAndComments() {
+        assertThrows(IllegalArgumentException.class, () -> QueryPlanCompiler.compile("test.sql", "select 'a from t;"));
+        assertThrows(IllegalArgumentException.class, () -> QueryPlanCompiler.compile("test.sql", "select 'a\\' from t;"));
+        assertThrows(IllegalArgumentException.class, () -> QueryPlanCompiler.compile("test.sql", "select `a from t;"));
+        assertThrows(IllegalArgumentException.class, () -> QueryPlanCompiler.compile("test.sql", "select a /* from t;"));
+    }
+
+    @Test
+    void expandsOnlyParameterPlaceholders() {
+        QueryPlan.Statement statement = QueryPlanCompiler.compile("test.sql",
+                "select a as '?' from t where b in (?) and c = '?' and d = `?` and e in (?)").getStatements().get(0);
+        assertEquals(2, statement.getParameterCount());
+        assertEquals("select a as '?' from t where b in (?, ?, ?) and c = '?' and d = `?` and e in (?, ?, ?)",
+                statement.expandParameters(3));
+        assertEquals(statement.getSql(), statement.expandParameters(1));
+        assertEquals(0, QueryPlanCompiler.compile("test.sql", "select '?'").getStatements().get(0).getParameterCount());
+    }
+
+    @Test
+    void findsLabelsOfSelectedColumns() {
+        assertEquals(Arrays.asList("numberOfIterations", "b", "c", "name", "id", "iterationName", "count(*)", "d", "e"),
+                columns("select COUNT(id) as 'numberOfIterations', x AS \"b\", y as `c`, iteration.name, `wuv`.`id`, "
+                        + "distinct iterationName, count(*), (select max(a) from u where u.b in (1, 2)) as d, "
+                        + "cast(max(created) as date) as e from t"));
+        assertEquals(Arrays.asList("fromDate", "projectId"), columns("select fromDate, @projectId as `projectId`"));
+        assertEquals(Arrays.asList("a", "b"), columns("select a, b FROM t"));
+    }
+
+    @Test
+    void fingerprintsSelectWithPrecedingStatements() {
+        QueryPlan queryPlan = QueryPlanCompiler.compile("test.sql", "set @a = 1; select @a; set @b = 2; select @a;");
+        List<QueryPlan.Statement> statements = queryPlan.getStatements();
+        assertNull(statements.get(0).getFingerprint());
+        assertNull(statements.get(2).getFingerprint());
+        // the same select differs when session variables set before it differ
+        assertNotEquals(statements.get(1).getFingerprint(), statements.get(3).getFingerprint());
+
+        assertEquals(statements.get(3).getFingerprint(), fingerprint("SET @a = 1;\n/* comment */ set   @b = 2;\nSELECT @a", 2));
+        assertNotEquals(statements.get(3).getFingerprint(), fingerprint("set @a = 3; set @b = 2; select @a", 2));
+        assertNotEquals(fingerprint("select 'a'", 0), fingerprint("select 'A'", 0));
+        assertEquals(fingerprint("select a from t", 0), fingerprint("SELECT a\nFROM t -- comment", 0));
+    }
+
+    @Test
+    void compilesSqlFilesOfDetectors() throws IOException {
+        QueryPlan queryPlan = compileFile("long_or_non_existent_feedback_loops.sql");
+        assertEquals(7, queryPlan.getSelectCount());
+        List<QueryPlan.Statement> selects = queryPlan.getStatements().stream().filter(QueryPlan.Statement::isSelect)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("id", "iterationName", "name", "endDate"), selects.get(3).getExpectedColumns());
+        assertEquals(Arrays.asList("iterationWithCustomerFeedback", "appointmentDate"), selects.get(6).getExpectedColumns());
+        assertEquals(1, queryPlan.getStatements().get(0).getParameterCount());
+
+        queryPlan = compileFile("road_to_nowhere.sql");
+        assertEquals(1, queryPlan.getSelectCount());
+        assertEquals(Arrays.asList("projectId", "numberOfIssuesForProjectPlan", "numberOfWikiPagesForProjectPlan"),
+                queryPlan.getStatements().get(queryPlan.getStatements().size() - 1).getExpectedColumns());
+    }
+
+    private static List<String> sqls(QueryPlan queryPlan) {
+        return queryPlan.getStatements().stream().map(QueryPlan.Statement::getSql).collect(Collectors.toList());
+    }
+
+    private static List<String> columns(String select) {
+        return QueryPlanCompiler.compile("test.sql", select).getStatements().get(0).getExpectedColumns();
+    }
+
+    private static String fingerprint(String script, int statement) {
+        return QueryPlanCompiler.compile("test.sql", script).getStatements().get(statement).getFingerprint();
+    }
+
+    private static QueryPlan compileFile(String name) throws IOException {
+        String script = new String(Files.readAllBytes(Paths.get("src/main/webapp/queries", name)), StandardCharsets.UTF_8);
+        return QueryPlanCompiler.compile(name, script);
+    }
+}
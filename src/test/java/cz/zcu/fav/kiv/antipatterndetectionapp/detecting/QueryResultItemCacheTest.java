@@ -0,0 +1,158 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.detectors.AntiPatternDetector;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.AntiPattern;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.ConfigurationSnapshot;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.Project;
+import cz.zcu.fav.kiv.antipatterndetectionapp.model.QueryResultItem;
+import cz.zcu.fav.kiv.antipatterndetectionapp.spring.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks which results {@link QueryResultItemCache} serves, evicts and refuses.
+ */
+@ExtendWith(MockitoExtension.class)
+class QueryResultItemCacheTest {
+
+    private static final ConfigurationSnapshot CONFIGURATION = new ConfigurationSnapshot(1,
+            Map.of(1L, Map.of("maxIterationLength", 21), 2L, Map.of("minAverage", 0.5)));
+
+    @Mock
+    private ApplicationProperties applicationProperties;
+
+    @InjectMocks
+    private QueryResultItemCache queryResultItemCache;
+
+    private final AntiPatternDetector firstDetector = detector(1L);
+    private final AntiPatternDetector secondDetector = detector(2L);
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(applicationProperties.getResultCacheMaxSize()).thenReturn(10);
+        lenient().when(applicationProperties.getResultCacheTimeToLive()).thenReturn(3600L);
+    }
+
+    @Test
+    void servesResultOnlyForTheSameProjectAndConfiguration() {
+        QueryResultItem result = result();
+        queryResultItemCache.put(project(1), firstDetector, CONFIGURATION, result, "w1", 0);
+
+        assertSame(result, queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+        assertSame(result, queryResultItemCache.get(project(1), firstDetector, CONFIGURATION.withValues(Map.of(2L, Map.of("minAverage", 0.7))), "w1"));
+        assertNull(queryResultItemCache.get(project(1), firstDetector, CONFIGURATION.withValues(Map.of(1L, Map.of("maxIterationLength", 14))), "w1"));
+        assertNull(queryResultItemCache.get(project(2), firstDetector, CONFIGURATION, "w1"));
+        assertNull(queryResultItemCache.get(project(1), secondDetector, CONFIGURATION, "w1"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedResult() {
+        when(applicationProperties.getResultCacheMaxSize()).thenReturn(2);
+        QueryResultItem first = result();
+        QueryResultItem third = result();
+        queryResultItemCache.put(project(1), firstDetector, CONFIGURATION, first, "w1", 0);
+        queryResultItemCache.put(project(2), firstDetector, CONFIGURATION, result(), "w2", 0);
+        queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1");
+        queryResultItemCache.put(project(3), firstDetector, CONFIGURATION, third, "w3", 0);
+
+        assertSame(first, queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+        assertNull(queryResultItemCache.get(project(2), firstDetector, CONFIGURATION, "w2"));
+        assertSame(third, queryResultItemCache.get(project(3), firstDetector, CONFIGURATION, "w3"));
+        assertEquals(2, queryResultItemCache.getStatistics().get("size"));
+        assertEquals(1L, queryResultItemCache.getStatistics().get("evictions"));
+    }
+
+    @Test
+    void expiresResultWhenWatermarkIsNotKnown() throws InterruptedException {
+        when(applicationProperties.getResultCacheTimeToLive()).thenReturn(0L);
+        queryResultItemCache.put(project(1), firstDetector, CONFIGURATION, result(), null, 0);
+        queryResultItemCache.put(project(2), firstDetector, CONFIGURATION, result(), "w2", 0);
+        Thread.sleep(20);
+
+        assertNull(queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+        assertNull(queryResultItemCache.get(project(2), firstDetector, CONFIGURATION, null));
+    }
+
+    @Test
+    void servesResultWithTheSameWatermarkRegardlessOfAge() throws InterruptedException {
+        when(applicationProperties.getResultCacheTimeToLive()).thenReturn(0L);
+        QueryResultItem result = result();
+        queryResultItemCache.put(project(1), firstDetector, CONFIGURATION, result, "w1", 0);
+        Thread.sleep(20);
+
+        assertSame(result, queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+        // changed data remove the result, so it is not served for the old watermark either
+        assertNull(queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w2"));
+        assertNull(queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+        assertEquals(1L, queryResultItemCache.getStatistics().get("staleResults"));
+    }
+
+    @Test
+    void invalidatesOnlyResultsOfAntiPattern() {
+        QueryResultItem result = result();
+        queryResultItemCache.put(project(1), firstDetector, CONFIGURATION, result(), "w1", 0);
+        queryResultItemCache.put(project(2), firstDetector, CONFIGURATION, result(), "w2", 0);
+        queryResultItemCache.put(project(1), secondDetector, CONFIGURATION, result, "w1", 0);
+        queryResultItemCache.invalidate(1L);
+
+        assertNull(queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+        assertNull(queryResultItemCache.get(project(2), firstDetector, CONFIGURATION, "w2"));
+        assertSame(result, queryResultItemCache.get(project(1), secondDetector, CONFIGURATION, "w1"));
+        assertEquals(2L, queryResultItemCache.getStatistics().get("invalidations"));
+    }
+
+    @Test
+    void refusesResultsOfOlderQueryPlans() {
+        queryResultItemCache.put(project(1), firstDetector, CONFIGURATION, result(), "w1", 4);
+        queryResultItemCache.invalidate(1L, 5);
+        assertNull(queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+
+        // analysis which has started before the reload stores result of the old plans
+        queryResultItemCache.put(project(1), firstDetector, CONFIGURATION, result(), "w1", 4);
+        assertNull(queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+
+        QueryResultItem result = result();
+        queryResultItemCache.put(project(1), firstDetector, CONFIGURATION, result, "w1", 5);
+        assertSame(result, queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+        QueryResultItem otherResult = result();
+        queryResultItemCache.put(project(1), secondDetector, CONFIGURATION, otherResult, "w1", 0);
+        assertSame(otherResult, queryResultItemCache.get(project(1), secondDetector, CONFIGURATION, "w1"));
+    }
+
+    @Test
+    void storesNothingWhenDisabled() {
+        when(applicationProperties.getResultCacheMaxSize()).thenReturn(0);
+        queryResultItemCache.put(project(1), firstDetector, CONFIGURATION, result(), "w1", 0);
+        assertNull(queryResultItemCache.get(project(1), firstDetector, CONFIGURATION, "w1"));
+    }
+
+    private static AntiPatternDetector detector(long antiPatternId) {
+        AntiPatternDetector detector = mock(AntiPatternDetector.class);
+        lenient().when(detector.getAntiPatternModel()).thenReturn(new AntiPattern(antiPatternId, "Anti-pattern", "antiPattern", ""));
+        return detector;
+    }
+
+    private static Project project(long id) {
+        Project project = new Project();
+        project.setId(id);
+        return project;
+    }
+
+    private static QueryResultItem result() {
+        return new QueryResultItem(null, false, new ArrayList<>());
+    }
+}
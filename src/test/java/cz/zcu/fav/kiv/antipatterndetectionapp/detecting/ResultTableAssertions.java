@@ -0,0 +1,66 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares result tables cell by cell. Cells are compared by their string values, so null
+ * differs from zero and dates are compared as dates.
+ */
+public final class ResultTableAssertions {
+
+    private ResultTableAssertions() {
+    }
+
+    /**
+     * Asserts that both tables have the same rows in the same order.
+     *
+     * @param expected expected table
+     * @param actual   compared table
+     * @param columns  all columns of the expected table
+     */
+    public static void assertSameTable(ResultTable expected, ResultTable actual, ResultColumn... columns) {
+        assertEquals(rows(expected, columns), rows(actual, columns));
+    }
+
+    /**
+     * Asserts that both tables have the same rows in any order, e.g. for selects without order by.
+     *
+     * @param expected expected table
+     * @param actual   compared table
+     * @param columns  all columns of the expected table
+     */
+    public static void assertSameRows(ResultTable expected, ResultTable actual, ResultColumn... columns) {
+        assertEquals(sortedRows(expected, columns), sortedRows(actual, columns));
+    }
+
+    /**
+     * Returns string values of given columns of all rows.
+     */
+    public static List<List<String>> rows(ResultTable table, ResultColumn... columns) {
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = table.getColumnIndex(columns[i]);
+        }
+        List<List<String>> rows = new ArrayList<>();
+        ResultTable.Cursor cursor = table.cursor();
+        while (cursor.next()) {
+            String[] row = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                row[i] = cursor.getString(indexes[i]);
+            }
+            rows.add(Arrays.asList(row));
+        }
+        return rows;
+    }
+
+    private static List<List<String>> sortedRows(ResultTable table, ResultColumn... columns) {
+        List<List<String>> rows = rows(table, columns);
+        rows.sort(Comparator.comparing(Object::toString));
+        return rows;
+    }
+}
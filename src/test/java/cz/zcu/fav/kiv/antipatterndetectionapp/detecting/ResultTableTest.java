@@ -0,0 +1,63 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTableAssertions.assertSameTable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks splitting of {@link ResultTable} by project, which serves results of set-based queries.
+ */
+class ResultTableTest {
+
+    private static final ResultColumn PROJECT_ID = new ResultColumn("projectId", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NAME = new ResultColumn("name", ResultTable.ColumnType.STRING);
+    private static final ResultColumn LENGTH = new ResultColumn("length", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn END_DATE = new ResultColumn("endDate", ResultTable.ColumnType.DATE);
+
+    @Test
+    void partitionsKeepOrderAndNullsOfRows() {
+        ResultTable table = ResultTable.builder(PROJECT_ID, NAME, LENGTH, END_DATE)
+                .addRow(2, "b", 1.5, LocalDate.parse("2021-03-02"))
+                .addRow(1, "a", null, LocalDate.parse("2021-03-01"))
+                .addRow(2, null, 0.0, null)
+                .addRow(1, "c", 3.0, LocalDate.parse("1970-01-01"))
+                .addRow(2, "a", 2.5, LocalDate.parse("2021-03-03")).build();
+
+        Map<Long, ResultTable> partitions = table.partitionBy(PROJECT_ID);
+        assertEquals(2, partitions.size());
+        assertSameTable(ResultTable.builder(PROJECT_ID, NAME, LENGTH, END_DATE)
+                .addRow(1, "a", null, LocalDate.parse("2021-03-01"))
+                .addRow(1, "c", 3.0, LocalDate.parse("1970-01-01")).build(), partitions.get(1L), PROJECT_ID, NAME, LENGTH, END_DATE);
+        assertSameTable(ResultTable.builder(PROJECT_ID, NAME, LENGTH, END_DATE)
+                .addRow(2, "b", 1.5, LocalDate.parse("2021-03-02"))
+                .addRow(2, null, 0.0, null)
+                .addRow(2, "a", 2.5, LocalDate.parse("2021-03-03")).build(), partitions.get(2L), PROJECT_ID, NAME, LENGTH, END_DATE);
+    }
+
+    @Test
+    void emptyTableHasNoPartitions() {
+        ResultTable table = ResultTable.builder(PROJECT_ID, NAME).build();
+        assertTrue(table.partitionBy(PROJECT_ID).isEmpty());
+    }
+
+    @Test
+    void tableWithoutRowsKeepsColumns() {
+        ResultTable table = ResultTable.builder(PROJECT_ID, NAME).addRow(1, "a").build().withoutRows();
+        assertTrue(table.isEmpty());
+        assertEquals(1, table.getColumnIndex(NAME));
+    }
+
+    @Test
+    void rejectsMissingOrIncompatibleKeyColumn() {
+        ResultTable table = ResultTable.builder(NAME).addRow("a").build();
+        assertThrows(IllegalStateException.class, () -> table.partitionBy(PROJECT_ID));
+        ResultTable stringKeys = ResultTable.builder(new ResultColumn("projectId", ResultTable.ColumnType.STRING)).addRow("1").build();
+        assertThrows(IllegalStateException.class, () -> stringKeys.partitionBy(PROJECT_ID));
+    }
+}
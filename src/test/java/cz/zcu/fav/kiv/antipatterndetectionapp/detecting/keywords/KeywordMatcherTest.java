@@ -0,0 +1,168 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.keywords;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Compares {@link KeywordMatcher} with {@link LikePattern#matches(String)}, which evaluates
+ * the patterns in the same way as operator like.
+ */
+class KeywordMatcherTest {
+
+    private static final List<String> VALUES = Arrays.asList(
+            "", " ", "a", "ab", "abc", "abbc", "abab", "aab", "aaa", "aa", "ba", "cab", "xabcx",
+            "Retrospektiva sprintu", "weekly scrum", "scrum week", "Schůze se zákazníkem", "Předvedení zákazníkovi",
+            "zakaznik demo", "demo zakaznik", "Zápis ze schůze", "Plán projektu", "projekotvý plán", "projektový plán",
+            "DSP", "Specifikace požadavků", "vize produktu", "produkt vize", "WikiPage", "wikipage", "wikipage ",
+            "straße", "łódź", "iterace 😀 iterace", "ｉｔｅｒａ", "\u0000itera", "itera￿");
+
+    @Test
+    void matchesLikeEverySpadeKeywordsPattern() {
+        for (LikePattern pattern : SpadeKeywords.patterns()) {
+            KeywordMatcher matcher = KeywordMatcher.builder().add(1, pattern).build();
+            for (String value : values(pattern)) {
+                assertEquals(pattern.matches(value) ? 1 : 0, matcher.match(value), () -> pattern + " against " + value);
+            }
+        }
+    }
+
+    @Test
+    void matchesLikeAllSpadeKeywordsPatternsAtOnce() {
+        List<LikePattern> patterns = SpadeKeywords.patterns();
+        KeywordMatcher.Builder builder = KeywordMatcher.builder();
+        for (int i = 0; i < patterns.size(); i++) {
+            builder.add(1 << (i % Integer.SIZE), patterns.get(i));
+        }
+        KeywordMatcher matcher = builder.build();
+
+        List<String> values = new ArrayList<>();
+        for (LikePattern pattern : patterns) {
+            values.addAll(values(pattern));
+        }
+        for (String value : values) {
+            int expected = 0;
+            for (int i = 0; i < patterns.size(); i++) {
+                if (patterns.get(i).matches(value)) {
+                    expected |= 1 << (i % Integer.SIZE);
+                }
+            }
+            assertEquals(expected, matcher.match(value), () -> "all patterns against " + value);
+        }
+    }
+
+    @Test
+    void doesNotMatchOverlappingParts() {
+        assertMatches("%ab%bc%", "abc", false);
+        assertMatches("%ab%bc%", "abbc", true);
+        assertMatches("%aba%aba%", "ababa", false);
+        assertMatches("%aba%aba%", "abaaba", true);
+        assertMatches("%schůz%zákazník%", "schůzákazník", false);
+    }
+
+    @Test
+    void matchesRepeatedParts() {
+        assertMatches("%ab%ab%", "ab", false);
+        assertMatches("%ab%ab%", "aab", false);
+        assertMatches("%ab%ab%", "abab", true);
+        assertMatches("%a%a%a%", "aa", false);
+        assertMatches("%a%a%a%", "aaa", true);
+        assertMatches("%a%a%a%", "abababa", true);
+        assertMatches("%%a%%", "a", true);
+        assertMatches("%", "", true);
+    }
+
+    @Test
+    void matchesAnchoredPatterns() {
+        assertMatches("ab%", "abc", true);
+        assertMatches("ab%", "cab", false);
+        assertMatches("%ab", "cab", true);
+        assertMatches("%ab", "abc", false);
+        assertMatches("a%b", "ab", true);
+        assertMatches("a%b", "axxb", true);
+        assertMatches("a%b", "ba", false);
+        assertMatches("ab", "ab", true);
+        assertMatches("ab", "abab", false);
+        assertMatches("WIKIPAGE", "wikipage", true);
+        assertMatches("WIKIPAGE", "wikipage ", false);
+    }
+
+    @Test
+    void matchesNonAsciiValues() {
+        assertMatches("%zákazn%demo%", "Zákazník – demo 😀", true);
+        assertMatches("%plán projektu%", "PLÁN PROJEKTU", true);
+        assertMatches("%straße%", "Straße", true);
+        assertMatches("%łódź%", "Łódź", true);
+        assertMatches("%ł%", "l", false);
+        assertMatches("%😀%demo%", "😀 demo", true);
+        assertMatches("%demo%😀%", "😀 demo", false);
+    }
+
+    @Test
+    void doesNotMatchNull() {
+        KeywordMatcher matcher = KeywordMatcher.builder().add(1, LikePattern.compile("%itera%")).add(2, LikePattern.compile("%")).build();
+        assertEquals(0, matcher.match(null));
+        assertFalse(LikePattern.compile("%").matches(null));
+        assertEquals(0, KeywordMatcher.builder().add(1, LikePattern.compile("WIKIPAGE")).build().match(null));
+    }
+
+    /**
+     * Asserts result of like and checks that matcher agrees with it for both normalized and raw value.
+     */
+    private void assertMatches(String pattern, String value, boolean expected) {
+        LikePattern likePattern = LikePattern.compile(pattern);
+        String normalized = LikePattern.normalize(value);
+        assertEquals(expected, likePattern.matches(normalized), () -> pattern + " against " + value);
+        KeywordMatcher matcher = KeywordMatcher.builder().add(1, likePattern).build();
+        assertEquals(expected ? 1 : 0, matcher.match(normalized), () -> pattern + " against " + value);
+        assertEquals(likePattern.matches(value) ? 1 : 0, matcher.match(value), () -> pattern + " against raw " + value);
+    }
+
+    /**
+     * Creates values around the pattern: its parts in order with and without separators, in reverse
+     * order, with a part missing or shortened, overlapping, repeated and in upper case, together with
+     * common values both normalized and raw.
+     */
+    private List<String> values(LikePattern pattern) {
+        List<String> parts = Arrays.asList(pattern.getParts());
+        List<String> values = new ArrayList<>();
+        values.add(String.join("", parts));
+        values.add(String.join(" ", parts));
+        values.add("x" + String.join("y", parts) + "z");
+        List<String> reversed = new ArrayList<>(parts);
+        Collections.reverse(reversed);
+        values.add(String.join(" ", reversed));
+        for (int i = 0; i < parts.size(); i++) {
+            List<String> missing = new ArrayList<>(parts);
+            missing.remove(i);
+            values.add(String.join(" ", missing));
+            String part = parts.get(i);
+            if (part.length() > 1) {
+                List<String> shortened = new ArrayList<>(parts);
+                shortened.set(i, part.substring(0, part.length() - 1));
+                values.add(String.join(" ", shortened));
+            }
+            if (i > 0 && !part.isEmpty()) {
+                // part shares its first character with the end of the previous part
+                List<String> overlapping = new ArrayList<>(parts);
+                overlapping.set(i, part.substring(1));
+                values.add(String.join("", overlapping));
+            }
+        }
+        String joined = String.join(" ", parts);
+        values.add(joined + joined);
+        values.add(joined.toUpperCase());
+        values.add(pattern.toString().replace("%", " "));
+        for (String value : VALUES) {
+            values.add(LikePattern.normalize(value));
+            values.add(value);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,302 @@
+package cz.zcu.fav.kiv.antipatterndetectionapp.detecting.snapshot;
+
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultColumn;
+import cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTableAssertions.assertSameRows;
+import static cz.zcu.fav.kiv.antipatterndetectionapp.detecting.ResultTableAssertions.assertSameTable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Evaluates every supported sql file by {@link SnapshotQueries} on one set of SPADE rows and compares
+ * the results with tables which the sql file returns for the same rows in database. Rows cover
+ * iterations with missing dates, names differing only in case and accents, division by zero and
+ * the customer meeting condition of long_or_non_existent_feedback_loops.sql which is not limited
+ * to the project. Project 3 has no rows at all.
+ */
+class SnapshotQueriesTest {
+
+    private static final ResultColumn PROJECT_ID = new ResultColumn("projectId", ResultTable.ColumnType.LONG);
+    private static final ResultColumn ITERATION_LENGTH = new ResultColumn("iterationLength", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_ITERATIONS = new ResultColumn("numberOfIterations", ResultTable.ColumnType.LONG);
+    private static final ResultColumn ITERATION_NAME = new ResultColumn("iterationName", ResultTable.ColumnType.STRING);
+    private static final ResultColumn NUMBER_OF_ISSUES = new ResultColumn("numberOfIssues", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_WIKI_PAGES = new ResultColumn("numberOfWikiPages", ResultTable.ColumnType.LONG);
+    private static final ResultColumn AVERAGE_ITERATION_LENGTH = new ResultColumn("averageIterationLength", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn TOTAL_COUNT_OF_ITERATIONS_WITH_FEEDBACK_ACTIVITY = new ResultColumn("totalCountOfIterationsWithFeedbackActivity", ResultTable.ColumnType.LONG);
+    private static final ResultColumn ID = new ResultColumn("id", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NAME = new ResultColumn("name", ResultTable.ColumnType.STRING);
+    private static final ResultColumn END_DATE = new ResultColumn("endDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn PROJECT_START_DATE = new ResultColumn("projectStartDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn PROJECT_END_DATE = new ResultColumn("projectEndDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn ITERATION_WITH_CUSTOMER_FEEDBACK = new ResultColumn("iterationWithCustomerFeedback", ResultTable.ColumnType.STRING);
+    private static final ResultColumn APPOINTMENT_DATE = new ResultColumn("appointmentDate", ResultTable.ColumnType.DATE);
+    private static final ResultColumn ESTIMATED_TIME = new ResultColumn("estimatedTime", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn SPENT_TIME = new ResultColumn("spentTime", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn TIME_DIVISION = new ResultColumn("timeDivision", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn DEVIATION = new ResultColumn("deviation", ResultTable.ColumnType.DOUBLE);
+    private static final ResultColumn NUMBER_OF_ISSUES_FOR_PROJECT_PLAN = new ResultColumn("numberOfIssuesForProjectPlan", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_WIKI_PAGES_FOR_PROJECT_PLAN = new ResultColumn("numberOfWikiPagesForProjectPlan", ResultTable.ColumnType.LONG);
+    private static final ResultColumn NUMBER_OF_ACTIVITIES_FOR_SPECIFICATION = new ResultColumn("numberOfActivitiesForSpecification", ResultTable.ColumnType.LONG);
+    private static final ResultColumn AVERAGE_LENGTH_OF_ISSUE_DESCRIPTION = new ResultColumn("averageLengthOfIssueDescription", ResultTable.ColumnType.DOUBLE);
+
+    // id, name, superProjectId, startDate, endDate
+    private static final List<Object[]> ITERATIONS = Arrays.asList(
+            new Object[]{11L, "Iterace 1", 1L, time("2021-03-01"), time("2021-03-14")},
+            new Object[]{12L, "Iterace 2", 1L, time("2021-03-15"), time("2021-03-28")},
+            new Object[]{13L, "Iterace 3", 1L, time("2021-03-29"), time("2021-04-18")},
+            new Object[]{14L, "Mezidobí", 1L, time("2021-04-19"), null},
+            new Object[]{15L, "Sprint 4", 1L, time("2021-04-19"), time("2021-05-02")},
+            new Object[]{16L, "Závěr", 1L, time("2021-05-03"), time("2021-05-09")},
+            new Object[]{21L, "Iterace A", 2L, null, time("2021-04-10")},
+            new Object[]{22L, "Iterace B", 2L, time("2021-04-11"), time("2021-04-24")});
+
+    // id, name, description, projectId, iterationName, iterationStartDate, estimatedTime, spentTime
+    private static final List<Object[]> WORK_UNITS = Arrays.asList(
+            new Object[]{101L, "Retrospektiva sprintu", "Shrnutí iterace", 1L, "Iterace 1", time("2021-03-01"), 2.0, 3.0},
+            new Object[]{102L, "Weekly scrum", null, 1L, "Iterace 1", time("2021-03-01"), 1.0, null},
+            new Object[]{103L, "Revize kódu", "Kontrola dle projektový plán", 1L, "ITERACE 2", time("2021-03-15"), 4.0, 2.0},
+            new Object[]{104L, "Schůze se zákazníkem", "Předvedení dema", 1L, "Iterace 2", time("2021-03-15"), null, 1.0},
+            new Object[]{105L, "Předvedení zákazníkovi", "demo", 1L, "Iterace 3", time("2021-03-29"), 0.0, 2.0},
+            new Object[]{106L, "Plán projektu", "první verze", 1L, "Iterace 1", time("2021-03-01"), 3.0, 3.0},
+            new Object[]{107L, "Project plan update", null, 1L, "Sprint 4", time("2021-04-19"), 1.0, 1.0},
+            new Object[]{108L, "Specifikace požadavků", "DSP", 1L, null, null, 5.0, 5.0},
+            new Object[]{109L, "Informace ze schůze", "Tohle je popis!", 1L, "Iterace 3", time("2021-03-29"), null, null},
+            new Object[]{110L, "Úklid", null, 1L, "Závěr", time("2021-05-03"), null, null},
+            new Object[]{201L, "Zadavatel demo", null, 2L, "Iterace B", time("2021-04-11"), 1.0, 2.0},
+            new Object[]{202L, "Project plan", null, 2L, "Iterace B", time("2021-04-11"), null, null},
+            new Object[]{203L, "Project plan draft", null, 2L, null, null, null, null});
+
+    // id, name, description, projectId, artifactClass
+    private static final List<Object[]> ARTIFACTS = Arrays.asList(
+            new Object[]{301L, "Retrospektiva 1", null, 1L, "WIKIPAGE"},
+            new Object[]{302L, "retrospektiva 1", null, 1L, "WIKIPAGE"},
+            new Object[]{303L, "Poznámky", "retro shrnutí", 1L, "WIKIPAGE"},
+            new Object[]{304L, "Zápis ze schůze", null, 1L, "WIKIPAGE"},
+            new Object[]{305L, "Plán projektu", null, 1L, "WIKIPAGE"},
+            new Object[]{306L, "Specifikace", null, 1L, "WIKIPAGE"},
+            new Object[]{307L, "DSP", null, 1L, "FILE"},
+            new Object[]{308L, "Vize produktu", "", 1L, "WIKIPAGE"},
+            new Object[]{401L, "Schůze se zákazníkem", null, 2L, "WIKIPAGE"});
+
+    // itemId, created, length(newValue) > length(oldValue)
+    private static final List<Object[]> CHANGES = Arrays.asList(
+            new Object[]{101L, time("2021-03-05T10:00"), true},
+            new Object[]{104L, time("2021-03-20T10:00"), true},
+            new Object[]{104L, time("2021-03-16T09:00"), false},
+            new Object[]{105L, time("2021-04-02T12:00"), true},
+            new Object[]{201L, time("2021-04-12T08:00"), true},
+            new Object[]{301L, time("2021-03-10T10:00"), true},
+            new Object[]{301L, time("2021-03-20T10:00"), true},
+            new Object[]{302L, time("2021-03-12T10:00"), true},
+            new Object[]{303L, time("2021-04-20T10:00"), true},
+            new Object[]{304L, time("2021-03-02T10:00"), true},
+            new Object[]{304L, time("2021-03-25T10:00"), false},
+            new Object[]{401L, time("2021-04-25T10:00"), false});
+
+    private static SpadeSnapshot spadeSnapshot;
+
+    @BeforeAll
+    static void loadSnapshot() throws SQLException {
+        Statement statement = mock(Statement.class);
+        Map<String, List<Object[]>> tables = Map.of("fieldChangeView", CHANGES, "iteration", ITERATIONS,
+                "workUnitView", WORK_UNITS, "artifactView", ARTIFACTS);
+        when(statement.executeQuery(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            return resultSet(tables.get(sql.substring(sql.lastIndexOf(' ') + 1)));
+        });
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        spadeSnapshot = new SpadeSnapshotLoader().load(connection);
+    }
+
+    @Test
+    void iterationLengthsWithoutFirstAndLastIterationByName() {
+        for (String sqlFileName : new String[]{"too_long_sprint.sql", "varying_sprint_length.sql"}) {
+            assertResults(sqlFileName, 1, ResultTable.builder(ITERATION_LENGTH).addRow(13).addRow(20).addRow((Object) null).addRow(13).build());
+            assertResults(sqlFileName, 2, ResultTable.builder(ITERATION_LENGTH).build());
+            assertResults(sqlFileName, 3, ResultTable.builder(ITERATION_LENGTH).build());
+        }
+    }
+
+    @Test
+    void businessAsUsual() {
+        String sqlFileName = "business_as_usual.sql";
+        List<ResultTable> results = SnapshotQueries.execute(sqlFileName, spadeSnapshot, 1);
+        assertEquals(3, results.size());
+        assertSameTable(ResultTable.builder(NUMBER_OF_ITERATIONS).addRow(3).build(), results.get(0), NUMBER_OF_ITERATIONS);
+        // group by without order by, database does not guarantee order of groups
+        assertSameRows(ResultTable.builder(ITERATION_NAME, NUMBER_OF_ISSUES)
+                .addRow("Iterace 1", 2)
+                .addRow("ITERACE 2", 1).build(), results.get(1), ITERATION_NAME, NUMBER_OF_ISSUES);
+        assertSameTable(ResultTable.builder(ITERATION_NAME, NUMBER_OF_WIKI_PAGES)
+                .addRow("Iterace 1", 1)
+                .addRow("Iterace 2", 1)
+                .addRow("Sprint 4", 1).build(), results.get(2), ITERATION_NAME, NUMBER_OF_WIKI_PAGES);
+
+        assertResults(sqlFileName, 2,
+                ResultTable.builder(NUMBER_OF_ITERATIONS).addRow(2).build(),
+                ResultTable.builder(ITERATION_NAME, NUMBER_OF_ISSUES).build(),
+                ResultTable.builder(ITERATION_NAME, NUMBER_OF_WIKI_PAGES).build());
+        assertResults(sqlFileName, 3,
+                ResultTable.builder(NUMBER_OF_ITERATIONS).addRow(0).build(),
+                ResultTable.builder(ITERATION_NAME, NUMBER_OF_ISSUES).build(),
+                ResultTable.builder(ITERATION_NAME, NUMBER_OF_WIKI_PAGES).build());
+    }
+
+    @Test
+    void longOrNonExistentFeedbackLoops() {
+        String sqlFileName = "long_or_non_existent_feedback_loops.sql";
+        // meeting with customer of project 2 is joined with iterations of project 1
+        assertResults(sqlFileName, 1,
+                ResultTable.builder(NUMBER_OF_ITERATIONS).addRow(6).build(),
+                ResultTable.builder(AVERAGE_ITERATION_LENGTH).addRow(13.0).build(),
+                ResultTable.builder(TOTAL_COUNT_OF_ITERATIONS_WITH_FEEDBACK_ACTIVITY).addRow(2).addRow(2).build(),
+                ResultTable.builder(ID, ITERATION_NAME, NAME, END_DATE)
+                        .addRow(104, "Iterace 2", "Schůze se zákazníkem", LocalDate.parse("2021-03-20"))
+                        .addRow(105, "Iterace 3", "Předvedení zákazníkovi", LocalDate.parse("2021-04-02")).build(),
+                ResultTable.builder(PROJECT_START_DATE).addRow(LocalDate.parse("2021-03-01")).build(),
+                ResultTable.builder(PROJECT_END_DATE).addRow(LocalDate.parse("2021-05-09")).build(),
+                ResultTable.builder(ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE)
+                        .addRow("Iterace 1", LocalDate.parse("2021-03-02"))
+                        .addRow("Sprint 4", LocalDate.parse("2021-04-25")).build());
+        // iteration without start date is sorted first, so the project has no start date
+        assertResults(sqlFileName, 2,
+                ResultTable.builder(NUMBER_OF_ITERATIONS).addRow(2).build(),
+                ResultTable.builder(AVERAGE_ITERATION_LENGTH).addRow(13.0).build(),
+                ResultTable.builder(TOTAL_COUNT_OF_ITERATIONS_WITH_FEEDBACK_ACTIVITY).addRow(1).build(),
+                ResultTable.builder(ID, ITERATION_NAME, NAME, END_DATE)
+                        .addRow(201, "Iterace B", "Zadavatel demo", LocalDate.parse("2021-04-12")).build(),
+                ResultTable.builder(PROJECT_START_DATE).addRow((Object) null).build(),
+                ResultTable.builder(PROJECT_END_DATE).addRow(LocalDate.parse("2021-04-24")).build(),
+                ResultTable.builder(ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE).build());
+        assertResults(sqlFileName, 3,
+                ResultTable.builder(NUMBER_OF_ITERATIONS).addRow(0).build(),
+                ResultTable.builder(AVERAGE_ITERATION_LENGTH).addRow((Object) null).build(),
+                ResultTable.builder(TOTAL_COUNT_OF_ITERATIONS_WITH_FEEDBACK_ACTIVITY).build(),
+                ResultTable.builder(ID, ITERATION_NAME, NAME, END_DATE).build(),
+                ResultTable.builder(PROJECT_START_DATE).build(),
+                ResultTable.builder(PROJECT_END_DATE).build(),
+                ResultTable.builder(ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE).build());
+    }
+
+    @Test
+    void ninetyNinetyRule() {
+        String sqlFileName = "ninety_ninety_rule.sql";
+        assertResults(sqlFileName, 1, ResultTable.builder(ITERATION_NAME, ESTIMATED_TIME, SPENT_TIME, TIME_DIVISION, DEVIATION)
+                .addRow("Iterace 1", 6.0, 6.0, 1.0, 0.0)
+                .addRow("ITERACE 2", 4.0, 3.0, 0.75, 0.25)
+                .addRow("Iterace 3", 0.0, 2.0, null, null)
+                .addRow("Sprint 4", 1.0, 1.0, 1.0, 0.0)
+                .addRow("Závěr", null, null, null, null).build());
+        assertResults(sqlFileName, 2, ResultTable.builder(ITERATION_NAME, ESTIMATED_TIME, SPENT_TIME, TIME_DIVISION, DEVIATION)
+                .addRow("Iterace B", 1.0, 2.0, 2.0, 1.0).build());
+        assertResults(sqlFileName, 3, ResultTable.builder(ITERATION_NAME, ESTIMATED_TIME, SPENT_TIME, TIME_DIVISION, DEVIATION).build());
+    }
+
+    @Test
+    void roadToNowhere() {
+        String sqlFileName = "road_to_nowhere.sql";
+        assertResults(sqlFileName, 1, ResultTable.builder(PROJECT_ID, NUMBER_OF_ISSUES_FOR_PROJECT_PLAN, NUMBER_OF_WIKI_PAGES_FOR_PROJECT_PLAN)
+                .addRow(1, 2, 1).build());
+        // the first iteration has no start date, work unit without iteration is not compared with it
+        assertResults(sqlFileName, 2, ResultTable.builder(PROJECT_ID, NUMBER_OF_ISSUES_FOR_PROJECT_PLAN, NUMBER_OF_WIKI_PAGES_FOR_PROJECT_PLAN)
+                .addRow(2, 1, 0).build());
+        assertResults(sqlFileName, 3, ResultTable.builder(PROJECT_ID, NUMBER_OF_ISSUES_FOR_PROJECT_PLAN, NUMBER_OF_WIKI_PAGES_FOR_PROJECT_PLAN)
+                .addRow(3, 0, 0).build());
+    }
+
+    @Test
+    void specifyNothing() {
+        String sqlFileName = "specify_nothing.sql";
+        assertResults(sqlFileName, 1, ResultTable.builder(PROJECT_ID, NUMBER_OF_WIKI_PAGES, NUMBER_OF_ACTIVITIES_FOR_SPECIFICATION,
+                AVERAGE_LENGTH_OF_ISSUE_DESCRIPTION).addRow(1, 2, 1, 13.0).build());
+        assertResults(sqlFileName, 2, ResultTable.builder(PROJECT_ID, NUMBER_OF_WIKI_PAGES, NUMBER_OF_ACTIVITIES_FOR_SPECIFICATION,
+                AVERAGE_LENGTH_OF_ISSUE_DESCRIPTION).addRow(2, 0, 0, null).build());
+        assertResults(sqlFileName, 3, ResultTable.builder(PROJECT_ID, NUMBER_OF_WIKI_PAGES, NUMBER_OF_ACTIVITIES_FOR_SPECIFICATION,
+                AVERAGE_LENGTH_OF_ISSUE_DESCRIPTION).addRow(3, 0, 0, null).build());
+    }
+
+    /**
+     * Asserts that snapshot returns the expected tables in the same order, columns of every table
+     * are taken from the expected table.
+     */
+    private void assertResults(String sqlFileName, long projectId, ResultTable... expected) {
+        List<ResultTable> results = SnapshotQueries.execute(sqlFileName, spadeSnapshot, projectId);
+        assertEquals(expected.length, results.size(), () -> sqlFileName + " for project " + projectId);
+        for (int i = 0; i < expected.length; i++) {
+            assertSameTable(expected[i], results.get(i), columns(sqlFileName, i));
+        }
+    }
+
+    /**
+     * Returns columns of select of the sql file.
+     */
+    private static ResultColumn[] columns(String sqlFileName, int select) {
+        switch (sqlFileName) {
+            case "too_long_sprint.sql":
+            case "varying_sprint_length.sql":
+                return new ResultColumn[]{ITERATION_LENGTH};
+            case "business_as_usual.sql":
+                return new ResultColumn[][]{{NUMBER_OF_ITERATIONS}, {ITERATION_NAME, NUMBER_OF_ISSUES},
+                        {ITERATION_NAME, NUMBER_OF_WIKI_PAGES}}[select];
+            case "long_or_non_existent_feedback_loops.sql":
+                return new ResultColumn[][]{{NUMBER_OF_ITERATIONS}, {AVERAGE_ITERATION_LENGTH}, {TOTAL_COUNT_OF_ITERATIONS_WITH_FEEDBACK_ACTIVITY},
+                        {ID, ITERATION_NAME, NAME, END_DATE}, {PROJECT_START_DATE}, {PROJECT_END_DATE},
+                        {ITERATION_WITH_CUSTOMER_FEEDBACK, APPOINTMENT_DATE}}[select];
+            case "ninety_ninety_rule.sql":
+                return new ResultColumn[]{ITERATION_NAME, ESTIMATED_TIME, SPENT_TIME, TIME_DIVISION, DEVIATION};
+            case "road_to_nowhere.sql":
+                return new ResultColumn[]{PROJECT_ID, NUMBER_OF_ISSUES_FOR_PROJECT_PLAN, NUMBER_OF_WIKI_PAGES_FOR_PROJECT_PLAN};
+            default:
+                return new ResultColumn[]{PROJECT_ID, NUMBER_OF_WIKI_PAGES, NUMBER_OF_ACTIVITIES_FOR_SPECIFICATION,
+                        AVERAGE_LENGTH_OF_ISSUE_DESCRIPTION};
+        }
+    }
+
+    private static LocalDateTime time(String value) {
+        return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    }
+
+    /**
+     * Creates result set over the rows, values are read by index of column as the loader reads them.
+     */
+    private static ResultSet resultSet(List<Object[]> rows) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        int[] row = {-1};
+        Object[] lastValue = new Object[1];
+        Answer<Object> value = invocation -> lastValue[0] = rows.get(row[0])[(int) invocation.getArgument(0) - 1];
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.size());
+        when(resultSet.wasNull()).thenAnswer(invocation -> lastValue[0] == null);
+        when(resultSet.getString(anyInt())).thenAnswer(value);
+        when(resultSet.getObject(anyInt(), eq(LocalDateTime.class))).thenAnswer(value);
+        when(resultSet.getLong(anyInt())).thenAnswer(invocation -> {
+            Object number = value.answer(invocation);
+            return number == null ? 0L : ((Number) number).longValue();
+        });
+        when(resultSet.getDouble(anyInt())).thenAnswer(invocation -> {
+            Object number = value.answer(invocation);
+            return number == null ? 0.0 : ((Number) number).doubleValue();
+        });
+        when(resultSet.getBoolean(anyInt())).thenAnswer(invocation -> Boolean.TRUE.equals(value.answer(invocation)));
+        return resultSet;
+    }
+}